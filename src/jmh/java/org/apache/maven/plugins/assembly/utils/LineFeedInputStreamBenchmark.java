@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the line feed converting streams when read byte by byte, which is what the archivers
+ * did before the streams had a bulk read, and when read through {@link InputStream#read(byte[], int, int)}.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec}, optionally restricted with {@code -Djmh.includes=<regexp>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineFeedInputStreamBenchmark {
+
+    @Param({"unix", "dos"})
+    private String sourceLineEnding;
+
+    @Param({"8192", "65536"})
+    private int bufferSize;
+
+    private byte[] content;
+
+    private byte[] buffer;
+
+    @Setup
+    public void setUp() {
+        final String eol = LineEndings.valueOf(sourceLineEnding).getLineEndingCharacters();
+        final Random random = new Random(0);
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < 32 * 1024 * 1024) {
+            text.append("2024-03-15 07:53:45,123 INFO  [main] org.example.Service - request ")
+                    .append(random.nextInt())
+                    .append(" handled in ")
+                    .append(random.nextInt(1000))
+                    .append(" ms")
+                    .append(eol);
+            if (random.nextInt(20) == 0) {
+                text.append(eol);
+            }
+        }
+        content = text.toString().getBytes(StandardCharsets.UTF_8);
+        buffer = new byte[bufferSize];
+    }
+
+    @Benchmark
+    public long linuxSingleByte() throws IOException {
+        return drainSingleByte(new LinuxLineFeedInputStream(new ByteArrayInputStream(content), false));
+    }
+
+    @Benchmark
+    public long linuxBulk() throws IOException {
+        return drainBulk(new LinuxLineFeedInputStream(new ByteArrayInputStream(content), false));
+    }
+
+    @Benchmark
+    public long windowsSingleByte() throws IOException {
+        return drainSingleByte(new WindowsLineFeedInputStream(new ByteArrayInputStream(content), false));
+    }
+
+    @Benchmark
+    public long windowsBulk() throws IOException {
+        return drainBulk(new WindowsLineFeedInputStream(new ByteArrayInputStream(content), false));
+    }
+
+    private static long drainSingleByte(InputStream in) throws IOException {
+        long count = 0;
+        while (in.read() != -1) {
+            count++;
+        }
+        return count;
+    }
+
+    private long drainBulk(InputStream in) throws IOException {
+        long count = 0;
+        int read;
+        while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+            count += read;
+        }
+        return count;
+    }
+}
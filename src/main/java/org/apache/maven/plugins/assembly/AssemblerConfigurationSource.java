@@ -20,9 +20,12 @@ package org.apache.maven.plugins.assembly;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import org.apache.maven.archiver.MavenArchiveConfiguration;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugins.assembly.model.Assembly;
 import org.apache.maven.project.MavenProject;
@@ -229,4 +232,86 @@ public interface AssemblerConfigurationSource {
      * @return the merge manifest mode in the JarArchiver
      */
     String getMergeManifestMode();
+
+    /**
+     * @return Detect binary resources in filtered or line-ending converted fileSets and copy them untouched yes/no.
+     */
+    boolean isDetectBinaryFiles();
+
+    /**
+     * @return The directory caching the output of filtered resources across builds, null if caching is disabled.
+     */
+    File getFilteredResourcesCacheDirectory();
+
+    /**
+     * @return The policy resolving duplicate entries of file sets, one of none, first-wins, last-wins, fail and
+     *         skip-if-identical; null for none.
+     */
+    String getDuplicateEntryPolicy();
+
+    /**
+     * @return Whether the container descriptor handlers share a single iteration of the entries of the archive.
+     */
+    boolean isCombineHandlerIterations();
+
+    /**
+     * @return The number of threads reading and transforming the files of file sets ahead of the archiver, 0 if none.
+     */
+    int getReadAheadThreads();
+
+    /**
+     * @return The previous assembly, or directory of previous assemblies, to create delta archives against, null if
+     *         none.
+     */
+    File getDeltaBaseline();
+
+    /**
+     * @return How the dir format creates the files which are existing files as is, one of copy, hardlink, reflink and
+     *         symlink; null for copy.
+     */
+    String getDirLinkMode();
+
+    /**
+     * @return How the output directories of the dir format are synchronized, one of none, mtime and checksum; null for
+     *         none.
+     */
+    String getDirSync();
+
+    /**
+     * @return Whether the resolved transitive dependencies are kept in a snapshot to skip their resolution in the next
+     *         builds.
+     */
+    boolean isDependencySnapshot();
+
+    /**
+     * @return The transitive dependencies resolved so far, by project and scope, which are reused instead of being
+     *         resolved again; null if they are resolved for each assembly.
+     */
+    Map<String, Set<Artifact>> getResolvedDependencies();
+
+    /**
+     * @return The number of threads scanning the directories of file sets, 0 to leave the scans to the archivers.
+     */
+    int getScanThreads();
+
+    /**
+     * @return Whether the files of file sets are the ones tracked by git, as listed by the git index.
+     */
+    boolean isUseGitIndex();
+
+    /**
+     * @return Whether unpacked module binaries are added from the build output directories of the modules when they
+     *         hold the content of the module jars.
+     */
+    boolean isUseModuleOutputDirectories();
+
+    /**
+     * @return The directory caching the content of unpacked zip archives across builds, null if caching is disabled.
+     */
+    File getUnpackCacheDirectory();
+
+    /**
+     * @return The maximum size of the unpack cache, in megabytes.
+     */
+    int getUnpackCacheMaxSize();
 }
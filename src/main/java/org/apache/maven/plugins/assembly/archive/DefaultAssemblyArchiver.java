@@ -34,8 +34,15 @@ import java.util.Map;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugins.assembly.archive.archiver.AssemblyProxyArchiver;
+import org.apache.maven.plugins.assembly.archive.archiver.DirectoryListings;
+import org.apache.maven.plugins.assembly.archive.archiver.DuplicateEntryPolicy;
+import org.apache.maven.plugins.assembly.archive.archiver.LinkMode;
+import org.apache.maven.plugins.assembly.archive.archiver.LinkingDirectoryArchiver;
+import org.apache.maven.plugins.assembly.archive.archiver.SyncMode;
+import org.apache.maven.plugins.assembly.archive.archiver.SyncingDirectoryArchiver;
 import org.apache.maven.plugins.assembly.archive.phase.AssemblyArchiverPhase;
 import org.apache.maven.plugins.assembly.archive.phase.AssemblyArchiverPhaseComparator;
+import org.apache.maven.plugins.assembly.archive.task.UnpackCache;
 import org.apache.maven.plugins.assembly.artifact.DependencyResolutionException;
 import org.apache.maven.plugins.assembly.filter.ComponentsXmlArchiverFileFilter;
 import org.apache.maven.plugins.assembly.filter.ContainerDescriptorHandler;
@@ -51,6 +58,7 @@ import org.codehaus.plexus.archiver.ArchiveFinalizer;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.diags.DryRunArchiver;
+import org.codehaus.plexus.archiver.dir.DirectoryArchiver;
 import org.codehaus.plexus.archiver.filters.JarSecurityFileSelector;
 import org.codehaus.plexus.archiver.jar.JarArchiver;
 import org.codehaus.plexus.archiver.manager.ArchiverManager;
@@ -158,21 +166,29 @@ public class DefaultAssemblyArchiver implements AssemblyArchiver {
             final List<ContainerDescriptorHandler> containerHandlers =
                     selectContainerDescriptorHandlers(assembly.getContainerDescriptorHandlers(), configSource);
 
-            final Archiver archiver = createArchiver(
-                    format,
-                    assembly.isIncludeBaseDirectory(),
-                    basedir,
-                    configSource,
-                    containerHandlers,
-                    outputTimestamp);
+            try {
+                final Archiver archiver = createArchiver(
+                        format,
+                        assembly.isIncludeBaseDirectory(),
+                        basedir,
+                        configSource,
+                        containerHandlers,
+                        outputTimestamp);
 
-            archiver.setDestFile(destFile);
+                archiver.setDestFile(destFile);
 
-            for (AssemblyArchiverPhase phase : sortedPhases()) {
-                phase.execute(assembly, archiver, configSource);
-            }
+                for (AssemblyArchiverPhase phase : sortedPhases()) {
+                    phase.execute(assembly, archiver, configSource);
+                }
 
-            archiver.createArchive();
+                // the cached archives added by the phases are only read now
+                UnpackCache.refresh(configSource);
+                archiver.createArchive();
+            } finally {
+                for (ContainerDescriptorHandler handler : containerHandlers) {
+                    handler.archiveCreated();
+                }
+            }
         } catch (final ArchiverException | IOException e) {
             throw new ArchiveCreationException(
                     "Error creating assembly archive " + assembly.getId() + ": " + e.getMessage(), e);
@@ -267,6 +283,20 @@ public class DefaultAssemblyArchiver implements AssemblyArchiver {
 
         Archiver archiver = archiverManager.getArchiver(format);
 
+        if (archiver instanceof DirectoryArchiver) {
+            final LinkMode linkMode = LinkMode.fromValue(configSource.getDirLinkMode());
+            final SyncMode syncMode = SyncMode.fromValue(configSource.getDirSync());
+            if (syncMode != SyncMode.NONE) {
+                archiver = new SyncingDirectoryArchiver(
+                        linkMode, syncMode, new File(configSource.getWorkingDirectory(), "dir-sync"), archiverManager);
+            } else if (linkMode != LinkMode.COPY) {
+                archiver = new LinkingDirectoryArchiver(linkMode, archiverManager);
+            }
+            if (archiver instanceof LinkingDirectoryArchiver) {
+                ((LinkingDirectoryArchiver) archiver).setCacheDirectory(configSource.getUnpackCacheDirectory());
+            }
+        }
+
         if (archiver instanceof TarArchiver) {
             ((TarArchiver) archiver).setLongfile(TarLongFileMode.valueOf(configSource.getTarLongFileMode()));
         }
@@ -301,19 +331,33 @@ public class DefaultAssemblyArchiver implements AssemblyArchiver {
             prefix = finalName;
         }
 
-        archiver = new AssemblyProxyArchiver(
+        final boolean updateOnly = configSource.isUpdateOnly();
+        final AssemblyProxyArchiver proxy = new AssemblyProxyArchiver(
                 prefix,
                 archiver,
                 containerHandlers,
                 extraSelectors,
                 extraFinalizers,
-                configSource.getWorkingDirectory());
+                configSource.getWorkingDirectory(),
+                DuplicateEntryPolicy.fromValue(configSource.getDuplicateEntryPolicy()),
+                configSource.isCombineHandlerIterations(),
+                configSource.getReadAheadThreads());
+        if (updateOnly && "zip".equals(format)) {
+            proxy.setUpdateIndexDirectory(new File(configSource.getWorkingDirectory(), "incremental"));
+        }
+        final int scanThreads = configSource.getScanThreads();
+        proxy.setScanThreads(scanThreads);
+        proxy.setUseGitIndex(configSource.isUseGitIndex());
+        if (scanThreads > 0 || configSource.isUseGitIndex()) {
+            proxy.setDirectoryListings(DirectoryListings.forSession(configSource.getMavenSession()));
+        }
+        archiver = proxy;
         if (configSource.isDryRun()) {
             archiver = new DryRunArchiver(archiver, LOGGER);
         }
 
         archiver.setIgnorePermissions(configSource.isIgnorePermissions());
-        archiver.setForced(!configSource.isUpdateOnly());
+        archiver.setForced(!updateOnly);
 
         // configure for Reproducible Builds based on outputTimestamp value
         if (outputTimestamp != null) {
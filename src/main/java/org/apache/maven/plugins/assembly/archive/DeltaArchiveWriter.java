@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the delta of a zip based archive against a baseline, a previous version of it.
+ * <p>
+ * The delta archive holds the entries added or changed since the baseline, copied as they are from the archive, and
+ * the names of the entries removed since the baseline in {@value #DELETED_ENTRIES}, one per line. Entries are compared
+ * by the CRC and size recorded in the central directories, so neither archive is extracted.
+ */
+public final class DeltaArchiveWriter {
+    /**
+     * The name of the entry listing the entries removed since the baseline.
+     */
+    static final String DELETED_ENTRIES = "META-INF/DELETED-ENTRIES.txt";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeltaArchiveWriter.class);
+
+    private static final byte[][] ZIP_MAGICS = {{'P', 'K', 3, 4}, {'P', 'K', 5, 6}};
+
+    private DeltaArchiveWriter() {}
+
+    /**
+     * A baseline which is an archive is the previous version of the archive only if it has the same name, or if the
+     * archive is the only one created.
+     *
+     * @param baseline    The previous version of the archive, or a directory holding it under the same name
+     * @param archive     The archive
+     * @param onlyArchive Whether the archive is the only one created
+     * @return the delta archive, named after the archive with a <code>-delta</code> suffix, or null if there is no
+     *         baseline or the archive is not zip based
+     * @throws IOException if the archives cannot be read or the delta cannot be written
+     */
+    public static File write(File baseline, File archive, boolean onlyArchive) throws IOException {
+        final File baselineArchive;
+        if (baseline.isDirectory()) {
+            baselineArchive = new File(baseline, archive.getName());
+        } else if (onlyArchive || baseline.getName().equals(archive.getName())) {
+            baselineArchive = baseline;
+        } else {
+            LOGGER.warn("The baseline " + baseline + " is not named after " + archive.getName()
+                    + ", one of several archives, skipping its delta");
+            return null;
+        }
+        if (!archive.isFile() || !isZip(archive)) {
+            LOGGER.warn("Delta archives are only supported for zip based formats, skipping " + archive.getName());
+            return null;
+        }
+        if (!baselineArchive.isFile()) {
+            LOGGER.warn("No baseline " + baselineArchive + " to create the delta of " + archive.getName() + " against");
+            return null;
+        }
+
+        final File delta = new File(archive.getParentFile(), deltaName(archive.getName()));
+        int changed = 0;
+        final List<String> deleted = new ArrayList<>();
+        try (ZipFile previous = ZipFile.builder().setFile(baselineArchive).get();
+                ZipFile current = ZipFile.builder().setFile(archive).get();
+                ZipArchiveOutputStream out = new ZipArchiveOutputStream(delta)) {
+            final Set<String> names = new HashSet<>();
+            for (final Enumeration<ZipArchiveEntry> entries = current.getEntriesInPhysicalOrder();
+                    entries.hasMoreElements(); ) {
+                final ZipArchiveEntry entry = entries.nextElement();
+                names.add(entry.getName());
+                final ZipArchiveEntry old = previous.getEntry(entry.getName());
+                if (old == null
+                        || old.isDirectory() != entry.isDirectory()
+                        || old.getCrc() != entry.getCrc()
+                        || old.getSize() != entry.getSize()) {
+                    try (InputStream raw = current.getRawInputStream(entry)) {
+                        out.addRawArchiveEntry(entry, raw);
+                    }
+                    changed++;
+                }
+            }
+
+            for (final Enumeration<ZipArchiveEntry> entries = previous.getEntriesInPhysicalOrder();
+                    entries.hasMoreElements(); ) {
+                final String name = entries.nextElement().getName();
+                if (!names.contains(name)) {
+                    deleted.add(name);
+                }
+            }
+            out.putArchiveEntry(new ZipArchiveEntry(DELETED_ENTRIES));
+            for (final String name : deleted) {
+                out.write((name + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            out.closeArchiveEntry();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(delta.toPath());
+            throw e;
+        }
+
+        LOGGER.info("Building delta of " + archive.getName() + " against " + baselineArchive + ": " + changed
+                + " added or changed, " + deleted.size() + " removed");
+        return delta;
+    }
+
+    /**
+     * @return the name of the delta of an archive, with a <code>-delta</code> suffix before its extension
+     */
+    public static String deltaName(String name) {
+        final int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) + "-delta" + name.substring(dot) : name + "-delta";
+    }
+
+    private static boolean isZip(File file) throws IOException {
+        final byte[] header = new byte[ZIP_MAGICS[0].length];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            if (in.read(header) != header.length) {
+                return false;
+            }
+        }
+        for (final byte[] magic : ZIP_MAGICS) {
+            if (Arrays.equals(magic, header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -30,8 +30,10 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.maven.plugins.assembly.filter.ContainerDescriptorHandler;
+import org.codehaus.plexus.archiver.AbstractArchiver;
 import org.codehaus.plexus.archiver.ArchiveEntry;
 import org.codehaus.plexus.archiver.ArchiveFinalizer;
 import org.codehaus.plexus.archiver.ArchivedFileSet;
@@ -42,8 +44,10 @@ import org.codehaus.plexus.archiver.FinalizerEnabled;
 import org.codehaus.plexus.archiver.ResourceIterator;
 import org.codehaus.plexus.archiver.util.DefaultArchivedFileSet;
 import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
 import org.codehaus.plexus.components.io.fileselectors.FileInfo;
 import org.codehaus.plexus.components.io.fileselectors.FileSelector;
+import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
 import org.codehaus.plexus.components.io.resources.PlexusIoResource;
 import org.codehaus.plexus.components.io.resources.PlexusIoResourceCollection;
 import org.slf4j.Logger;
@@ -55,6 +59,11 @@ import org.slf4j.LoggerFactory;
  * <li>dry-running (where the delegate archiver is never actually called)</li>
  * <li>prefixing (where all paths have a set global prefix prepended before addition)</li>
  * <li>duplication checks on archive additions (for archive-file path + prefix)</li>
+ * <li>early resolution of duplicate entries of file sets, see {@link DuplicateEntryPolicy}</li>
+ * <li>aggregation by all container descriptor handlers in a single iteration of the resources</li>
+ * <li>reading and transforming the entries of file sets ahead of the delegate</li>
+ * <li>updating zip archives with their changed entries only</li>
+ * <li>scanning the directories of file sets in parallel, see {@link ParallelDirectoryScanner}</li>
  * </ul>
  *
  * @author jdcasey
@@ -73,6 +82,41 @@ public class AssemblyProxyArchiver implements Archiver {
 
     private FileSelector[] selectors;
 
+    /**
+     * Claims of the entries of file sets, null if duplicates are left to the delegate.
+     */
+    private final DuplicateEntryIndex duplicateEntries;
+
+    /**
+     * Threads reading the entries of file sets ahead, null if disabled.
+     */
+    private final ReadAheadTransformer.Pool readAhead;
+
+    /**
+     * Threads scanning the directories of file sets, null if the delegate scans them.
+     */
+    private ForkJoinPool scanPool;
+
+    /**
+     * The listings of the directories scanned by the scan pool.
+     */
+    private DirectoryListings directoryListings = new DirectoryListings();
+
+    /**
+     * Whether the directories of file sets holding files tracked by git are listed from the git index.
+     */
+    private boolean useGitIndex;
+
+    /**
+     * The finalizers added to the delegate.
+     */
+    private final List<ArchiveFinalizer> finalizers = new ArrayList<>();
+
+    /**
+     * Updater of the archive with its changed entries only, null if the archive is created by the delegate.
+     */
+    private IncrementalZipUpdater updater;
+
     private boolean forced;
 
     /**
@@ -87,8 +131,41 @@ public class AssemblyProxyArchiver implements Archiver {
             final List<FileSelector> extraSelectors,
             final List<ArchiveFinalizer> extraFinalizers,
             final File assemblyWorkDir) {
+        this(
+                rootPrefix,
+                delegate,
+                containerDescriptorHandlers,
+                extraSelectors,
+                extraFinalizers,
+                assemblyWorkDir,
+                DuplicateEntryPolicy.NONE,
+                false,
+                0);
+    }
+
+    /**
+     * @param combineHandlerIterations whether the container descriptor handlers share a single iteration of the
+     *            resources, see {@link SinglePassFinalizer}
+     * @param readAheadThreads the number of threads reading and transforming the entries of file sets ahead of the
+     *            archiver, 0 to disable it, see {@link ReadAheadTransformer}
+     * @since 3.7.2
+     */
+    public AssemblyProxyArchiver(
+            final String rootPrefix,
+            final Archiver delegate,
+            final List<ContainerDescriptorHandler> containerDescriptorHandlers,
+            final List<FileSelector> extraSelectors,
+            final List<ArchiveFinalizer> extraFinalizers,
+            final File assemblyWorkDir,
+            final DuplicateEntryPolicy duplicateEntryPolicy,
+            final boolean combineHandlerIterations,
+            final int readAheadThreads) {
         this.rootPrefix = rootPrefix;
         this.delegate = delegate;
+        this.duplicateEntries = duplicateEntryPolicy != DuplicateEntryPolicy.NONE
+                ? new DuplicateEntryIndex(duplicateEntryPolicy)
+                : null;
+        this.readAhead = readAheadThreads > 0 ? new ReadAheadTransformer.Pool(readAheadThreads) : null;
 
         assemblyWorkPath = assemblyWorkDir.getAbsolutePath().replace('\\', '/');
 
@@ -104,10 +181,14 @@ public class AssemblyProxyArchiver implements Archiver {
             for (final ContainerDescriptorHandler handler : containerDescriptorHandlers) {
                 selectors.add(handler);
 
-                if (finalizer != null) {
-                    finalizer.addArchiveFinalizer(handler);
+                if (finalizer != null && !combineHandlerIterations) {
+                    finalizers.add(handler);
                 }
             }
+
+            if (finalizer != null && combineHandlerIterations && !containerDescriptorHandlers.isEmpty()) {
+                finalizers.add(new SinglePassFinalizer(containerDescriptorHandlers));
+            }
         }
 
         if (extraSelectors != null) {
@@ -115,8 +196,12 @@ public class AssemblyProxyArchiver implements Archiver {
         }
 
         if ((extraFinalizers != null) && finalizer != null) {
-            for (ArchiveFinalizer extraFinalizer : extraFinalizers) {
-                finalizer.addArchiveFinalizer(extraFinalizer);
+            finalizers.addAll(extraFinalizers);
+        }
+
+        if (finalizer != null) {
+            for (ArchiveFinalizer archiveFinalizer : finalizers) {
+                finalizer.addArchiveFinalizer(archiveFinalizer);
             }
         }
 
@@ -139,7 +224,7 @@ public class AssemblyProxyArchiver implements Archiver {
             fs.setIncludes(includes);
             fs.setExcludes(excludes);
             fs.setPrefix(rootPrefix + prefix);
-            fs.setFileSelectors(selectors);
+            fs.setFileSelectors(selectorsFor(archiveFile, fs.getPrefix()));
 
             debug("Adding archived file-set in: " + archiveFile + " to archive location: " + fs.getPrefix());
 
@@ -149,6 +234,94 @@ public class AssemblyProxyArchiver implements Archiver {
         }
     }
 
+    /**
+     * Updates the archive with its changed entries only, instead of creating it with the delegate, if the delegate is a
+     * zip archiver. The state of the entries is kept in an index, see {@link IncrementalZipUpdater}.
+     *
+     * @param directory the directory of the index of the archive
+     * @since 3.7.2
+     */
+    public void setUpdateIndexDirectory(final File directory) {
+        this.updater = directory != null ? new IncrementalZipUpdater(directory) : null;
+    }
+
+    /**
+     * Scans the directories of file sets with a {@link ParallelDirectoryScanner}, instead of the scanner of the
+     * delegate, if the delegate is one of the archivers of plexus-archiver.
+     *
+     * @param threads the number of threads scanning a directory, 0 to leave the scans to the delegate
+     * @since 3.7.2
+     */
+    public void setScanThreads(final int threads) {
+        if (scanPool != null) {
+            scanPool.shutdown();
+        }
+        this.scanPool = threads > 0 ? new ForkJoinPool(threads) : null;
+    }
+
+    /**
+     * Shares the listings of the directories scanned with {@link #setScanThreads(int)} with other archives, like the
+     * ones of the same build, instead of the file sets of this archive only.
+     *
+     * @param directoryListings the listings of the directories
+     * @since 3.7.2
+     */
+    public void setDirectoryListings(final DirectoryListings directoryListings) {
+        this.directoryListings = directoryListings;
+    }
+
+    /**
+     * Adds the files of file sets tracked by git only, as listed by the index of their git work tree, instead of all
+     * the files of their directories. The directories of file sets which hold no tracked files are scanned as before.
+     *
+     * @param useGitIndex whether the files of file sets are listed from the git index
+     * @since 3.7.2
+     */
+    public void setUseGitIndex(final boolean useGitIndex) {
+        this.useGitIndex = useGitIndex;
+    }
+
+    /**
+     * @return the selectors for a file set, including the ones resolving duplicate entries
+     */
+    private FileSelector[] selectorsFor(final File source, final String prefix) {
+        if (duplicateEntries == null) {
+            return selectors;
+        }
+        return duplicateEntries.selectorsFor(duplicateEntries.addSource(String.valueOf(source)), prefix, selectors);
+    }
+
+    private PrefixedFileSet prefixed(final FileSet fileSet) {
+        final boolean transformed = fileSet.getStreamTransformer() != null;
+        if (duplicateEntries == null && !(transformed && (readAhead != null || updater != null))) {
+            return new PrefixedFileSet(fileSet, rootPrefix, selectors);
+        }
+        final String prefix = new PrefixedFileSet(fileSet, rootPrefix, null).getPrefix();
+        FileSelector[] fileSetSelectors =
+                duplicateEntries != null ? selectorsFor(fileSet.getDirectory(), prefix) : selectors;
+        if (transformed && updater != null) {
+            // the content of transformed files may change while the files do not
+            final List<FileSelector> all = new ArrayList<>();
+            if (fileSetSelectors != null) {
+                all.addAll(Arrays.asList(fileSetSelectors));
+            }
+            all.add(updater::markTransformed);
+            fileSetSelectors = all.toArray(new FileSelector[0]);
+        }
+        final InputStreamTransformer transformer = readAhead != null && fileSet.getStreamTransformer() != null
+                ? new ReadAheadTransformer(fileSet.getStreamTransformer(), readAhead)
+                : null;
+        return new PrefixedFileSet(fileSet, rootPrefix, fileSetSelectors, transformer);
+    }
+
+    private PrefixedArchivedFileSet prefixed(final ArchivedFileSet fileSet) {
+        if (duplicateEntries == null) {
+            return new PrefixedArchivedFileSet(fileSet, rootPrefix, selectors);
+        }
+        final String prefix = new PrefixedArchivedFileSet(fileSet, rootPrefix, null).getPrefix();
+        return new PrefixedArchivedFileSet(fileSet, rootPrefix, selectorsFor(fileSet.getArchive(), prefix));
+    }
+
     private void debug(final String message) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(message);
@@ -166,7 +339,7 @@ public class AssemblyProxyArchiver implements Archiver {
             final DefaultArchivedFileSet fs = new DefaultArchivedFileSet(archiveFile);
 
             fs.setPrefix(rootPrefix + prefix);
-            fs.setFileSelectors(selectors);
+            fs.setFileSelectors(selectorsFor(archiveFile, fs.getPrefix()));
 
             debug("Adding archived file-set in: " + archiveFile + " to archive location: " + fs.getPrefix());
 
@@ -189,7 +362,7 @@ public class AssemblyProxyArchiver implements Archiver {
             fs.setIncludes(includes);
             fs.setExcludes(excludes);
             fs.setPrefix(rootPrefix);
-            fs.setFileSelectors(selectors);
+            fs.setFileSelectors(selectorsFor(archiveFile, fs.getPrefix()));
 
             debug("Adding archived file-set in: " + archiveFile + " to archive location: " + fs.getPrefix());
 
@@ -210,7 +383,7 @@ public class AssemblyProxyArchiver implements Archiver {
             final DefaultArchivedFileSet fs = new DefaultArchivedFileSet(archiveFile);
 
             fs.setPrefix(rootPrefix);
-            fs.setFileSelectors(selectors);
+            fs.setFileSelectors(selectorsFor(archiveFile, fs.getPrefix()));
 
             debug("Adding archived file-set in: " + archiveFile + " to archive location: " + fs.getPrefix());
 
@@ -235,7 +408,7 @@ public class AssemblyProxyArchiver implements Archiver {
             fs.setIncludes(includes);
             fs.setExcludes(excludes);
             fs.setPrefix(rootPrefix + prefix);
-            fs.setFileSelectors(selectors);
+            fs.setFileSelectors(selectorsFor(directory, fs.getPrefix()));
 
             debug("Adding directory file-set in: " + directory + " to archive location: " + fs.getPrefix());
 
@@ -283,7 +456,7 @@ public class AssemblyProxyArchiver implements Archiver {
 
             fs.setDirectory(directory);
             fs.setPrefix(rootPrefix + prefix);
-            fs.setFileSelectors(selectors);
+            fs.setFileSelectors(selectorsFor(directory, fs.getPrefix()));
 
             debug("Adding directory file-set in: " + directory + " to archive location: " + fs.getPrefix());
 
@@ -307,7 +480,7 @@ public class AssemblyProxyArchiver implements Archiver {
             fs.setIncludes(includes);
             fs.setExcludes(excludes);
             fs.setPrefix(rootPrefix);
-            fs.setFileSelectors(selectors);
+            fs.setFileSelectors(selectorsFor(directory, fs.getPrefix()));
 
             debug("Adding directory file-set in: " + directory + " to archive location: " + fs.getPrefix());
 
@@ -329,7 +502,7 @@ public class AssemblyProxyArchiver implements Archiver {
 
             fs.setDirectory(directory);
             fs.setPrefix(rootPrefix);
-            fs.setFileSelectors(selectors);
+            fs.setFileSelectors(selectorsFor(directory, fs.getPrefix()));
 
             debug("Adding directory file-set in: " + directory + " to archive location: " + fs.getPrefix());
 
@@ -381,8 +554,24 @@ public class AssemblyProxyArchiver implements Archiver {
         inPublicApi.set(Boolean.TRUE);
         try {
             delegate.setForced(forced);
-            delegate.createArchive();
+            if (duplicateEntries != null) {
+                duplicateEntries.scan(delegate);
+            }
+            if (updater != null && delegate instanceof ZipArchiver) {
+                updater.update((ZipArchiver) delegate, finalizers);
+            } else {
+                delegate.createArchive();
+            }
+            if (duplicateEntries != null) {
+                duplicateEntries.report();
+            }
         } finally {
+            if (readAhead != null) {
+                readAhead.shutdown();
+            }
+            if (scanPool != null) {
+                scanPool.shutdown();
+            }
             inPublicApi.set(null);
         }
     }
@@ -557,7 +746,7 @@ public class AssemblyProxyArchiver implements Archiver {
     public void addArchivedFileSet(final ArchivedFileSet fileSet) {
         inPublicApi.set(Boolean.TRUE);
         try {
-            final PrefixedArchivedFileSet fs = new PrefixedArchivedFileSet(fileSet, rootPrefix, selectors);
+            final PrefixedArchivedFileSet fs = prefixed(fileSet);
 
             debug("Adding archived file-set in: " + fileSet.getArchive() + " to archive location: " + fs.getPrefix());
 
@@ -571,7 +760,7 @@ public class AssemblyProxyArchiver implements Archiver {
     public void addArchivedFileSet(ArchivedFileSet archivedFileSet, Charset charset) {
         inPublicApi.set(Boolean.TRUE);
         try {
-            final PrefixedArchivedFileSet fs = new PrefixedArchivedFileSet(archivedFileSet, rootPrefix, selectors);
+            final PrefixedArchivedFileSet fs = prefixed(archivedFileSet);
 
             debug("Adding archived file-set in: " + archivedFileSet.getArchive() + " to archive location: "
                     + fs.getPrefix());
@@ -589,7 +778,7 @@ public class AssemblyProxyArchiver implements Archiver {
     public void addFileSet(final FileSet fileSet) {
         inPublicApi.set(Boolean.TRUE);
         try {
-            final PrefixedFileSet fs = new PrefixedFileSet(fileSet, rootPrefix, selectors);
+            final PrefixedFileSet fs = prefixed(fileSet);
 
             debug("Adding file-set in: " + fileSet.getDirectory() + " to archive location: " + fs.getPrefix());
 
@@ -637,7 +826,23 @@ public class AssemblyProxyArchiver implements Archiver {
             dfs.setPrefix(fs.getPrefix());
             dfs.setStreamTransformer(fs.getStreamTransformer());
 
-            delegate.addFileSet(dfs);
+            addFileSetToDelegate(dfs);
+        } else {
+            addFileSetToDelegate(fs);
+        }
+    }
+
+    private void addFileSetToDelegate(final FileSet fs) {
+        // the collection tells the read ahead transformer the order of the files
+        final boolean readingAhead = fs.getStreamTransformer() instanceof ReadAheadTransformer;
+        if ((scanPool != null || useGitIndex || readingAhead) && delegate instanceof AbstractArchiver) {
+            final AbstractArchiver archiver = (AbstractArchiver) delegate;
+            archiver.addResources(ScannedFileResourceCollection.of(
+                    archiver,
+                    fs,
+                    scanPool != null ? scanPool : ForkJoinPool.commonPool(),
+                    directoryListings,
+                    useGitIndex));
         } else {
             delegate.addFileSet(fs);
         }
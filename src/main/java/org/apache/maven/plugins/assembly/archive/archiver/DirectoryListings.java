@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.components.io.attributes.FileAttributes;
+import org.eclipse.aether.SessionData;
+
+/**
+ * The listings of the directories scanned by {@link ParallelDirectoryScanner}, shared by the file sets, formats and
+ * assemblies of a build.
+ * <p>
+ * A listing holds the names and the types of the entries of a directory, and is valid as long as the directory keeps
+ * its last modification time, which changes when entries are added, removed or renamed. The attributes of the entries,
+ * which change with their content, are not kept: they are read again for the included entries only. Directories
+ * modified shortly before they are listed are not cached, as a later change may keep their last modification time.
+ *
+ * @since 3.7.2
+ */
+public final class DirectoryListings {
+    /**
+     * The coarsest resolution of the last modification times of the file systems.
+     */
+    private static final long MODIFICATION_TIME_RESOLUTION = 2000L;
+
+    private static final String SESSION_KEY = DirectoryListings.class.getName();
+
+    private final Map<String, Listing> listings = new ConcurrentHashMap<>();
+
+    private final Map<Path, GitIndex> gitIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * @return the listings of the build of a session, new listings if there is no session
+     */
+    public static DirectoryListings forSession(MavenSession session) {
+        if (session == null || session.getRepositorySession() == null) {
+            return new DirectoryListings();
+        }
+        final SessionData data = session.getRepositorySession().getData();
+        if (data.get(SESSION_KEY) == null) {
+            data.set(SESSION_KEY, null, new DirectoryListings());
+        }
+        final Object listings = data.get(SESSION_KEY);
+        // listings of another version of the plugin are not shared
+        return listings instanceof DirectoryListings ? (DirectoryListings) listings : new DirectoryListings();
+    }
+
+    /**
+     * An entry of a directory.
+     */
+    static final class Child {
+        final String name;
+
+        final boolean directory;
+
+        final boolean file;
+
+        final boolean symbolicLink;
+
+        /**
+         * The attributes read while listing the directory, null for a cached listing.
+         */
+        final FileAttributes attributes;
+
+        Child(String name, boolean directory, boolean file, boolean symbolicLink, FileAttributes attributes) {
+            this.name = name;
+            this.directory = directory;
+            this.file = file;
+            this.symbolicLink = symbolicLink;
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * @return the entries of a directory in the order of the file system, none if it is not a readable directory
+     */
+    List<Child> list(File directory) throws IOException {
+        final String key = directory.getAbsolutePath();
+        final FileTime lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(directory.toPath());
+        } catch (NoSuchFileException e) {
+            listings.remove(key);
+            return Collections.emptyList();
+        }
+        final Listing cached = listings.get(key);
+        if (cached != null && cached.lastModified.equals(lastModified)) {
+            return cached.children;
+        }
+
+        final long listedAt = System.currentTimeMillis();
+        final String[] names = directory.list();
+        if (names == null) {
+            listings.remove(key);
+            return Collections.emptyList();
+        }
+        final List<Child> children = new ArrayList<>(names.length);
+        final List<Child> kept = new ArrayList<>(names.length);
+        for (String name : names) {
+            final Path path = new File(directory, name).toPath();
+            final FileAttributes attributes;
+            try {
+                attributes = new FileAttributes(path, false);
+            } catch (NoSuchFileException e) {
+                // removed since the listing
+                continue;
+            }
+            boolean isDirectory = attributes.isDirectory();
+            boolean isFile = attributes.isRegularFile();
+            if (attributes.isSymbolicLink()) {
+                isDirectory = Files.isDirectory(path);
+                isFile = !isDirectory && Files.isRegularFile(path);
+            }
+            children.add(new Child(name, isDirectory, isFile, attributes.isSymbolicLink(), attributes));
+            kept.add(new Child(name, isDirectory, isFile, attributes.isSymbolicLink(), null));
+        }
+
+        if (lastModified.toMillis() < listedAt - MODIFICATION_TIME_RESOLUTION) {
+            listings.put(key, new Listing(lastModified, Collections.unmodifiableList(kept)));
+        } else {
+            listings.remove(key);
+        }
+        return children;
+    }
+
+    /**
+     * @return the index of the git work tree holding a directory, null if there is none
+     */
+    GitIndex gitIndex(File directory) throws IOException {
+        return GitIndex.find(directory, gitIndexes);
+    }
+
+    private static final class Listing {
+        private final FileTime lastModified;
+
+        private final List<Child> children;
+
+        Listing(FileTime lastModified, List<Child> children) {
+            this.lastModified = lastModified;
+            this.children = children;
+        }
+    }
+}
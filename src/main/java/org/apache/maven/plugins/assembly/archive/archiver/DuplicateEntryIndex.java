@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.ResourceIterator;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the archive paths claimed by the entries of file sets and archived file sets, resolving duplicates by a
+ * {@link DuplicateEntryPolicy} while the entries are selected, so that the entries which lose are never read nor
+ * compressed.
+ * <p>
+ * Every file set is a source with an id in the order it was added. Its entries are claimed by a selector placed after
+ * all other selectors, so that entries consumed by container descriptor handlers (e.g. <code>META-INF/services</code>
+ * files) take no part in it. As the archiver may iterate its resources more than once, a source may claim the same
+ * path again. For {@link DuplicateEntryPolicy#LAST_WINS} the names are scanned before writing, by a selector placed
+ * before all others which records the claim and excludes the entry, so that nothing else sees it during the scan.
+ * <p>
+ * Paths are indexed by fixed size {@link Records}, only the paths of skipped duplicates reported as examples are kept.
+ */
+final class DuplicateEntryIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DuplicateEntryIndex.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private static final int ROTATION = 29;
+
+    private static final long MIX_1 = 0xff51afd7ed558ccdL;
+
+    private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+
+    private static final int MIX_SHIFT = 33;
+
+    private final DuplicateEntryPolicy policy;
+
+    private final List<String> sources = new ArrayList<>();
+
+    /**
+     * Source id owning each path, and for {@link DuplicateEntryPolicy#SKIP_IF_IDENTICAL} its content digest.
+     */
+    private final Records owners;
+
+    /**
+     * Skipped duplicates by source and path, so that every one is counted once.
+     */
+    private final Records skipped = new Records(false);
+
+    /**
+     * Skipped duplicates, grouped by the pair of sources ids.
+     */
+    private final Map<Long, Conflicts> conflicts = new LinkedHashMap<>();
+
+    private int identical;
+
+    private boolean scanning;
+
+    DuplicateEntryIndex(DuplicateEntryPolicy policy) {
+        this.policy = policy;
+        this.owners = new Records(policy == DuplicateEntryPolicy.SKIP_IF_IDENTICAL);
+    }
+
+    /**
+     * @param description The file set directory or archive, reported on conflicts
+     * @return the id of the new source
+     */
+    int addSource(String description) {
+        sources.add(description);
+        return sources.size() - 1;
+    }
+
+    /**
+     * @param source    The id of the file set
+     * @param prefix    The prefix of the file set in the archive
+     * @param selectors The other selectors of the file set, may be null
+     * @return the selectors of the file set, including the ones claiming its entries
+     */
+    FileSelector[] selectorsFor(int source, String prefix, FileSelector[] selectors) {
+        final String entryPrefix = prefix != null ? prefix : "";
+        final List<FileSelector> result = new ArrayList<>();
+        if (policy == DuplicateEntryPolicy.LAST_WINS) {
+            result.add(fileInfo -> scan(source, entryPrefix, fileInfo));
+        }
+        if (selectors != null) {
+            result.addAll(Arrays.asList(selectors));
+        }
+        result.add(fileInfo -> claim(source, entryPrefix, fileInfo));
+        return result.toArray(new FileSelector[0]);
+    }
+
+    /**
+     * Scans the names of all entries of the archiver before it is written, if the policy requires it. Every entry is
+     * excluded during the scan.
+     */
+    void scan(Archiver archiver) {
+        if (policy != DuplicateEntryPolicy.LAST_WINS) {
+            return;
+        }
+        scanning = true;
+        try {
+            for (final ResourceIterator it = archiver.getResources(); it.hasNext(); ) {
+                it.next();
+            }
+        } finally {
+            scanning = false;
+        }
+    }
+
+    private boolean scan(int source, String prefix, FileInfo fileInfo) {
+        if (!scanning) {
+            return true;
+        }
+        if (!fileInfo.isDirectory()) {
+            final String path = normalize(prefix + fileInfo.getName());
+            final long key = hash(path, 0);
+            final long key2 = hash(path, 1);
+            final int slot = owners.slot(key, key2);
+            if (owners.isEmpty(slot) || owners.value(slot) < source) {
+                owners.put(slot, key, key2, source, null);
+            }
+        }
+        return false;
+    }
+
+    private boolean claim(int source, String prefix, FileInfo fileInfo) throws IOException {
+        if (fileInfo.isDirectory()) {
+            return true;
+        }
+        final String path = normalize(prefix + fileInfo.getName());
+        final long key = hash(path, 0);
+        final long key2 = hash(path, 1);
+        final int slot = owners.slot(key, key2);
+        if (owners.isEmpty(slot)) {
+            final long[] digest = policy == DuplicateEntryPolicy.SKIP_IF_IDENTICAL ? digest(fileInfo) : null;
+            owners.put(slot, key, key2, source, digest);
+            return true;
+        }
+        final int owner = owners.value(slot);
+        if (owner == source) {
+            return true;
+        }
+        switch (policy) {
+            case FAIL:
+                throw duplicate(path, owner, source);
+            case SKIP_IF_IDENTICAL:
+                if (!owners.hasDigest(slot, digest(fileInfo))) {
+                    throw duplicate(path, owner, source);
+                }
+                if (skip(key, key2, source)) {
+                    identical++;
+                }
+                return false;
+            default:
+                if (skip(key, key2, source)) {
+                    conflicts.computeIfAbsent(((long) owner << 32) | source, k -> new Conflicts(path)).count++;
+                }
+                return false;
+        }
+    }
+
+    /**
+     * @return true if the path was not skipped for the source before
+     */
+    private boolean skip(long key, long key2, int source) {
+        final long sourceKey = key ^ (source * GOLDEN_RATIO);
+        final int slot = skipped.slot(sourceKey, key2);
+        if (!skipped.isEmpty(slot)) {
+            return false;
+        }
+        skipped.put(slot, sourceKey, key2, source, null);
+        return true;
+    }
+
+    private ArchiverException duplicate(String path, int owner, int source) {
+        return new ArchiverException("Duplicate archive entry: " + path + " (from " + sources.get(source)
+                + ", already added from " + sources.get(owner) + ") with duplicateEntryPolicy "
+                + policy.getValue());
+    }
+
+    /**
+     * Logs the duplicates that were skipped, by pair of sources.
+     */
+    void report() {
+        for (Map.Entry<Long, Conflicts> entry : conflicts.entrySet()) {
+            final int kept = (int) (entry.getKey() >>> 32);
+            final int dropped = (int) (long) entry.getKey();
+            LOGGER.warn(entry.getValue().count + " entries of " + sources.get(dropped)
+                    + " were skipped as duplicates of the entries of " + sources.get(kept) + ", e.g. "
+                    + entry.getValue().example);
+        }
+        if (identical > 0) {
+            LOGGER.info(identical + " duplicate entries with identical content were skipped");
+        }
+    }
+
+    private static String normalize(String path) {
+        String result = path.replace('\\', '/');
+        while (result.startsWith("/") || result.startsWith("./")) {
+            result = result.substring(result.startsWith("/") ? 1 : 2);
+        }
+        return result;
+    }
+
+    /**
+     * One of two independent 64 bits hashes of a path, which together identify it in the records.
+     */
+    static long hash(String path, int seed) {
+        long h;
+        if (seed == 0) {
+            // FNV-1a
+            h = FNV_OFFSET_BASIS;
+            for (int i = 0; i < path.length(); i++) {
+                h = (h ^ path.charAt(i)) * FNV_PRIME;
+            }
+        } else {
+            h = GOLDEN_RATIO ^ path.length();
+            for (int i = 0; i < path.length(); i++) {
+                h = Long.rotateLeft(h ^ path.charAt(i), ROTATION) * MIX_1;
+            }
+        }
+        // fmix64 of MurmurHash3, so that the low bits used for the slots depend on all chars
+        h = (h ^ (h >>> MIX_SHIFT)) * MIX_1;
+        h = (h ^ (h >>> MIX_SHIFT)) * MIX_2;
+        return h ^ (h >>> MIX_SHIFT);
+    }
+
+    private static long[] digest(FileInfo fileInfo) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every JVM", e);
+        }
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = fileInfo.getContents()) {
+            for (int count = in.read(buffer); count != -1; count = in.read(buffer)) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        final ByteBuffer result = ByteBuffer.wrap(digest.digest());
+        return new long[] {result.getLong(), result.getLong()};
+    }
+
+    /**
+     * Open addressing hash table of fixed size records, each holding the 128 bits hash of a path, an int and
+     * optionally the first 128 bits of a content digest. Paths themselves are not kept, so that the index stays
+     * compact for archives with millions of entries.
+     */
+    static final class Records {
+        private long[] keys;
+
+        private long[] keys2;
+
+        /**
+         * The value plus one, 0 for empty slots.
+         */
+        private int[] values;
+
+        private long[] digests;
+
+        private int size;
+
+        Records(boolean withDigests) {
+            allocate(1024, withDigests);
+        }
+
+        private void allocate(int capacity, boolean withDigests) {
+            keys = new long[capacity];
+            keys2 = new long[capacity];
+            values = new int[capacity];
+            digests = withDigests ? new long[capacity * 2] : null;
+        }
+
+        /**
+         * @return the slot holding the key, or the empty slot it is to be put in
+         */
+        int slot(long key, long key2) {
+            final int mask = values.length - 1;
+            int slot = (int) key & mask;
+            while (values[slot] != 0 && (keys[slot] != key || keys2[slot] != key2)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        boolean isEmpty(int slot) {
+            return values[slot] == 0;
+        }
+
+        int value(int slot) {
+            return values[slot] - 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Puts a record in a slot returned by {@link #slot(long, long)}, which is invalid after that.
+         *
+         * @param digest The content digest, may be null
+         */
+        void put(int slot, long key, long key2, int value, long[] digest) {
+            if (values[slot] == 0) {
+                size++;
+            }
+            keys[slot] = key;
+            keys2[slot] = key2;
+            values[slot] = value + 1;
+            if (digest != null) {
+                digests[slot * 2] = digest[0];
+                digests[slot * 2 + 1] = digest[1];
+            }
+            if (size * 3 > values.length * 2) {
+                grow();
+            }
+        }
+
+        boolean hasDigest(int slot, long[] digest) {
+            return digests[slot * 2] == digest[0] && digests[slot * 2 + 1] == digest[1];
+        }
+
+        private void grow() {
+            final long[] oldKeys = keys;
+            final long[] oldKeys2 = keys2;
+            final int[] oldValues = values;
+            final long[] oldDigests = digests;
+            allocate(oldValues.length * 2, oldDigests != null);
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != 0) {
+                    final int slot = slot(oldKeys[i], oldKeys2[i]);
+                    keys[slot] = oldKeys[i];
+                    keys2[slot] = oldKeys2[i];
+                    values[slot] = oldValues[i];
+                    if (oldDigests != null) {
+                        digests[slot * 2] = oldDigests[i * 2];
+                        digests[slot * 2 + 1] = oldDigests[i * 2 + 1];
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Conflicts {
+        private final String example;
+
+        private int count;
+
+        Conflicts(String example) {
+            this.example = example;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import org.codehaus.plexus.archiver.ArchiverException;
+
+/**
+ * How {@link AssemblyProxyArchiver} resolves entries of file sets and archived file sets that are mapped to the same
+ * path in the archive, before any of them is read.
+ */
+public enum DuplicateEntryPolicy {
+    /**
+     * No index is kept, duplicates are left to the duplicate behavior of the archiver.
+     */
+    NONE("none"),
+
+    /**
+     * The entry of the file set added first is kept.
+     */
+    FIRST_WINS("first-wins"),
+
+    /**
+     * The entry of the file set added last is kept; requires a scan of the entry names before writing.
+     */
+    LAST_WINS("last-wins"),
+
+    /**
+     * Any duplicate fails the build.
+     */
+    FAIL("fail"),
+
+    /**
+     * Duplicates with the same content as the entry added first are skipped, others fail the build. Every entry is
+     * hashed, so this reads every input once more.
+     */
+    SKIP_IF_IDENTICAL("skip-if-identical");
+
+    private final String value;
+
+    DuplicateEntryPolicy(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @param value The policy as configured, null for {@link #NONE}
+     * @return the policy
+     * @throws ArchiverException if the value is not a known policy
+     */
+    public static DuplicateEntryPolicy fromValue(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return NONE;
+        }
+        for (DuplicateEntryPolicy policy : values()) {
+            if (policy.value.equals(value.trim())) {
+                return policy;
+            }
+        }
+        throw new ArchiverException("Illegal duplicateEntryPolicy specified: '" + value + "'");
+    }
+}
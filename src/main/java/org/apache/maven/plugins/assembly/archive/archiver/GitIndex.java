@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The files tracked in the index of a git work tree, as the listings of the directories holding them.
+ * <p>
+ * Untracked files, ignored or not, are not in the index, nor are the files of a sparse checkout which are not in the
+ * work tree. The index versions 2 to 4 are read, as are the indexes of repositories using SHA-256 object names.
+ * Indexes with extensions required to list their files, like the <code>link</code> extension of a split index whose
+ * entries are partly in a shared index, are not used.
+ */
+final class GitIndex {
+    /**
+     * <code>DIRC</code>.
+     */
+    private static final int SIGNATURE = 0x44495243;
+
+    private static final int MIN_VERSION = 2;
+
+    private static final int EXTENDED_VERSION = 3;
+
+    private static final int PREFIX_COMPRESSED_VERSION = 4;
+
+    /**
+     * The size of the times, device, inode, mode, ids and size of an entry.
+     */
+    private static final int STAT_SIZE = 40;
+
+    private static final int MODE_OFFSET = 24;
+
+    private static final int SHA1_SIZE = 20;
+
+    private static final int SHA256_SIZE = 32;
+
+    private static final int FLAG_EXTENDED = 0x4000;
+
+    private static final int EXTENDED_FLAG_SKIP_WORKTREE = 0x4000;
+
+    private static final int TYPE_MASK = 0xF000;
+
+    private static final int TYPE_SYMLINK = 0xA000;
+
+    private static final int TYPE_GITLINK = 0xE000;
+
+    private static final int VARINT_MASK = 0x7F;
+
+    private static final int VARINT_SHIFT = 7;
+
+    private static final int VARINT_MORE = 0x80;
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int SHORT_MASK = 0xFFFF;
+
+    private static final int PADDING = 8;
+
+    /**
+     * The shift of the first byte of an extension signature, which is an upper case letter for optional extensions.
+     */
+    private static final int SIGNATURE_FIRST_BYTE_SHIFT = 24;
+
+    private static final Pattern SHA256_FORMAT = Pattern.compile("(?i)\\s*objectformat\\s*=\\s*sha256\\s*");
+
+    private final Path workTree;
+
+    private final Path file;
+
+    private final FileTime lastModified;
+
+    private final long size;
+
+    private final Map<String, List<DirectoryListings.Child>> directories = new HashMap<>();
+
+    /**
+     * Whether the index lists all the tracked files, false if it has a required extension.
+     */
+    private boolean complete;
+
+    private GitIndex(Path workTree, Path file, FileTime lastModified, long size) {
+        this.workTree = workTree;
+        this.file = file;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    /**
+     * @return the index of the work tree holding a directory, null if it is not in a git work tree or if its index does
+     *         not list all the tracked files
+     */
+    static GitIndex find(File directory, Map<Path, GitIndex> cache) throws IOException {
+        for (Path dir = directory.toPath().toAbsolutePath().normalize(); dir != null; dir = dir.getParent()) {
+            final Path dotGit = dir.resolve(".git");
+            Path gitDir = null;
+            if (Files.isDirectory(dotGit)) {
+                gitDir = dotGit;
+            } else if (Files.isRegularFile(dotGit)) {
+                // linked work trees and submodules point to their git directory
+                final String content = new String(Files.readAllBytes(dotGit), StandardCharsets.UTF_8).trim();
+                if (content.startsWith("gitdir:")) {
+                    gitDir = dir.resolve(content.substring("gitdir:".length()).trim())
+                            .normalize();
+                }
+            }
+            if (gitDir != null) {
+                return read(dir, gitDir, cache);
+            }
+        }
+        return null;
+    }
+
+    private static GitIndex read(Path workTree, Path gitDir, Map<Path, GitIndex> cache) throws IOException {
+        final Path file = gitDir.resolve("index");
+        final FileTime lastModified;
+        final long size;
+        try {
+            lastModified = Files.getLastModifiedTime(file);
+            size = Files.size(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        final GitIndex cached = cache.get(file);
+        if (cached != null && cached.lastModified.equals(lastModified) && cached.size == size) {
+            return cached.complete ? cached : null;
+        }
+
+        final GitIndex index = new GitIndex(workTree, file, lastModified, size);
+        try {
+            index.complete = index.parse(ByteBuffer.wrap(Files.readAllBytes(file)), hashSize(gitDir));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated git index: " + file, e);
+        }
+        cache.put(file, index);
+        return index.complete ? index : null;
+    }
+
+    private static int hashSize(Path gitDir) throws IOException {
+        Path config = gitDir.resolve("config");
+        final Path commonDir = gitDir.resolve("commondir");
+        if (Files.isRegularFile(commonDir)) {
+            final String common = new String(Files.readAllBytes(commonDir), StandardCharsets.UTF_8).trim();
+            config = gitDir.resolve(common).resolve("config");
+        }
+        if (Files.isRegularFile(config)) {
+            for (String line : Files.readAllLines(config, StandardCharsets.UTF_8)) {
+                if (SHA256_FORMAT.matcher(line).matches()) {
+                    return SHA256_SIZE;
+                }
+            }
+        }
+        return SHA1_SIZE;
+    }
+
+    /**
+     * @return false if the index has an extension required to list its files
+     */
+    private boolean parse(ByteBuffer buffer, int hashSize) throws IOException {
+        if (buffer.remaining() < STAT_SIZE || buffer.getInt() != SIGNATURE) {
+            throw new IOException("Not a git index: " + file);
+        }
+        final int version = buffer.getInt();
+        if (version < MIN_VERSION || version > PREFIX_COMPRESSED_VERSION) {
+            throw new IOException("Unsupported version " + version + " of git index: " + file);
+        }
+        final int entries = buffer.getInt();
+
+        final Set<String> tracked = new HashSet<>();
+        byte[] previous = new byte[0];
+        for (int i = 0; i < entries; i++) {
+            final int start = buffer.position();
+            buffer.position(start + MODE_OFFSET);
+            final int mode = buffer.getInt();
+            buffer.position(start + STAT_SIZE + hashSize);
+            final int flags = buffer.getShort() & SHORT_MASK;
+            int extendedFlags = 0;
+            if ((flags & FLAG_EXTENDED) != 0 && version >= EXTENDED_VERSION) {
+                extendedFlags = buffer.getShort() & SHORT_MASK;
+            }
+
+            final byte[] path;
+            if (version == PREFIX_COMPRESSED_VERSION) {
+                final int removed = readVarint(buffer);
+                final byte[] suffix = readName(buffer);
+                path = new byte[previous.length - removed + suffix.length];
+                System.arraycopy(previous, 0, path, 0, previous.length - removed);
+                System.arraycopy(suffix, 0, path, previous.length - removed, suffix.length);
+            } else {
+                final int nameOffset = buffer.position() - start;
+                path = readName(buffer);
+                buffer.position(start + ((nameOffset + path.length + PADDING) & ~(PADDING - 1)));
+            }
+            previous = path;
+
+            // the stages of a conflict are the same file, files out of a sparse checkout are not in the work tree
+            final String name = new String(path, StandardCharsets.UTF_8);
+            if ((extendedFlags & EXTENDED_FLAG_SKIP_WORKTREE) == 0 && tracked.add(name)) {
+                add(name, mode & TYPE_MASK);
+            }
+        }
+
+        // the extensions are followed by the hash of the index
+        while (buffer.remaining() > hashSize) {
+            final int signature = buffer.getInt();
+            final int extensionSize = buffer.getInt();
+            final int first = signature >>> SIGNATURE_FIRST_BYTE_SHIFT;
+            if (first < 'A' || first > 'Z') {
+                // required, like the link extension of a split index or the sparse directories of a sparse index
+                return false;
+            }
+            if (extensionSize < 0 || extensionSize > buffer.remaining() - hashSize) {
+                throw new IOException("Truncated git index: " + file);
+            }
+            buffer.position(buffer.position() + extensionSize);
+        }
+        return true;
+    }
+
+    private void add(String name, int type) {
+        final int separator = name.lastIndexOf('/');
+        final String parent = separator < 0 ? "" : name.substring(0, separator);
+        final String child = name.substring(separator + 1);
+        // the files of a submodule are in its own index, its directory is listed from the work tree
+        final boolean isDirectory = type == TYPE_GITLINK;
+        final boolean isLink = type == TYPE_SYMLINK;
+        directory(parent).add(new DirectoryListings.Child(child, isDirectory, !isDirectory && !isLink, isLink, null));
+    }
+
+    private List<DirectoryListings.Child> directory(String name) {
+        List<DirectoryListings.Child> children = directories.get(name);
+        if (children == null) {
+            children = new ArrayList<>();
+            directories.put(name, children);
+            if (!name.isEmpty()) {
+                final int separator = name.lastIndexOf('/');
+                final String parent = separator < 0 ? "" : name.substring(0, separator);
+                directory(parent)
+                        .add(new DirectoryListings.Child(name.substring(separator + 1), true, false, false, null));
+            }
+        }
+        return children;
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int b = buffer.get() & BYTE_MASK;
+        int value = b & VARINT_MASK;
+        while ((b & VARINT_MORE) != 0) {
+            b = buffer.get() & BYTE_MASK;
+            value = ((value + 1) << VARINT_SHIFT) | (b & VARINT_MASK);
+        }
+        return value;
+    }
+
+    private static byte[] readName(ByteBuffer buffer) {
+        final int start = buffer.position();
+        int end = start;
+        while (buffer.get(end) != 0) {
+            end++;
+        }
+        final byte[] name = new byte[end - start];
+        buffer.get(name);
+        buffer.get();
+        return name;
+    }
+
+    /**
+     * @return the path of a directory relative to the work tree, with slashes, null if it is not in the work tree
+     */
+    String relativePath(File directory) {
+        final Path path = directory.toPath().toAbsolutePath().normalize();
+        if (!path.startsWith(workTree)) {
+            return null;
+        }
+        return workTree.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @param relativePath the path of the directory relative to the work tree, with slashes
+     * @param directory the directory
+     * @return the tracked entries of a directory, null if it holds no tracked files
+     */
+    List<DirectoryListings.Child> list(String relativePath, File directory) {
+        final List<DirectoryListings.Child> children = directories.get(relativePath);
+        if (children == null) {
+            return null;
+        }
+        final List<DirectoryListings.Child> result = new ArrayList<>(children.size());
+        for (DirectoryListings.Child child : children) {
+            if (child.symbolicLink) {
+                // the type of the target of a link is the one of the work tree
+                final Path target = new File(directory, child.name).toPath();
+                final boolean isDirectory = Files.isDirectory(target);
+                result.add(new DirectoryListings.Child(
+                        child.name, isDirectory, !isDirectory && Files.isRegularFile(target), true, null));
+            } else {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+}
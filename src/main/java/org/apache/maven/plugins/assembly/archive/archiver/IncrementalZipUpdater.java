@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipEncodingHelper;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.ArchiveFinalizer;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.ResourceIterator;
+import org.codehaus.plexus.archiver.zip.AbstractZipArchiver;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.functions.FileSupplier;
+import org.codehaus.plexus.components.io.functions.SymlinkDestinationSupplier;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Updates an existing zip archive with the entries of a zip archiver, writing only the entries which changed since
+ * the previous update.
+ * <p>
+ * The state of every entry written is kept in an index: its source file with its size and last modification time,
+ * and the size and CRC of its content. An entry is unchanged if its source file has the same size and last
+ * modification time, or else if its content has the same size and CRC. Unchanged entries are copied from the previous
+ * archive as they are, without being decompressed nor compressed again, only changed entries are compressed, and
+ * entries which are no longer part of the archive are dropped. Files of transformed file sets are always compared by
+ * their content, as their transformation may change while they do not. Symbolic links are written as the zip archiver
+ * writes them, and the duplicate entries the archiver keeps with the <code>add</code> duplicate behavior are always
+ * written again, as the index only holds the first entry of a path.
+ * <p>
+ * The archive is written next to the previous one, and replaces it only if any entry changed. Without an index, or
+ * with an index which does not match the archive, all entries are written.
+ */
+final class IncrementalZipUpdater {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalZipUpdater.class);
+
+    private static final int INDEX_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * Added to the last modification time of entries, as the DOS time of zip entries is rounded down to 2 seconds,
+     * like plexus-archiver does.
+     */
+    private static final long DOS_TIME_ROUNDING = 1999;
+
+    private static final int PERMISSIONS_MASK = 07777;
+
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+
+    private final File indexDirectory;
+
+    /**
+     * Files of transformed file sets.
+     */
+    private final Set<File> transformed = Collections.synchronizedSet(new HashSet<>());
+
+    /**
+     * @param indexDirectory The directory of the index of the archive, which is named after the archive
+     */
+    IncrementalZipUpdater(File indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
+
+    /**
+     * Selector recording the files of a transformed file set, which never excludes a file.
+     */
+    boolean markTransformed(FileInfo fileInfo) {
+        if (fileInfo instanceof FileSupplier) {
+            transformed.add(((FileSupplier) fileInfo).getFile());
+        }
+        return true;
+    }
+
+    /**
+     * Runs the finalizers of the archiver and updates its destination file with its entries.
+     *
+     * @param archiver   The archiver holding the entries
+     * @param finalizers The finalizers added to the archiver, which it would run when creating the archive
+     */
+    void update(AbstractZipArchiver archiver, List<ArchiveFinalizer> finalizers) throws IOException {
+        final File destFile = archiver.getDestFile();
+        if (destFile == null) {
+            throw new ArchiverException("You must set the destination zip file.");
+        }
+        for (ArchiveFinalizer finalizer : finalizers) {
+            finalizer.finalizeArchiveCreation(archiver);
+        }
+
+        final File index = new File(indexDirectory, destFile.getName() + ".index");
+        final Map<String, State> previous = destFile.isFile() ? readIndex(index, destFile) : Collections.emptyMap();
+        final Map<String, State> states = new HashMap<>();
+        final Path temp =
+                Files.createTempFile(destFile.getAbsoluteFile().getParentFile().toPath(), destFile.getName(), ".tmp");
+        final Update update = new Update(archiver, previous, states);
+        try {
+            try (ZipFile old = previous.isEmpty()
+                            ? null
+                            : ZipFile.builder().setFile(destFile).get();
+                    ZipArchiveOutputStream out = new ZipArchiveOutputStream(temp)) {
+                out.setEncoding(archiver.getEncoding());
+                if (archiver.getComment() != null) {
+                    out.setComment(archiver.getComment());
+                }
+                update.write(old, out);
+            }
+
+            final int removed = (int) previous.keySet().stream()
+                    .filter(name -> !states.containsKey(name))
+                    .count();
+            if (update.changed == 0 && removed == 0 && update.sameOrder) {
+                LOGGER.info("Archive " + destFile + " is up to date");
+                Files.delete(temp);
+                return;
+            }
+            LOGGER.info("Updated " + update.changed + " of " + states.size() + " entries in " + destFile
+                    + (removed > 0 ? ", removed " + removed : ""));
+            move(temp, destFile.toPath());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        writeIndex(index, destFile, states);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return the states of the entries, empty if the index is missing or does not match the archive
+     */
+    private static Map<String, State> readIndex(File index, File destFile) throws IOException {
+        if (!index.isFile()) {
+            return Collections.emptyMap();
+        }
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(index.toPath()), BUFFER_SIZE))) {
+            if (in.readInt() != INDEX_VERSION
+                    || in.readLong() != destFile.length()
+                    || in.readLong() != destFile.lastModified()) {
+                LOGGER.debug("Index " + index + " does not match " + destFile + ", writing all entries");
+                return Collections.emptyMap();
+            }
+            final int count = in.readInt();
+            final Map<String, State> states = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                final String name = in.readUTF();
+                states.put(name, new State(in.readUTF(), in.readLong(), in.readLong(), in.readLong(), in.readLong()));
+            }
+            return states;
+        } catch (IOException e) {
+            LOGGER.debug("Index " + index + " cannot be read, writing all entries", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private static void writeIndex(File index, File destFile, Map<String, State> states) throws IOException {
+        Files.createDirectories(index.getAbsoluteFile().getParentFile().toPath());
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index.toPath()), BUFFER_SIZE))) {
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(destFile.length());
+            out.writeLong(destFile.lastModified());
+            out.writeInt(states.size());
+            for (Map.Entry<String, State> entry : states.entrySet()) {
+                final State state = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeUTF(state.source);
+                out.writeLong(state.sourceSize);
+                out.writeLong(state.sourceLastModified);
+                out.writeLong(state.size);
+                out.writeLong(state.crc);
+            }
+        }
+    }
+
+    /**
+     * State of an entry in the index.
+     */
+    private static final class State {
+        /**
+         * The source file, empty if the entry has none or it is transformed.
+         */
+        private final String source;
+
+        private final long sourceSize;
+
+        private final long sourceLastModified;
+
+        private final long size;
+
+        private final long crc;
+
+        State(String source, long sourceSize, long sourceLastModified, long size, long crc) {
+            this.source = source;
+            this.sourceSize = sourceSize;
+            this.sourceLastModified = sourceLastModified;
+            this.size = size;
+            this.crc = crc;
+        }
+    }
+
+    /**
+     * A single update of the archive.
+     */
+    private final class Update {
+        private final AbstractZipArchiver archiver;
+
+        private final Map<String, State> previous;
+
+        private final Map<String, State> states;
+
+        private final Set<String> directories = new HashSet<>();
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private int changed;
+
+        /**
+         * Whether the entries are written in the order of the previous archive so far.
+         */
+        private boolean sameOrder = true;
+
+        private Enumeration<ZipArchiveEntry> oldEntries;
+
+        Update(AbstractZipArchiver archiver, Map<String, State> previous, Map<String, State> states) {
+            this.archiver = archiver;
+            this.previous = previous;
+            this.states = states;
+        }
+
+        void write(ZipFile old, ZipArchiveOutputStream out) throws IOException {
+            oldEntries = old != null ? old.getEntriesInPhysicalOrder() : Collections.emptyEnumeration();
+            for (final ResourceIterator it = archiver.getResources(); it.hasNext(); ) {
+                final ArchiveEntry entry = it.next();
+                final String name = entry.getName().replace('\\', '/');
+                if (entry.getType() == ArchiveEntry.DIRECTORY) {
+                    if (!archiver.isFilesonly()) {
+                        writeDirectory(old, out, name.endsWith("/") ? name : name + "/", entry.getMode(), entry);
+                    }
+                } else if (entry.getType() == ArchiveEntry.SYMLINK
+                        && entry.getResource() instanceof SymlinkDestinationSupplier) {
+                    final String link = name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+                    if (!archiver.isFilesonly()) {
+                        writeParentDirectories(old, out, link, entry);
+                    }
+                    writeSymlink(out, link, entry);
+                } else if (entry.getType() != ArchiveEntry.DIRECTORY) {
+                    // the iterator of the archiver applies its duplicate behavior, keeping duplicates only to add them
+                    if (!archiver.isFilesonly()) {
+                        writeParentDirectories(old, out, name, entry);
+                    }
+                    writeFile(old, out, name, entry);
+                }
+            }
+        }
+
+        private void writeParentDirectories(ZipFile old, ZipArchiveOutputStream out, String name, ArchiveEntry entry)
+                throws IOException {
+            final int slash = name.lastIndexOf('/', name.length() - 2);
+            if (slash > 0) {
+                final String parent = name.substring(0, slash + 1);
+                if (!directories.contains(parent)) {
+                    writeParentDirectories(old, out, parent, entry);
+                    writeDirectory(old, out, parent, entry.getDefaultDirMode(), null);
+                }
+            }
+        }
+
+        private void writeDirectory(ZipFile old, ZipArchiveOutputStream out, String name, int mode, ArchiveEntry entry)
+                throws IOException {
+            if (!directories.add(name)) {
+                return;
+            }
+            final ZipArchiveEntry ze = new ZipArchiveEntry(name);
+            ze.setTime(time(entry != null ? entry.getResource().getLastModified() : System.currentTimeMillis()));
+            ze.setSize(0);
+            ze.setMethod(ZipArchiveEntry.STORED);
+            ze.setCrc(new CRC32().getValue());
+            ze.setUnixMode(UnixStat.DIR_FLAG | (mode & PERMISSIONS_MASK));
+            out.putArchiveEntry(ze);
+            out.closeArchiveEntry();
+            checkOrder(name);
+        }
+
+        private void writeFile(ZipFile old, ZipArchiveOutputStream out, String name, ArchiveEntry entry)
+                throws IOException {
+            final PlexusIoResource resource = entry.getResource();
+            final File file =
+                    resource instanceof FileSupplier && !transformed.contains(((FileSupplier) resource).getFile())
+                            ? ((FileSupplier) resource).getFile()
+                            : null;
+            final String source = file != null ? file.getPath() : "";
+            final long sourceSize = file != null ? file.length() : -1;
+            final long sourceLastModified = file != null ? file.lastModified() : -1;
+            final long time = time(resource.getLastModified());
+            final int mode = UnixStat.FILE_FLAG | (entry.getMode() & PERMISSIONS_MASK);
+
+            final boolean duplicate = states.containsKey(name);
+            final State state = duplicate ? null : previous.get(name);
+            final ZipArchiveEntry oldEntry = state != null && old != null ? old.getEntry(name) : null;
+            if (oldEntry != null && oldEntry.getCrc() == state.crc && oldEntry.getSize() == state.size) {
+                boolean unchanged = file != null
+                        && source.equals(state.source)
+                        && sourceSize == state.sourceSize
+                        && sourceLastModified == state.sourceLastModified;
+                if (!unchanged) {
+                    final CRC32 crc = new CRC32();
+                    long size = 0;
+                    try (InputStream in = entry.getInputStream()) {
+                        for (int count = in.read(buffer); count != -1; count = in.read(buffer)) {
+                            crc.update(buffer, 0, count);
+                            size += count;
+                        }
+                    }
+                    unchanged = crc.getValue() == state.crc && size == state.size;
+                }
+                if (unchanged) {
+                    final ZipArchiveEntry copy = new ZipArchiveEntry(oldEntry);
+                    copy.setTime(time);
+                    copy.setUnixMode(mode);
+                    try (InputStream raw = old.getRawInputStream(oldEntry)) {
+                        out.addRawArchiveEntry(copy, raw);
+                    }
+                    states.put(name, new State(source, sourceSize, sourceLastModified, state.size, state.crc));
+                    checkOrder(name);
+                    return;
+                }
+            }
+
+            final ZipArchiveEntry ze = new ZipArchiveEntry(name);
+            ze.setTime(time);
+            ze.setUnixMode(mode);
+            try (InputStream in = new BufferedInputStream(entry.getInputStream(), BUFFER_SIZE)) {
+                ze.setMethod(isCompressed(in) ? ZipArchiveEntry.DEFLATED : ZipArchiveEntry.STORED);
+                out.putArchiveEntry(ze);
+                for (int count = in.read(buffer); count != -1; count = in.read(buffer)) {
+                    out.write(buffer, 0, count);
+                }
+                out.closeArchiveEntry();
+            }
+            if (!duplicate) {
+                states.put(name, new State(source, sourceSize, sourceLastModified, ze.getSize(), ze.getCrc()));
+            }
+            changed++;
+            sameOrder = false;
+        }
+
+        /**
+         * Writes a symbolic link like the zip archiver, its destination being the content of the entry.
+         */
+        private void writeSymlink(ZipArchiveOutputStream out, String name, ArchiveEntry entry) throws IOException {
+            final PlexusIoResource resource = entry.getResource();
+            final ByteBuffer destination = ZipEncodingHelper.getZipEncoding(archiver.getEncoding())
+                    .encode(((SymlinkDestinationSupplier) resource).getSymlinkDestination());
+            final ZipArchiveEntry ze = new ZipArchiveEntry(name);
+            ze.setTime(time(resource.getLastModified()));
+            ze.setUnixMode(UnixStat.LINK_FLAG | (entry.getMode() & PERMISSIONS_MASK));
+            ze.setMethod(archiver.isCompress() ? ZipArchiveEntry.DEFLATED : ZipArchiveEntry.STORED);
+            out.putArchiveEntry(ze);
+            out.write(destination.array(), destination.arrayOffset(), destination.limit());
+            out.closeArchiveEntry();
+
+            final State state = states.containsKey(name) ? null : previous.get(name);
+            if (state != null && state.size == ze.getSize() && state.crc == ze.getCrc()) {
+                checkOrder(name);
+            } else {
+                changed++;
+                sameOrder = false;
+            }
+            states.putIfAbsent(name, new State("", -1, -1, ze.getSize(), ze.getCrc()));
+        }
+
+        /**
+         * @return whether the content is to be compressed, which is not the case for zip files if the archiver does
+         *         not recompress them
+         */
+        private boolean isCompressed(InputStream in) throws IOException {
+            if (!archiver.isCompress()) {
+                return false;
+            }
+            if (archiver.isRecompressAddedZips()) {
+                return true;
+            }
+            in.mark(ZIP_MAGIC.length);
+            final byte[] header = new byte[ZIP_MAGIC.length];
+            final int count = in.read(header);
+            in.reset();
+            return count != ZIP_MAGIC.length || !Arrays.equals(header, ZIP_MAGIC);
+        }
+
+        private long time(long lastModified) {
+            return archiver.getLastModifiedTime() != null
+                    ? archiver.getLastModifiedTime().toMillis()
+                    : lastModified + DOS_TIME_ROUNDING;
+        }
+
+        /**
+         * Checks that the entry written is the next one of the previous archive.
+         */
+        private void checkOrder(String name) {
+            if (sameOrder) {
+                sameOrder = oldEntries.hasMoreElements()
+                        && oldEntries.nextElement().getName().equals(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import org.codehaus.plexus.archiver.ArchiverException;
+
+/**
+ * How {@link LinkingDirectoryArchiver} creates the files of the <code>dir</code> format whose content is an existing
+ * file as is.
+ */
+public enum LinkMode {
+    /**
+     * Files are copied by the plain directory archiver.
+     */
+    COPY("copy"),
+
+    /**
+     * Files are hard links to their source, falling back to a copy where the source is on another file system.
+     */
+    HARDLINK("hardlink"),
+
+    /**
+     * Files are copied by the operating system, which clones them instead where the JDK and the file system support
+     * it, such as btrfs or xfs.
+     */
+    REFLINK("reflink"),
+
+    /**
+     * Files are symbolic links to the absolute path of their source.
+     */
+    SYMLINK("symlink");
+
+    private final String value;
+
+    LinkMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @param value The mode as configured, null for {@link #COPY}
+     * @return the mode
+     * @throws ArchiverException if the value is not a known mode
+     */
+    public static LinkMode fromValue(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return COPY;
+        }
+        for (LinkMode mode : values()) {
+            if (mode.value.equals(value.trim())) {
+                return mode;
+            }
+        }
+        throw new ArchiverException("Illegal dirLinkMode specified: '" + value + "'");
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.ArchivedFileSet;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.FileSet;
+import org.codehaus.plexus.archiver.ResourceIterator;
+import org.codehaus.plexus.archiver.dir.DirectoryArchiver;
+import org.codehaus.plexus.archiver.manager.ArchiverManager;
+import org.codehaus.plexus.archiver.manager.NoSuchArchiverException;
+import org.codehaus.plexus.archiver.util.ArchiveEntryUtils;
+import org.codehaus.plexus.archiver.util.ResourceUtils;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
+import org.codehaus.plexus.components.io.functions.FileSupplier;
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoResourceCollection;
+import org.codehaus.plexus.components.io.resources.EncodingSupported;
+import org.codehaus.plexus.components.io.resources.PlexusIoArchivedResourceCollection;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.codehaus.plexus.components.io.resources.PlexusIoResourceCollection;
+import org.codehaus.plexus.components.io.resources.proxy.PlexusIoProxyResourceCollection;
+
+/**
+ * Directory archiver linking the files whose content is an existing file as is, instead of copying them.
+ * <p>
+ * Only the files added with {@link #addFile(File, String, int)} and the files of file sets without a stream
+ * transformer are linked; filtered files, files of archives and other resources are copied as before. A file added both
+ * as is and transformed is always copied. Linked files keep the permissions and the last modification time of their
+ * source, as setting them would change the source too. Files which cannot be linked are copied with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, as are the files of the
+ * {@link LinkMode#COPY} mode, and the files of the {@link LinkMode#REFLINK} mode are copied with
+ * {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}, on a pool of threads; the archive is complete once the
+ * directory archiver has iterated all its resources. The files of the unpack cache are never hard or symbolic links,
+ * which would change the cache along with the directory or dangle once the cache is evicted, but copies made like the
+ * ones of the {@link LinkMode#REFLINK} mode.
+ */
+public class LinkingDirectoryArchiver extends DirectoryArchiver {
+    private final LinkMode linkMode;
+
+    private final ArchiverManager archiverManager;
+
+    private final Set<File> linkable = Collections.synchronizedSet(new HashSet<>());
+
+    private final Set<File> transformed = Collections.synchronizedSet(new HashSet<>());
+
+    private final List<Future<?>> pending = new ArrayList<>();
+
+    private final AtomicInteger linked = new AtomicInteger();
+
+    private final AtomicInteger copied = new AtomicInteger();
+
+    private ExecutorService pool;
+
+    private Path cacheDirectory;
+
+    /**
+     * @param linkMode The mode of the files whose content is an existing file as is
+     * @param archiverManager The manager reading the archived file sets, which the container only injects into the
+     *            archivers it creates
+     */
+    public LinkingDirectoryArchiver(LinkMode linkMode, ArchiverManager archiverManager) {
+        this.linkMode = linkMode;
+        this.archiverManager = archiverManager;
+    }
+
+    /**
+     * @param cacheDirectory The directory of the unpack cache, whose files are copied instead of being linked, null if
+     *            none
+     */
+    public void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory != null
+                ? cacheDirectory.toPath().toAbsolutePath().normalize()
+                : null;
+    }
+
+    @Override
+    public void addFile(File inputFile, String destFileName) throws ArchiverException {
+        linkable.add(inputFile);
+        super.addFile(inputFile, destFileName);
+    }
+
+    @Override
+    public void addFile(File inputFile, String destFileName, int permissions) throws ArchiverException {
+        linkable.add(inputFile);
+        super.addFile(inputFile, destFileName, permissions);
+    }
+
+    @Override
+    public void addFileSet(FileSet fileSet) throws ArchiverException {
+        final Set<File> files = fileSet.getStreamTransformer() != null ? transformed : linkable;
+        final FileSelector marker = fileInfo -> mark(fileInfo, files);
+        super.addFileSet(new PrefixedFileSet(fileSet, "", new FileSelector[] {marker}));
+    }
+
+    @Override
+    public void addResources(PlexusIoResourceCollection resources) throws ArchiverException {
+        if (resources instanceof ScannedFileResourceCollection) {
+            // a file set scanned by the proxy
+            final ScannedFileResourceCollection fileSet = (ScannedFileResourceCollection) resources;
+            final Set<File> files = fileSet.isTransformed() ? transformed : linkable;
+            fileSet.addFileSelector(fileInfo -> mark(fileInfo, files));
+        }
+        super.addResources(resources);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * As {@link org.codehaus.plexus.archiver.AbstractArchiver}, with the resource collection of the archive read by the
+     * given archiver manager.
+     */
+    @Override
+    protected PlexusIoResourceCollection asResourceCollection(ArchivedFileSet fileSet, Charset charset)
+            throws ArchiverException {
+        final File archiveFile = fileSet.getArchive();
+
+        final PlexusIoResourceCollection resources;
+        try {
+            resources = archiverManager.getResourceCollection(archiveFile);
+        } catch (final NoSuchArchiverException e) {
+            throw new ArchiverException(
+                    "Error adding archived file-set. PlexusIoResourceCollection not found for: " + archiveFile, e);
+        }
+
+        if (resources instanceof EncodingSupported) {
+            ((EncodingSupported) resources).setEncoding(charset);
+        }
+        if (!(resources instanceof PlexusIoArchivedResourceCollection)) {
+            throw new ArchiverException("Expected " + PlexusIoArchivedResourceCollection.class.getName() + ", got "
+                    + resources.getClass().getName());
+        }
+        ((PlexusIoArchivedResourceCollection) resources).setFile(archiveFile);
+        if (resources instanceof AbstractPlexusIoResourceCollection) {
+            ((AbstractPlexusIoResourceCollection) resources).setStreamTransformer(fileSet.getStreamTransformer());
+        }
+
+        final PlexusIoProxyResourceCollection proxy = new PlexusIoProxyResourceCollection(resources);
+        proxy.setExcludes(fileSet.getExcludes());
+        proxy.setIncludes(fileSet.getIncludes());
+        proxy.setIncludingEmptyDirectories(fileSet.isIncludingEmptyDirectories());
+        proxy.setCaseSensitive(fileSet.isCaseSensitive());
+        proxy.setPrefix(fileSet.getPrefix());
+        proxy.setUsingDefaultExcludes(fileSet.isUsingDefaultExcludes());
+        proxy.setFileSelectors(fileSet.getFileSelectors());
+        proxy.setStreamTransformer(fileSet.getStreamTransformer());
+        proxy.setFileMappers(fileSet.getFileMappers());
+        if (getOverrideDirectoryMode() > -1 || getOverrideFileMode() > -1) {
+            proxy.setOverrideAttributes(-1, null, -1, null, getOverrideFileMode(), getOverrideDirectoryMode());
+        }
+        if (getDefaultDirectoryMode() > -1 || getDefaultFileMode() > -1) {
+            proxy.setDefaultAttributes(-1, null, -1, null, getDefaultFileMode(), getDefaultDirectoryMode());
+        }
+        return proxy;
+    }
+
+    /**
+     * @return whether the content of a resource is an existing file as is, which is linked
+     */
+    boolean isLinkable(PlexusIoResource resource) {
+        if (resource.isDirectory() || !(resource instanceof FileSupplier)) {
+            return false;
+        }
+        final File source = ((FileSupplier) resource).getFile();
+        return linkable.contains(source) && !transformed.contains(source);
+    }
+
+    private static boolean mark(FileInfo fileInfo, Set<File> files) {
+        if (fileInfo instanceof FileSupplier) {
+            files.add(((FileSupplier) fileInfo).getFile());
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The iterator waits for the pending copies and links once it has no more resources, so that they are complete
+     * before the directory archiver sets the attributes of the directories.
+     */
+    @Override
+    public ResourceIterator getResources() throws ArchiverException {
+        final ResourceIterator resources = super.getResources();
+        return new ResourceIterator() {
+            @Override
+            public boolean hasNext() {
+                if (resources.hasNext()) {
+                    return true;
+                }
+                awaitPending();
+                return false;
+            }
+
+            @Override
+            public ArchiveEntry next() {
+                return resources.next();
+            }
+        };
+    }
+
+    @Override
+    protected void copyFile(ArchiveEntry entry, String vPath) throws ArchiverException, IOException {
+        final PlexusIoResource resource = entry.getResource();
+        if (!isLinkable(resource) || vPath.isEmpty()) {
+            super.copyFile(entry, vPath);
+            return;
+        }
+        final File source = ((FileSupplier) resource).getFile();
+
+        final File outFile = new File(vPath);
+        final long lastModified = resource.getLastModified();
+        if (!isForced() && ResourceUtils.isUptodate(lastModified, outFile.lastModified())) {
+            return;
+        }
+        final File parent = outFile.getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new ArchiverException("Unable to create directory or parent directory of " + outFile);
+        }
+
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                final Thread thread = new Thread(runnable, "assembly-dir-copy");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        pending.add(pool.submit(() -> {
+            link(entry, source.toPath(), outFile.toPath(), lastModified);
+            return null;
+        }));
+    }
+
+    private void link(ArchiveEntry entry, Path source, Path target, long lastModified) throws IOException {
+        Files.deleteIfExists(target);
+        final LinkMode mode = (linkMode == LinkMode.HARDLINK || linkMode == LinkMode.SYMLINK) && isCached(source)
+                ? LinkMode.REFLINK
+                : linkMode;
+        try {
+            switch (mode) {
+                case HARDLINK:
+                    Files.createLink(target, source);
+                    linked.incrementAndGet();
+                    return;
+                case SYMLINK:
+                    Files.createSymbolicLink(target, source.toAbsolutePath());
+                    linked.incrementAndGet();
+                    return;
+                case REFLINK:
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    break;
+                default:
+                    transfer(source, target);
+                    break;
+            }
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            getLogger().debug("Cannot link " + target + " to " + source + ", copying it instead: " + e);
+            Files.deleteIfExists(target);
+            transfer(source, target);
+        }
+        copied.incrementAndGet();
+
+        if (!isIgnorePermissions()) {
+            ArchiveEntryUtils.chmod(target.toFile(), entry.getMode());
+        }
+        final FileTime lastModifiedTime = getLastModifiedTime();
+        Files.setLastModifiedTime(
+                target,
+                lastModifiedTime != null
+                        ? lastModifiedTime
+                        : FileTime.fromMillis(
+                                lastModified == PlexusIoResource.UNKNOWN_MODIFICATION_DATE
+                                        ? System.currentTimeMillis()
+                                        : lastModified));
+    }
+
+    private boolean isCached(Path source) {
+        return cacheDirectory != null && source.toAbsolutePath().normalize().startsWith(cacheDirectory);
+    }
+
+    private static void transfer(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            final long size = in.size();
+            for (long position = 0; position < size; ) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private void awaitPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ArchiverException("Interrupted while copying files to " + getDestFile(), e);
+        } catch (ExecutionException e) {
+            throw new ArchiverException(
+                    "Problem copying files : " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pending.clear();
+            pool.shutdownNow();
+            pool = null;
+        }
+        getLogger().info(linked.get() + " file(s) linked and " + copied.get() + " copied to " + getDestFile());
+    }
+
+    @Override
+    protected void cleanUp() throws IOException {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+        pending.clear();
+        super.cleanUp();
+    }
+}
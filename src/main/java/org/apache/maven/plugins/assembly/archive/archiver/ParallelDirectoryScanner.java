@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.codehaus.plexus.components.io.attributes.FileAttributes;
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.MatchPattern;
+
+/**
+ * Scans a directory like the {@link DirectoryScanner} of the archivers, which does not follow symbolic links, with
+ * the subdirectories walked in parallel.
+ * <p>
+ * The patterns are compiled once for the whole walk, and subdirectories matched by an exclude ending with
+ * <code>/**</code> are pruned instead of being walked only to have all their entries excluded. The directories are
+ * listed through {@link DirectoryListings}; the attributes read while listing a directory are kept for the resources.
+ * The directories holding files tracked by git may be listed from the {@link GitIndex} instead, so that untracked
+ * directories, like build outputs, are not walked.
+ * Entries come in the order of the {@link DirectoryScanner}.
+ */
+final class ParallelDirectoryScanner {
+    private static final String SUBTREE = File.separator + "**";
+
+    private final Patterns patterns;
+
+    private final List<MatchPattern> excludedSubtrees = new ArrayList<>();
+
+    private final Comparator<String> filenameComparator;
+
+    private final ForkJoinPool pool;
+
+    private final DirectoryListings listings;
+
+    private final boolean gitIndex;
+
+    /**
+     * The index of the git work tree of the scanned directory, null if its directories are listed from the disk.
+     */
+    private GitIndex tracked;
+
+    /**
+     * The path of the scanned directory in the git work tree, ending with a slash unless it is the work tree.
+     */
+    private String trackedPrefix;
+
+    /**
+     * @param includes           The includes, null to include everything
+     * @param excludes           The excludes
+     * @param useDefaultExcludes Whether the default excludes apply
+     * @param caseSensitive      Whether the patterns are case sensitive
+     * @param filenameComparator The order of the entries of a directory, null for the order of the file system
+     * @param pool               The threads walking the subdirectories
+     * @param listings           The listings of the directories
+     * @param gitIndex           Whether the directories holding files tracked by git are listed from the git index
+     */
+    ParallelDirectoryScanner(
+            String[] includes,
+            String[] excludes,
+            boolean useDefaultExcludes,
+            boolean caseSensitive,
+            Comparator<String> filenameComparator,
+            ForkJoinPool pool,
+            DirectoryListings listings,
+            boolean gitIndex) {
+        this.listings = listings;
+        this.gitIndex = gitIndex;
+        this.patterns = new Patterns(includes, excludes, useDefaultExcludes, caseSensitive);
+        this.filenameComparator = filenameComparator;
+        this.pool = pool;
+        for (String exclude : patterns.getExcludes()) {
+            if (exclude.endsWith(SUBTREE) && exclude.length() > SUBTREE.length() && !exclude.startsWith("%")) {
+                excludedSubtrees.add(
+                        MatchPattern.fromString(exclude.substring(0, exclude.length() - SUBTREE.length())));
+            }
+        }
+    }
+
+    /**
+     * The included directories and files of a directory, in the order of the walk.
+     */
+    static final class Result {
+        final List<Entry> directories = new ArrayList<>();
+
+        final List<Entry> files = new ArrayList<>();
+
+        private void add(Result result) {
+            directories.addAll(result.directories);
+            files.addAll(result.files);
+        }
+    }
+
+    /**
+     * An included entry, with its path relative to the scanned directory.
+     */
+    static final class Entry {
+        final String name;
+
+        final FileAttributes attributes;
+
+        Entry(String name, FileAttributes attributes) {
+            this.name = name;
+            this.attributes = attributes;
+        }
+    }
+
+    Result scan(File basedir) throws IOException {
+        final Result result = new Result();
+        if (patterns.isIncluded("") && !patterns.isExcluded("")) {
+            result.directories.add(new Entry("", new FileAttributes(basedir.toPath(), false)));
+        }
+        if (Files.isSymbolicLink(basedir.toPath())) {
+            // like the scanner, the content of linked directories is not walked
+            return result;
+        }
+        if (gitIndex) {
+            tracked = listings.gitIndex(basedir);
+            final String relativePath = tracked != null ? tracked.relativePath(basedir) : null;
+            if (relativePath == null) {
+                tracked = null;
+            } else {
+                trackedPrefix = relativePath.isEmpty() ? "" : relativePath + "/";
+            }
+        }
+        try {
+            result.add(pool.invoke(new ScanTask(basedir, "")));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return result;
+    }
+
+    private boolean isExcludedSubtree(String name) {
+        for (MatchPattern subtree : excludedSubtrees) {
+            if (subtree.matchPath(name, patterns.isCaseSensitive())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class ScanTask extends RecursiveTask<Result> {
+        private final File directory;
+
+        private final String path;
+
+        ScanTask(File directory, String path) {
+            this.directory = directory;
+            this.path = path;
+        }
+
+        @Override
+        protected Result compute() {
+            final Result result = new Result();
+            final List<DirectoryListings.Child> children;
+            try {
+                children = new ArrayList<>(list());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (filenameComparator != null) {
+                children.sort((first, second) -> filenameComparator.compare(first.name, second.name));
+            }
+
+            // the included entries and the walks of the subdirectories, in the order of the scanner
+            final List<Object> parts = new ArrayList<>();
+            try {
+                for (DirectoryListings.Child child : children) {
+                    final String name = path + child.name;
+                    final boolean included = patterns.isIncluded(name);
+                    final boolean couldHoldIncluded = patterns.couldHoldIncluded(name);
+                    if (!included && !couldHoldIncluded || isExcludedSubtree(name)) {
+                        continue;
+                    }
+
+                    final File file = new File(directory, child.name);
+                    final boolean selected = included && !patterns.isExcluded(name);
+                    final FileAttributes attributes = selected ? attributes(child, file) : null;
+                    if (selected && attributes == null) {
+                        // removed since the listing, skipped like by the scanner
+                        continue;
+                    }
+                    if (child.directory) {
+                        final Result own = new Result();
+                        if (selected) {
+                            own.directories.add(new Entry(name, attributes));
+                        }
+                        parts.add(own);
+                        // like the scanner, the content of linked directories is not walked
+                        if ((selected || couldHoldIncluded) && !child.symbolicLink) {
+                            parts.add(new ScanTask(file, name + File.separator).fork());
+                        }
+                    } else if (child.file && selected) {
+                        final Result own = new Result();
+                        own.files.add(new Entry(name, attributes));
+                        parts.add(own);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            for (Object part : parts) {
+                result.add(part instanceof ScanTask ? ((ScanTask) part).join() : (Result) part);
+            }
+            return result;
+        }
+
+        private List<DirectoryListings.Child> list() throws IOException {
+            if (tracked != null) {
+                final String relativePath = trackedPrefix + path.replace(File.separatorChar, '/');
+                final List<DirectoryListings.Child> children = tracked.list(
+                        relativePath.endsWith("/")
+                                ? relativePath.substring(0, relativePath.length() - 1)
+                                : relativePath,
+                        directory);
+                if (children != null) {
+                    return children;
+                }
+            }
+            return listings.list(directory);
+        }
+
+        private FileAttributes attributes(DirectoryListings.Child child, File file) throws IOException {
+            if (child.attributes != null) {
+                return child.attributes;
+            }
+            try {
+                return new FileAttributes(file.toPath(), false);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The compiled patterns of the scanner.
+     */
+    private static final class Patterns extends DirectoryScanner {
+        Patterns(String[] includes, String[] excludes, boolean useDefaultExcludes, boolean caseSensitive) {
+            // like the resource collections, empty patterns are no patterns
+            setIncludes(includes != null && includes.length > 0 ? includes : null);
+            setExcludes(excludes != null && excludes.length > 0 ? excludes : null);
+            if (useDefaultExcludes) {
+                addDefaultExcludes();
+            }
+            setCaseSensitive(caseSensitive);
+            setupDefaultFilters();
+            setupMatchPatterns();
+        }
+
+        String[] getExcludes() {
+            return excludes;
+        }
+
+        boolean isCaseSensitive() {
+            return isCaseSensitive;
+        }
+
+        @Override
+        protected boolean isIncluded(String name) {
+            return super.isIncluded(name);
+        }
+
+        @Override
+        protected boolean isExcluded(String name) {
+            return super.isExcluded(name);
+        }
+
+        @Override
+        protected boolean couldHoldIncluded(String name) {
+            return super.couldHoldIncluded(name);
+        }
+    }
+}
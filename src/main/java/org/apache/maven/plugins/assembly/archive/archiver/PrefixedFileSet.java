@@ -37,14 +37,31 @@ class PrefixedFileSet implements FileSet {
 
     private final FileSelector[] selectors;
 
+    private final InputStreamTransformer streamTransformer;
+
     /**
      * @param fileSet    The file set.
      * @param rootPrefix The root prefix
      * @param selectors  The file selectors.
      */
     PrefixedFileSet(final FileSet fileSet, final String rootPrefix, final FileSelector[] selectors) {
+        this(fileSet, rootPrefix, selectors, null);
+    }
+
+    /**
+     * @param fileSet           The file set.
+     * @param rootPrefix        The root prefix
+     * @param selectors         The file selectors.
+     * @param streamTransformer The transformer replacing the one of the file set, may be null.
+     */
+    PrefixedFileSet(
+            final FileSet fileSet,
+            final String rootPrefix,
+            final FileSelector[] selectors,
+            final InputStreamTransformer streamTransformer) {
         this.fileSet = fileSet;
         this.selectors = selectors;
+        this.streamTransformer = streamTransformer;
 
         if (rootPrefix.length() > 0 && !rootPrefix.endsWith("/")) {
             this.rootPrefix = rootPrefix + "/";
@@ -151,7 +168,7 @@ class PrefixedFileSet implements FileSet {
 
     @Override
     public InputStreamTransformer getStreamTransformer() {
-        return fileSet.getStreamTransformer();
+        return streamTransformer != null ? streamTransformer : fileSet.getStreamTransformer();
     }
 
     @Override
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.components.io.functions.FileSupplier;
+import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.codehaus.plexus.components.io.resources.ResourceFactory;
+
+/**
+ * Stream transformer of a file set reading and transforming its upcoming files ahead of the archiver, so that disk
+ * latency, filtering and line ending conversion of the files overlap.
+ * <p>
+ * The collection of the file set transforms its files one after the other while it creates its resources. Before
+ * that, the {@link ScannedFileResourceCollection} tells this transformer the files it is about to create, in its own
+ * order; then, each time a file is transformed, the next files up to a window are submitted to the shared
+ * {@link Pool}. The transformed content of a file is taken from its prefetch if there is one, otherwise it is
+ * transformed as before, so the archiver still sees every file in its own order. The prefetches of the files the
+ * collection skips are dropped. At most a window of files, each no larger than {@link #MAX_PREFETCHED_SIZE}, is held
+ * in memory per file set.
+ */
+final class ReadAheadTransformer implements InputStreamTransformer {
+    /**
+     * Larger files are transformed by the archiver itself, as they are not latency bound.
+     */
+    static final long MAX_PREFETCHED_SIZE = 1024 * 1024;
+
+    private final InputStreamTransformer transformer;
+
+    private final Pool pool;
+
+    private List<File> files;
+
+    private List<String> names;
+
+    private final Map<File, Integer> positions = new HashMap<>();
+
+    private final NavigableMap<Integer, Future<byte[]>> prefetched = new TreeMap<>();
+
+    /**
+     * Position of the last file submitted.
+     */
+    private int submitted = -1;
+
+    /**
+     * @param transformer The transformer of the file set
+     * @param pool        The threads to read with
+     */
+    ReadAheadTransformer(InputStreamTransformer transformer, Pool pool) {
+        this.transformer = transformer;
+        this.pool = pool;
+    }
+
+    /**
+     * Starts an iteration of the file set, dropping what is left of the previous one.
+     *
+     * @param files The files about to be transformed, in order
+     * @param names The names of the files in the archive
+     */
+    synchronized void start(List<File> files, List<String> names) {
+        finish();
+        this.files = files;
+        this.names = names;
+        for (int i = 0; i < files.size(); i++) {
+            positions.put(files.get(i), i);
+        }
+    }
+
+    /**
+     * Ends an iteration of the file set, dropping the prefetches which were not used.
+     */
+    synchronized void finish() {
+        drop(prefetched);
+        files = null;
+        names = null;
+        positions.clear();
+        submitted = -1;
+    }
+
+    @Override
+    public InputStream transform(PlexusIoResource resource, InputStream inputStream) throws IOException {
+        Future<byte[]> future = null;
+        if (resource instanceof FileSupplier) {
+            final File file = ((FileSupplier) resource).getFile();
+            synchronized (this) {
+                final Integer position = positions.get(file);
+                if (position != null) {
+                    // the files before were skipped
+                    drop(prefetched.headMap(position, false));
+                    final int last = Math.min(position + pool.window, files.size() - 1);
+                    for (int i = Math.max(position + 1, submitted + 1); i <= last; i++) {
+                        final File next = files.get(i);
+                        final String name = names.get(i);
+                        prefetched.put(i, pool.submit(() -> read(next, name)));
+                    }
+                    submitted = Math.max(submitted, last);
+                    future = prefetched.remove(position);
+                }
+            }
+        }
+
+        final byte[] content = future != null ? get(future, resource) : null;
+        if (content == null) {
+            return transformer.transform(resource, inputStream);
+        }
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * @return the positions of the files read ahead and not transformed yet
+     */
+    synchronized List<Integer> getPrefetched() {
+        return new ArrayList<>(prefetched.keySet());
+    }
+
+    private static void drop(Map<Integer, Future<byte[]>> futures) {
+        for (Future<byte[]> future : futures.values()) {
+            future.cancel(true);
+        }
+        futures.clear();
+    }
+
+    /**
+     * @return the transformed content of the file, null if it is too large to be read ahead
+     */
+    private byte[] read(File file, String name) throws IOException {
+        if (file.length() > MAX_PREFETCHED_SIZE) {
+            return null;
+        }
+        final PlexusIoResource resource = ResourceFactory.createResource(file, name);
+        try (InputStream contents = resource.getContents();
+                InputStream transformed = transformer.transform(resource, contents)) {
+            return IOUtils.toByteArray(transformed);
+        }
+    }
+
+    private static byte[] get(Future<byte[]> future, PlexusIoResource resource) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading ahead " + resource.getName());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error reading ahead " + resource.getName() + ": " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * Bounded pool of daemon threads shared by the file sets of an archive, created on first use.
+     */
+    static final class Pool {
+        private final int threads;
+
+        /**
+         * Number of files read ahead of the one being transformed.
+         */
+        private final int window;
+
+        private ExecutorService executor;
+
+        Pool(int threads) {
+            this.threads = threads;
+            this.window = threads * 4;
+        }
+
+        synchronized <T> Future<T> submit(Callable<T> task) {
+            if (executor == null) {
+                final AtomicInteger count = new AtomicInteger();
+                final ThreadFactory factory = runnable -> {
+                    final Thread thread = new Thread(runnable, "assembly-read-ahead-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+                executor = Executors.newFixedThreadPool(threads, factory);
+            }
+            return executor.submit(task);
+        }
+
+        synchronized void shutdown() {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+}
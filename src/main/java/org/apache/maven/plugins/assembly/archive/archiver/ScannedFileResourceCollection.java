@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.codehaus.plexus.archiver.AbstractArchiver;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.FileSet;
+import org.codehaus.plexus.components.io.attributes.PlexusIoResourceAttributes;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
+import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
+import org.codehaus.plexus.components.io.resources.PlexusIoFileResourceCollection;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.codehaus.plexus.components.io.resources.ResourceFactory;
+
+/**
+ * The resources of a file set, scanned by a {@link ParallelDirectoryScanner}.
+ * <p>
+ * The collection is configured like the archivers configure the one of a file set they add. The directory is scanned
+ * once, while the resources are created and selected on each iteration. A {@link ReadAheadTransformer} is told the
+ * files in the order their resources are created, which is the order they are transformed in.
+ */
+final class ScannedFileResourceCollection extends PlexusIoFileResourceCollection {
+    private final ForkJoinPool pool;
+
+    private final boolean transformed;
+
+    private final DirectoryListings listings;
+
+    private final boolean gitIndex;
+
+    private Comparator<String> filenameComparator;
+
+    private ParallelDirectoryScanner.Result scanned;
+
+    private ScannedFileResourceCollection(
+            ForkJoinPool pool, DirectoryListings listings, boolean gitIndex, boolean transformed) {
+        this.pool = pool;
+        this.listings = listings;
+        this.gitIndex = gitIndex;
+        this.transformed = transformed;
+    }
+
+    /**
+     * @return the collection the archiver would create to add the file set
+     */
+    static ScannedFileResourceCollection of(
+            AbstractArchiver archiver,
+            FileSet fileSet,
+            ForkJoinPool pool,
+            DirectoryListings listings,
+            boolean gitIndex) {
+        final File directory = fileSet.getDirectory();
+        if (directory == null) {
+            throw new ArchiverException("The file sets base directory is null.");
+        }
+        if (!directory.isDirectory()) {
+            throw new ArchiverException(directory.getAbsolutePath() + " isn't a directory.");
+        }
+
+        final ScannedFileResourceCollection collection =
+                new ScannedFileResourceCollection(pool, listings, gitIndex, fileSet.getStreamTransformer() != null);
+        collection.setFollowingSymLinks(false);
+        collection.setIncludes(fileSet.getIncludes());
+        collection.setExcludes(fileSet.getExcludes());
+        collection.setBaseDir(directory);
+        collection.setFileSelectors(fileSet.getFileSelectors());
+        collection.setIncludingEmptyDirectories(fileSet.isIncludingEmptyDirectories());
+        collection.setPrefix(fileSet.getPrefix());
+        collection.setCaseSensitive(fileSet.isCaseSensitive());
+        collection.setUsingDefaultExcludes(fileSet.isUsingDefaultExcludes());
+        collection.setStreamTransformer(fileSet.getStreamTransformer());
+        collection.setFileMappers(fileSet.getFileMappers());
+        collection.setFilenameComparator(archiver.getFilenameComparator());
+
+        if (archiver.getOverrideDirectoryMode() > -1
+                || archiver.getOverrideFileMode() > -1
+                || archiver.getOverrideUid() > -1
+                || archiver.getOverrideGid() > -1
+                || archiver.getOverrideUserName() != null
+                || archiver.getOverrideGroupName() != null) {
+            collection.setOverrideAttributes(
+                    archiver.getOverrideUid(),
+                    archiver.getOverrideUserName(),
+                    archiver.getOverrideGid(),
+                    archiver.getOverrideGroupName(),
+                    archiver.getOverrideFileMode(),
+                    archiver.getOverrideDirectoryMode());
+        }
+        if (archiver.getDefaultDirectoryMode() > -1 || archiver.getDefaultFileMode() > -1) {
+            collection.setDefaultAttributes(
+                    -1, null, -1, null, archiver.getDefaultFileMode(), archiver.getDefaultDirectoryMode());
+        }
+        return collection;
+    }
+
+    /**
+     * Adds a selector after the ones of the file set.
+     */
+    void addFileSelector(FileSelector selector) {
+        setFileSelectors(PrefixedFileSet.combineSelectors(getFileSelectors(), new FileSelector[] {selector}));
+    }
+
+    /**
+     * @return whether the content of the resources is transformed
+     */
+    boolean isTransformed() {
+        // the collection replaces no transformer by an identity transformer
+        return transformed;
+    }
+
+    @Override
+    public void setFilenameComparator(Comparator<String> filenameComparator) {
+        super.setFilenameComparator(filenameComparator);
+        this.filenameComparator = filenameComparator;
+    }
+
+    @Override
+    public Iterator<PlexusIoResource> getResources() throws IOException {
+        if (scanned == null) {
+            scanned = new ParallelDirectoryScanner(
+                            getIncludes(),
+                            getExcludes(),
+                            isUsingDefaultExcludes(),
+                            isCaseSensitive(),
+                            filenameComparator,
+                            pool,
+                            listings,
+                            gitIndex)
+                    .scan(getBaseDir());
+        }
+
+        final List<PlexusIoResource> result = new ArrayList<>();
+        if (isIncludingEmptyDirectories()) {
+            addResources(result, scanned.directories);
+        }
+        final InputStreamTransformer transformer = getStreamTransformer();
+        if (transformer instanceof ReadAheadTransformer) {
+            addResources(result, (ReadAheadTransformer) transformer);
+        } else {
+            addResources(result, scanned.files);
+        }
+        return result.iterator();
+    }
+
+    /**
+     * Adds the resources of the files, after telling the transformer the ones it is about to transform, in order.
+     */
+    private void addResources(List<PlexusIoResource> result, ReadAheadTransformer readAhead) throws IOException {
+        final List<File> files = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        for (ParallelDirectoryScanner.Entry entry : scanned.files) {
+            if (!entry.attributes.isSymbolicLink()) {
+                files.add(file(entry));
+                names.add(getName(entry.name));
+            }
+        }
+        readAhead.start(files, names);
+        try {
+            addResources(result, scanned.files);
+        } finally {
+            readAhead.finish();
+        }
+    }
+
+    private File file(ParallelDirectoryScanner.Entry entry) {
+        return new File(getBaseDir(), entry.name.replace('\\', '/'));
+    }
+
+    private void addResources(List<PlexusIoResource> result, List<ParallelDirectoryScanner.Entry> entries)
+            throws IOException {
+        final InputStreamTransformer transformer = getStreamTransformer();
+        for (ParallelDirectoryScanner.Entry entry : entries) {
+            final File file = file(entry);
+            final PlexusIoResourceAttributes attributes =
+                    mergeAttributes(entry.attributes, entry.attributes.isDirectory());
+            final PlexusIoResource resource =
+                    ResourceFactory.createResource(file, getName(entry.name), null, transformer, attributes);
+            if (isSelected(resource)) {
+                result.add(resource);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.maven.plugins.assembly.filter.ContainerDescriptorHandler;
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.ArchiveFinalizer;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ResourceIterator;
+import org.codehaus.plexus.archiver.UnArchiver;
+
+/**
+ * Finalizer running the container descriptor handlers of an archive with a single iteration of its resources.
+ * <p>
+ * The handlers aggregate the entries they consume while they are selected, which is why each of them iterates all
+ * resources of the archive when it is finalized. As all handlers are selectors of every file set, one iteration is
+ * enough for all of them: the handlers are finalized after it with a view of the archiver without resources. Only the
+ * iterations are saved, the resources of the archive are held in memory as before.
+ */
+final class SinglePassFinalizer implements ArchiveFinalizer {
+    private static final ResourceIterator NO_RESOURCES = new ResourceIterator() {
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public ArchiveEntry next() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private final List<ContainerDescriptorHandler> handlers;
+
+    SinglePassFinalizer(List<ContainerDescriptorHandler> handlers) {
+        this.handlers = handlers;
+    }
+
+    @Override
+    public void finalizeArchiveCreation(final Archiver archiver) {
+        for (final ResourceIterator it = archiver.getResources(); it.hasNext(); ) {
+            it.next();
+        }
+
+        final Archiver aggregated = withoutResources(archiver);
+        for (final ContainerDescriptorHandler handler : handlers) {
+            handler.finalizeArchiveCreation(aggregated);
+        }
+    }
+
+    @Override
+    public void finalizeArchiveExtraction(final UnArchiver unarchiver) {
+        for (final ContainerDescriptorHandler handler : handlers) {
+            handler.finalizeArchiveExtraction(unarchiver);
+        }
+    }
+
+    @Override
+    public List<String> getVirtualFiles() {
+        final List<String> virtualFiles = new ArrayList<>();
+        for (final ContainerDescriptorHandler handler : handlers) {
+            final List<String> files = handler.getVirtualFiles();
+            if (files != null) {
+                virtualFiles.addAll(files);
+            }
+        }
+        return virtualFiles.isEmpty() ? null : Collections.unmodifiableList(virtualFiles);
+    }
+
+    private static Archiver withoutResources(final Archiver archiver) {
+        return (Archiver) Proxy.newProxyInstance(
+                SinglePassFinalizer.class.getClassLoader(), new Class<?>[] {Archiver.class}, (proxy, method, args) -> {
+                    if ("getResources".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return NO_RESOURCES;
+                    }
+                    try {
+                        return method.invoke(archiver, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
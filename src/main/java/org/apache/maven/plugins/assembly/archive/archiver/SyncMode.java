@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import org.codehaus.plexus.archiver.ArchiverException;
+
+/**
+ * How {@link SyncingDirectoryArchiver} finds the files of the <code>dir</code> format which did not change since the
+ * previous build.
+ */
+public enum SyncMode {
+    /**
+     * The directory is not synchronized: files are written as before and stale files are kept.
+     */
+    NONE("none"),
+
+    /**
+     * Files copied as is are compared by the size and last modification time of their source, other files by their
+     * content.
+     */
+    MTIME("mtime"),
+
+    /**
+     * All files are compared by a checksum of their content.
+     */
+    CHECKSUM("checksum");
+
+    private final String value;
+
+    SyncMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @param value The mode as configured, null for {@link #NONE}
+     * @return the mode
+     * @throws ArchiverException if the value is not a known mode
+     */
+    public static SyncMode fromValue(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return NONE;
+        }
+        for (SyncMode mode : values()) {
+            if (mode.value.equals(value.trim())) {
+                return mode;
+            }
+        }
+        throw new ArchiverException("Illegal dirSync specified: '" + value + "'");
+    }
+}
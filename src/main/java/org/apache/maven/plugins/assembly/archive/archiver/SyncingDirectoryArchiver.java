@@ -0,0 +1,396 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.ResourceIterator;
+import org.codehaus.plexus.archiver.manager.ArchiverManager;
+import org.codehaus.plexus.components.io.functions.FileSupplier;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+
+/**
+ * Directory archiver synchronizing the directory with its entries: only new or changed files are written, and files
+ * which are no longer entries of the archive are deleted.
+ * <p>
+ * The state of every file written is kept in a state file, named after the directory: the size and last modification
+ * time of its source if it is an existing file as is, the size and last modification time of the file written, and a
+ * checksum of its content in {@link SyncMode#CHECKSUM} mode. A file is unchanged if neither it nor its source changed
+ * since the state was written. Without a state, files copied as is are compared by their size and last modification
+ * time, and other files by their content.
+ */
+public class SyncingDirectoryArchiver extends LinkingDirectoryArchiver {
+    private static final int STATE_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final String CHECKSUM_ALGORITHM = "SHA-256";
+
+    private static final byte[] NO_CHECKSUM = new byte[0];
+
+    private final SyncMode syncMode;
+
+    private final File stateDirectory;
+
+    private Map<String, State> previous = Collections.emptyMap();
+
+    /**
+     * The state of the files of the archive, by their name.
+     */
+    private final Map<String, State> planned = new HashMap<>();
+
+    private final Set<String> plannedDirectories = new HashSet<>();
+
+    private boolean executing;
+
+    private int unchanged;
+
+    /**
+     * @param linkMode       The mode of the files whose content is an existing file as is
+     * @param syncMode       How unchanged files are found
+     * @param stateDirectory The directory of the state file
+     * @param archiverManager The manager reading the archived file sets
+     */
+    public SyncingDirectoryArchiver(
+            LinkMode linkMode, SyncMode syncMode, File stateDirectory, ArchiverManager archiverManager) {
+        super(linkMode, archiverManager);
+        this.syncMode = syncMode;
+        this.stateDirectory = stateDirectory;
+    }
+
+    @Override
+    public void execute() throws ArchiverException, IOException {
+        previous = getDestFile() != null ? readState() : Collections.emptyMap();
+        planned.clear();
+        plannedDirectories.clear();
+        unchanged = 0;
+        executing = true;
+        try {
+            super.execute();
+        } finally {
+            executing = false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The iterator records the entries of the archive, and synchronizes the directory once it has no more resources
+     * and all files are written.
+     */
+    @Override
+    public ResourceIterator getResources() throws ArchiverException {
+        final ResourceIterator resources = super.getResources();
+        return new ResourceIterator() {
+            @Override
+            public boolean hasNext() {
+                if (resources.hasNext()) {
+                    return true;
+                }
+                // an archive which became empty is synchronized too, removing all its files
+                if (executing) {
+                    executing = false;
+                    try {
+                        synchronize();
+                    } catch (IOException e) {
+                        throw new ArchiverException(
+                                "Problem synchronizing " + getDestFile() + ": " + e.getMessage(), e);
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public ArchiveEntry next() {
+                final ArchiveEntry entry = resources.next();
+                if (executing) {
+                    plan(entry);
+                }
+                return entry;
+            }
+        };
+    }
+
+    private void plan(ArchiveEntry entry) {
+        final String name = normalize(entry.getName());
+        if (entry.getType() == ArchiveEntry.DIRECTORY) {
+            plannedDirectories.add(name);
+        } else {
+            final PlexusIoResource resource = entry.getResource();
+            final File source = isLinkable(resource) ? ((FileSupplier) resource).getFile() : null;
+            planned.put(
+                    name,
+                    source != null
+                            ? new State(source.getPath(), source.length(), source.lastModified())
+                            : new State("", -1, -1));
+        }
+    }
+
+    @Override
+    protected void copyFile(ArchiveEntry entry, String vPath) throws ArchiverException, IOException {
+        final PlexusIoResource resource = entry.getResource();
+        final State state = planned.get(normalize(entry.getName()));
+        if (resource.isDirectory() || vPath.isEmpty() || state == null) {
+            super.copyFile(entry, vPath);
+            return;
+        }
+
+        final File outFile = new File(vPath);
+        if (isUnchanged(entry, state, outFile)) {
+            unchanged++;
+            return;
+        }
+        if (!outFile.isDirectory()) {
+            // the directory archiver would otherwise keep a file newer than its source
+            Files.deleteIfExists(outFile.toPath());
+        }
+        super.copyFile(entry, vPath);
+    }
+
+    private boolean isUnchanged(ArchiveEntry entry, State state, File outFile) throws IOException {
+        if (syncMode == SyncMode.CHECKSUM) {
+            state.checksum = checksum(entry);
+        }
+        if (!Files.isRegularFile(outFile.toPath())) {
+            return false;
+        }
+        final State old = previous.get(normalize(entry.getName()));
+        final boolean outputKept =
+                old != null && outFile.length() == old.outputSize && outFile.lastModified() == old.outputLastModified;
+
+        if (syncMode == SyncMode.CHECKSUM) {
+            return outputKept
+                    ? Arrays.equals(state.checksum, old.checksum)
+                    : Arrays.equals(state.checksum, checksum(outFile));
+        }
+        if (!state.source.isEmpty()) {
+            if (outputKept
+                    && state.source.equals(old.source)
+                    && state.sourceSize == old.sourceSize
+                    && state.sourceLastModified == old.sourceLastModified) {
+                return true;
+            }
+            // a fixed last modification time of the archive does not tell whether the file changed
+            return getLastModifiedTime() == null
+                    && outFile.length() == state.sourceSize
+                    && outFile.lastModified() == state.sourceLastModified;
+        }
+        final long size = entry.getResource().getSize();
+        if (size != PlexusIoResource.UNKNOWN_RESOURCE_SIZE && size != outFile.length()) {
+            return false;
+        }
+        try (InputStream in = entry.getInputStream();
+                InputStream out = new BufferedInputStream(Files.newInputStream(outFile.toPath()), BUFFER_SIZE)) {
+            return IOUtils.contentEquals(in, out);
+        }
+    }
+
+    private static byte[] checksum(ArchiveEntry entry) throws IOException {
+        try (InputStream in = entry.getInputStream()) {
+            return checksum(in);
+        }
+    }
+
+    private static byte[] checksum(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return checksum(in);
+        }
+    }
+
+    private static byte[] checksum(InputStream in) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        for (int count = in.read(buffer); count != -1; count = in.read(buffer)) {
+            digest.update(buffer, 0, count);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Deletes the files and directories which are not entries of the archive, and writes the state of the entries.
+     */
+    private void synchronize() throws IOException {
+        final Path directory = getDestFile().toPath();
+        final Set<String> directories = new HashSet<>(plannedDirectories);
+        for (String name : planned.keySet()) {
+            for (int slash = name.lastIndexOf('/'); slash > 0; slash = name.lastIndexOf('/', slash - 1)) {
+                if (!directories.add(name.substring(0, slash))) {
+                    break;
+                }
+            }
+        }
+
+        final int[] deleted = {0};
+        if (!Files.isDirectory(directory)) {
+            writeState();
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!planned.containsKey(relativize(directory, file))) {
+                    Files.delete(file);
+                    deleted[0]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                final String name = relativize(directory, dir);
+                if (!name.isEmpty() && !directories.contains(name)) {
+                    Files.delete(dir);
+                    deleted[0]++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        for (Map.Entry<String, State> entry : planned.entrySet()) {
+            final File file = new File(getDestFile(), entry.getKey());
+            entry.getValue().outputSize = file.length();
+            entry.getValue().outputLastModified = file.lastModified();
+        }
+        writeState();
+        getLogger().info(unchanged + " file(s) unchanged and " + deleted[0] + " removed in " + getDestFile());
+    }
+
+    private static String relativize(Path directory, Path path) {
+        return directory.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private static String normalize(String name) {
+        String normalized = name.replace('\\', '/');
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    private File getStateFile() {
+        return new File(stateDirectory, getDestFile().getName() + ".state");
+    }
+
+    private Map<String, State> readState() {
+        final File stateFile = getStateFile();
+        if (!stateFile.isFile()) {
+            return Collections.emptyMap();
+        }
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile.toPath()), BUFFER_SIZE))) {
+            if (in.readInt() != STATE_VERSION
+                    || !in.readUTF().equals(getDestFile().getAbsolutePath())) {
+                return Collections.emptyMap();
+            }
+            final int count = in.readInt();
+            final Map<String, State> states = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                final String name = in.readUTF();
+                final State state = new State(in.readUTF(), in.readLong(), in.readLong());
+                state.outputSize = in.readLong();
+                state.outputLastModified = in.readLong();
+                state.checksum = new byte[in.readUnsignedByte()];
+                in.readFully(state.checksum);
+                states.put(name, state);
+            }
+            return states;
+        } catch (IOException e) {
+            getLogger().debug("State " + stateFile + " cannot be read, comparing all files", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private void writeState() throws IOException {
+        final File stateFile = getStateFile();
+        Files.createDirectories(stateDirectory.toPath());
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(stateFile.toPath()), BUFFER_SIZE))) {
+            out.writeInt(STATE_VERSION);
+            out.writeUTF(getDestFile().getAbsolutePath());
+            out.writeInt(planned.size());
+            for (Map.Entry<String, State> entry : planned.entrySet()) {
+                final State state = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeUTF(state.source);
+                out.writeLong(state.sourceSize);
+                out.writeLong(state.sourceLastModified);
+                out.writeLong(state.outputSize);
+                out.writeLong(state.outputLastModified);
+                out.writeByte(state.checksum.length);
+                out.write(state.checksum);
+            }
+        }
+    }
+
+    /**
+     * State of a file of the directory.
+     */
+    private static final class State {
+        /**
+         * The source file, empty if the file is not an existing file as is.
+         */
+        private final String source;
+
+        private final long sourceSize;
+
+        private final long sourceLastModified;
+
+        private long outputSize;
+
+        private long outputLastModified;
+
+        private byte[] checksum = NO_CHECKSUM;
+
+        State(String source, long sourceSize, long sourceLastModified) {
+            this.source = source;
+            this.sourceSize = sourceSize;
+            this.sourceLastModified = sourceLastModified;
+        }
+    }
+}
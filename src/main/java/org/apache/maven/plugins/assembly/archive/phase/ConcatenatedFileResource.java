@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.phase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.codehaus.plexus.components.io.attributes.FileAttributes;
+import org.codehaus.plexus.components.io.attributes.PlexusIoResourceAttributes;
+import org.codehaus.plexus.components.io.functions.ContentSupplier;
+import org.codehaus.plexus.components.io.functions.ResourceAttributeSupplier;
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoResource;
+
+/**
+ * The content of several files, one after the other, as a single resource.
+ * <p>
+ * The size and the last modification time of the resource are the total size and the latest last modification time
+ * of the files, so that the archivers do not read the content ahead. The files are opened one at a time, once the
+ * content reaches them, and closed once it is past them.
+ */
+final class ConcatenatedFileResource extends AbstractPlexusIoResource implements ResourceAttributeSupplier {
+    private final List<File> sources;
+
+    private final PlexusIoResourceAttributes attributes;
+
+    private ConcatenatedFileResource(
+            String name, long lastModified, long size, List<File> sources, PlexusIoResourceAttributes attributes) {
+        super(name, lastModified, size, true, false, true);
+        this.sources = sources;
+        this.attributes = attributes;
+    }
+
+    /**
+     * @param name the name of the resource
+     * @param sources the files, in the order of their content
+     * @return the resource, with the attributes of the first file
+     * @throws IOException if a file cannot be read
+     */
+    static ConcatenatedFileResource of(String name, List<File> sources) throws IOException {
+        long lastModified = 0;
+        long size = 0;
+        PlexusIoResourceAttributes first = null;
+        for (File source : sources) {
+            final FileAttributes fileAttributes = new FileAttributes(source.toPath(), true);
+            if (!fileAttributes.isRegularFile()) {
+                throw new IOException(source + " is not a file");
+            }
+            lastModified =
+                    Math.max(lastModified, fileAttributes.getLastModifiedTime().toMillis());
+            size += fileAttributes.getSize();
+            if (first == null) {
+                first = fileAttributes;
+            }
+        }
+        return new ConcatenatedFileResource(name, lastModified, size, sources, first);
+    }
+
+    /**
+     * @return the content of the files, for resources whose content is transformed
+     */
+    static ContentSupplier contentOf(List<File> sources) {
+        return () -> new ConcatenatedInputStream(sources);
+    }
+
+    @Override
+    public InputStream getContents() throws IOException {
+        return new ConcatenatedInputStream(sources);
+    }
+
+    @Override
+    public URL getURL() {
+        return null;
+    }
+
+    @Override
+    public PlexusIoResourceAttributes getAttributes() {
+        return attributes;
+    }
+
+    private static final class ConcatenatedInputStream extends InputStream {
+        private final List<File> sources;
+
+        private int next;
+
+        private InputStream current;
+
+        ConcatenatedInputStream(List<File> sources) {
+            this.sources = sources;
+        }
+
+        /**
+         * @return the stream of the current file, null once past the last one
+         */
+        private InputStream current() throws IOException {
+            if (current == null && next < sources.size()) {
+                current = Channels.newInputStream(
+                        FileChannel.open(sources.get(next++).toPath(), StandardOpenOption.READ));
+            }
+            return current;
+        }
+
+        private void closeCurrent() throws IOException {
+            final InputStream finished = current;
+            current = null;
+            finished.close();
+        }
+
+        @Override
+        public int read() throws IOException {
+            for (InputStream in = current(); in != null; in = current()) {
+                final int b = in.read();
+                if (b >= 0) {
+                    return b;
+                }
+                closeCurrent();
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            for (InputStream in = current(); in != null; in = current()) {
+                final int read = in.read(buffer, offset, length);
+                if (read > 0) {
+                    return read;
+                }
+                if (read < 0) {
+                    closeCurrent();
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            next = sources.size();
+            if (current != null) {
+                closeCurrent();
+            }
+        }
+    }
+}
@@ -23,11 +23,7 @@ import javax.inject.Singleton;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.SequenceInputStream;
-import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -43,7 +39,6 @@ import org.apache.maven.plugins.assembly.utils.AssemblyFormatUtils;
 import org.apache.maven.plugins.assembly.utils.TypeConversionUtils;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.ArchiverException;
-import org.codehaus.plexus.components.io.functions.ContentSupplier;
 import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
 import org.codehaus.plexus.components.io.resources.PlexusIoFileResource;
 import org.codehaus.plexus.components.io.resources.PlexusIoResource;
@@ -131,18 +126,24 @@ public class FileItemAssemblyPhase implements AssemblyArchiverPhase, PhaseOrder
 
                 final PlexusIoResource restoUse;
                 if (!fileItem.getSources().isEmpty()) {
-                    List<InputStream> content =
-                            new ArrayList<>(fileItem.getSources().size());
+                    List<File> content = new ArrayList<>(fileItem.getSources().size());
                     for (String contentSourcePath : fileItem.getSources()) {
                         File contentSource = new File(contentSourcePath);
                         if (!AssemblyFileUtils.isAbsolutePath(contentSource)) {
                             contentSource = new File(basedir, contentSourcePath);
                         }
-                        content.add(Files.newInputStream(contentSource.toPath()));
+                        content.add(contentSource);
                     }
 
                     String name = PlexusIoFileResource.getName(source);
-                    restoUse = createResource(source, name, getContentSupplier(content), fileSetTransformers);
+                    if (fileSetTransformers == null) {
+                        // the sources are opened once the archiver reaches them
+                        restoUse = ConcatenatedFileResource.of(name, content);
+                    } else {
+                        // the size of transformed content is only known once it is read
+                        restoUse = createResource(
+                                source, name, ConcatenatedFileResource.contentOf(content), fileSetTransformers);
+                    }
                 } else {
                     restoUse = createResource(source, fileSetTransformers);
                 }
@@ -159,13 +160,4 @@ public class FileItemAssemblyPhase implements AssemblyArchiverPhase, PhaseOrder
     public int order() {
         return 10;
     }
-
-    private ContentSupplier getContentSupplier(final Collection<InputStream> contentStreams) {
-        return new ContentSupplier() {
-            @Override
-            public InputStream getContents() throws IOException {
-                return new SequenceInputStream(Collections.enumeration(contentStreams));
-            }
-        };
-    }
 }
@@ -353,6 +353,14 @@ public class ModuleSetAssemblyPhase implements AssemblyArchiverPhase, PhaseOrder
             task.setExcludes(binaries.getUnpackOptions().getExcludes());
         }
 
+        if (binaries.isUnpack()
+                && configSource.isUseModuleOutputDirectories()
+                && artifact == project.getArtifact()
+                && project.getBuild() != null
+                && project.getBuild().getOutputDirectory() != null) {
+            task.setBuildOutputDirectory(new File(project.getBuild().getOutputDirectory()));
+        }
+
         task.execute(archiver, configSource);
     }
 
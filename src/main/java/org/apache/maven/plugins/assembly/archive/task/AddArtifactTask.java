@@ -21,7 +21,9 @@ package org.apache.maven.plugins.assembly.archive.task;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
@@ -34,6 +36,7 @@ import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.util.DefaultArchivedFileSet;
 import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
 import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.StringUtils;
@@ -76,6 +79,8 @@ public class AddArtifactTask {
 
     private String outputFileNameMapping;
 
+    private File buildOutputDirectory;
+
     public AddArtifactTask(final Artifact artifact, InputStreamTransformer transformer, Charset encoding) {
         this.artifact = artifact;
         this.transformer = transformer;
@@ -117,7 +122,7 @@ public class AddArtifactTask {
         try {
 
             if (unpack) {
-                unpacked(archiver, destDirectory);
+                unpacked(archiver, configSource, destDirectory);
             } else {
                 asFile(archiver, configSource, destDirectory);
             }
@@ -162,7 +167,8 @@ public class AddArtifactTask {
         }
     }
 
-    private void unpacked(Archiver archiver, String destDirectory) throws ArchiveCreationException {
+    private void unpacked(Archiver archiver, AssemblerConfigurationSource configSource, String destDirectory)
+            throws ArchiveCreationException {
         String outputLocation = destDirectory;
 
         if ((outputLocation.length() > 0) && !outputLocation.endsWith("/")) {
@@ -184,13 +190,14 @@ public class AddArtifactTask {
             } else if (artifactFile.isDirectory()) {
                 LOGGER.debug("Adding artifact directory contents for: " + artifact + " to: " + outputLocation);
 
-                DefaultFileSet fs = DefaultFileSet.fileSet(artifactFile);
-                fs.setIncludes(includesArray);
-                fs.setExcludes(excludesArray);
-                fs.setPrefix(outputLocation);
-                fs.setStreamTransformer(transformer);
-                fs.setUsingDefaultExcludes(usingDefaultExcludes);
-                archiver.addFileSet(fs);
+                addDirectory(archiver, artifactFile, outputLocation, includesArray, excludesArray);
+            } else if (buildOutputDirectory != null
+                    && addBuildOutputDirectory(archiver, artifactFile, outputLocation, includesArray, excludesArray)) {
+                LOGGER.debug("Added build output directory: " + buildOutputDirectory + " for: " + artifact + " to: "
+                        + outputLocation);
+            } else if (addUnpackCache(
+                    archiver, configSource, artifactFile, outputLocation, includesArray, excludesArray)) {
+                LOGGER.debug("Added cached artifact contents for: " + artifact + " to: " + outputLocation);
             } else {
                 LOGGER.debug("Unpacking artifact contents for: " + artifact + " to: " + outputLocation);
                 LOGGER.debug("includes:\n" + StringUtils.join(includesArray, "\n") + "\n");
@@ -210,6 +217,78 @@ public class AddArtifactTask {
         }
     }
 
+    private boolean addBuildOutputDirectory(
+            Archiver archiver,
+            File artifactFile,
+            String outputLocation,
+            String[] includesArray,
+            String[] excludesArray) {
+        final List<String> packagedOnly;
+        try {
+            packagedOnly = PackagedOutputDirectory.packagedOnlyEntries(artifactFile, buildOutputDirectory);
+        } catch (final IOException e) {
+            LOGGER.debug("Cannot compare " + buildOutputDirectory + " with " + artifactFile + ": " + e.getMessage());
+            return false;
+        }
+        if (packagedOnly == null) {
+            LOGGER.debug(buildOutputDirectory + " does not hold the content of " + artifactFile + ", unpacking it");
+            return false;
+        }
+
+        addDirectory(archiver, buildOutputDirectory, outputLocation, includesArray, excludesArray);
+
+        if (!packagedOnly.isEmpty()) {
+            // only the entries added by the packaging are decompressed
+            final Set<String> names = new HashSet<>(packagedOnly);
+            final FileSelector packagedOnlySelector = fileInfo -> names.contains(fileInfo.getName());
+            DefaultArchivedFileSet afs = DefaultArchivedFileSet.archivedFileSet(artifactFile);
+            afs.setIncludes(includesArray);
+            afs.setExcludes(excludesArray);
+            afs.setPrefix(outputLocation);
+            afs.setStreamTransformer(transformer);
+            afs.setUsingDefaultExcludes(usingDefaultExcludes);
+            afs.setFileSelectors(new FileSelector[] {packagedOnlySelector});
+            archiver.addArchivedFileSet(afs, encoding);
+        }
+        return true;
+    }
+
+    private boolean addUnpackCache(
+            Archiver archiver,
+            AssemblerConfigurationSource configSource,
+            File artifactFile,
+            String outputLocation,
+            String[] includesArray,
+            String[] excludesArray) {
+        final UnpackCache cache = UnpackCache.of(configSource);
+        if (cache == null) {
+            return false;
+        }
+        final File unpacked;
+        try {
+            unpacked = cache.unpacked(artifactFile, encoding);
+        } catch (final IOException e) {
+            LOGGER.warn("Cannot cache the contents of: " + artifactFile + ", unpacking it: " + e.getMessage());
+            return false;
+        }
+        if (unpacked == null) {
+            return false;
+        }
+        addDirectory(archiver, unpacked, outputLocation, includesArray, excludesArray);
+        return true;
+    }
+
+    private void addDirectory(
+            Archiver archiver, File directory, String outputLocation, String[] includesArray, String[] excludesArray) {
+        DefaultFileSet fs = DefaultFileSet.fileSet(directory);
+        fs.setIncludes(includesArray);
+        fs.setExcludes(excludesArray);
+        fs.setPrefix(outputLocation);
+        fs.setStreamTransformer(transformer);
+        fs.setUsingDefaultExcludes(usingDefaultExcludes);
+        archiver.addFileSet(fs);
+    }
+
     private File moveArtifactSomewhereElse(AssemblerConfigurationSource configSource) throws ArchiveCreationException {
         final File tempRoot = configSource.getTemporaryRootDirectory();
         final File tempArtifactFile = new File(tempRoot, artifact.getFile().getName());
@@ -283,4 +362,12 @@ public class AddArtifactTask {
     public void setModuleArtifact(final Artifact moduleArtifact) {
         this.moduleArtifact = moduleArtifact;
     }
+
+    /**
+     * @param buildOutputDirectory the directory the artifact was packaged from, added instead of unpacking the
+     *            artifact when it holds the content of the artifact
+     */
+    public void setBuildOutputDirectory(final File buildOutputDirectory) {
+        this.buildOutputDirectory = buildOutputDirectory;
+    }
 }
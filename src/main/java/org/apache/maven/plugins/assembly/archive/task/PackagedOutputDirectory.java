@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Compares a build output directory with the archive packaged from it.
+ * <p>
+ * The entries of the archive are read from its central directory, so that nothing is decompressed, and the files of
+ * the directory from their attributes only.
+ */
+final class PackagedOutputDirectory {
+    private static final String META_INF = "META-INF/";
+
+    private PackagedOutputDirectory() {
+        // no instances
+    }
+
+    /**
+     * The directory holds the content of the archive if each of its files is an entry of the archive, with the same
+     * size, and was not modified after the archive, and if the entries which are not in the directory are all under
+     * <code>META-INF</code>, like the manifest and the Maven descriptors added by the packaging.
+     *
+     * @param archive the packaged archive
+     * @param directory the build output directory
+     * @return the names of the entries of the archive which are not in the directory, null if the directory does not
+     *         hold the content of the archive
+     * @throws IOException if the archive or the directory cannot be read
+     */
+    static List<String> packagedOnlyEntries(File archive, File directory) throws IOException {
+        if (!archive.isFile() || !directory.isDirectory()) {
+            return null;
+        }
+        final long packaged = archive.lastModified();
+        final Map<String, Long> sizes = new HashMap<>();
+        try (ZipFile zip = new ZipFile(archive)) {
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+                final ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory()) {
+                    sizes.put(entry.getName(), entry.getSize());
+                }
+            }
+        }
+
+        final Path root = directory.toPath();
+        final boolean[] consistent = {true};
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                final String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+                final Long size = sizes.remove(name);
+                if (!attributes.isRegularFile()
+                        || size == null
+                        || size != attributes.size()
+                        || attributes.lastModifiedTime().toMillis() > packaged) {
+                    consistent[0] = false;
+                    return FileVisitResult.TERMINATE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (!consistent[0]) {
+            return null;
+        }
+
+        final List<String> packagedOnly = new ArrayList<>(sizes.keySet());
+        for (String name : packagedOnly) {
+            if (!name.startsWith(META_INF)) {
+                return null;
+            }
+        }
+        packagedOnly.sort(null);
+        return packagedOnly;
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+import org.codehaus.plexus.archiver.util.ArchiveEntryUtils;
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Caches the content of unpacked zip archives, like jars, on disk, so that an archive is decompressed only once across
+ * assemblies, formats and builds; the cached directory is then added as a file set.
+ * <p>
+ * Entries are keyed by the SHA-256 of the archive content and the encoding of the entry names. An entry is a
+ * directory holding the unpacked <code>content</code> and a <code>size</code> file, whose last modification time is
+ * the last use of the entry: an entry is used when it is looked up, and again when the archive it is added to is
+ * created, since its files are only read then. Once the cache exceeds its maximum size, the least recently used entries are removed,
+ * except the ones used by the current build or used recently, which may be in use by a concurrent build. Archives
+ * holding symbolic links, entries outside of their root or files whose names only differ by case, which would
+ * overwrite each other on case-insensitive file systems, are not cached: their entry holds an <code>uncached</code>
+ * marker instead of the content, so that they are not unpacked into the cache again.
+ */
+public final class UnpackCache {
+    private static final String SESSION_KEY = UnpackCache.class.getName();
+
+    private static final String CONTENT = "content";
+
+    private static final String SIZE = "size";
+
+    private static final String UNCACHED = "uncached";
+
+    private static final String TEMPORARY = ".tmp-";
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    /**
+     * Entries used more recently may be in use by a concurrent build, and are not removed.
+     */
+    private static final long IN_USE_PERIOD = TimeUnit.MINUTES.toMillis(10);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int MODE_MASK = 0777;
+
+    private static final int DEFAULT_FILE_MODE = 0644;
+
+    private static final int DEFAULT_DIRECTORY_MODE = 0755;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    /**
+     * The keys of the archives hashed by this build, by path, size and last modification time.
+     */
+    private final Map<String, String> keys = new ConcurrentHashMap<>();
+
+    /**
+     * The entries used by this build, which are not removed.
+     */
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The entries of the archives which are not cached.
+     */
+    private final Set<String> uncached = ConcurrentHashMap.newKeySet();
+
+    UnpackCache(File directory, long maxSize) {
+        this.directory = directory.toPath();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the cache of the build, null if unpacked archives are not cached
+     */
+    static UnpackCache of(AssemblerConfigurationSource configSource) {
+        final File directory = configSource.getUnpackCacheDirectory();
+        if (directory == null) {
+            return null;
+        }
+        final long maxSize = configSource.getUnpackCacheMaxSize() * MEGABYTE;
+        final MavenSession session = configSource.getMavenSession();
+        if (session == null || session.getRepositorySession() == null) {
+            return new UnpackCache(directory, maxSize);
+        }
+        final SessionData data = session.getRepositorySession().getData();
+        final String key = sessionKey(directory);
+        if (data.get(key) == null) {
+            data.set(key, null, new UnpackCache(directory, maxSize));
+        }
+        final Object cache = data.get(key);
+        // caches of another version of the plugin are not shared
+        return cache instanceof UnpackCache ? (UnpackCache) cache : new UnpackCache(directory, maxSize);
+    }
+
+    /**
+     * Uses the entries looked up by the build again, right before an archive is created: the files of the entries are
+     * only read once the archive is created, which may be long after they were looked up, and a concurrent build
+     * must not remove them meanwhile.
+     *
+     * @param configSource the configuration of the build
+     * @throws IOException if the entries cannot be used again
+     */
+    public static void refresh(AssemblerConfigurationSource configSource) throws IOException {
+        final File directory = configSource.getUnpackCacheDirectory();
+        final MavenSession session = configSource.getMavenSession();
+        if (directory == null || session == null || session.getRepositorySession() == null) {
+            return;
+        }
+        final Object cache = session.getRepositorySession().getData().get(sessionKey(directory));
+        if (cache instanceof UnpackCache) {
+            ((UnpackCache) cache).refresh();
+        }
+    }
+
+    private static String sessionKey(File directory) {
+        return SESSION_KEY + ':' + directory.getAbsolutePath();
+    }
+
+    /**
+     * Uses the entries used by this build again, so that concurrent builds keep them.
+     */
+    synchronized void refresh() throws IOException {
+        final FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        for (String key : used) {
+            try {
+                Files.setLastModifiedTime(directory.resolve(key).resolve(SIZE), now);
+            } catch (NoSuchFileException e) {
+                // not cached
+            }
+        }
+    }
+
+    /**
+     * @param archive the archive to unpack
+     * @param encoding the encoding of the entry names, null for UTF-8
+     * @return the directory holding the unpacked content of the archive, null if it is not cached
+     * @throws IOException if the archive cannot be unpacked into the cache
+     */
+    synchronized File unpacked(File archive, Charset encoding) throws IOException {
+        if (!isZip(archive)) {
+            return null;
+        }
+        final Charset charset = encoding != null ? encoding : StandardCharsets.UTF_8;
+        final String key = key(archive, charset);
+        if (uncached.contains(key)) {
+            return null;
+        }
+        final Path entry = directory.resolve(key);
+        used.add(key);
+        try {
+            Files.setLastModifiedTime(entry.resolve(SIZE), FileTime.fromMillis(System.currentTimeMillis()));
+            return content(entry, key);
+        } catch (NoSuchFileException e) {
+            // not cached yet
+        }
+
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempDirectory(directory, key + TEMPORARY);
+        try {
+            long size = unpack(archive, charset, temporary.resolve(CONTENT));
+            if (size < 0) {
+                FileUtils.deleteDirectory(temporary.resolve(CONTENT).toFile());
+                Files.createFile(temporary.resolve(UNCACHED));
+                size = 0;
+            }
+            Files.write(temporary.resolve(SIZE), Long.toString(size).getBytes(StandardCharsets.US_ASCII));
+            try {
+                Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // unpacked by a concurrent build
+            }
+        } finally {
+            if (Files.exists(temporary)) {
+                FileUtils.deleteDirectory(temporary.toFile());
+            }
+        }
+        evict();
+        return content(entry, key);
+    }
+
+    /**
+     * @return the content of an entry, null if the archive is not cached
+     */
+    private File content(Path entry, String key) {
+        if (Files.exists(entry.resolve(UNCACHED))) {
+            uncached.add(key);
+            return null;
+        }
+        return entry.resolve(CONTENT).toFile();
+    }
+
+    private String key(File archive, Charset encoding) throws IOException {
+        final String identity =
+                archive.getAbsolutePath() + ':' + archive.length() + ':' + archive.lastModified() + ':' + encoding;
+        String key = keys.get(identity);
+        if (key == null) {
+            final MessageDigest digest = newDigest();
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = Files.newInputStream(archive.toPath())) {
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, count);
+                }
+            }
+            // the names of the entries depend on the encoding
+            digest.update(encoding.name().getBytes(StandardCharsets.US_ASCII));
+            key = toHex(digest.digest());
+            keys.put(identity, key);
+        }
+        return key;
+    }
+
+    /**
+     * @return the size of the unpacked files, -1 if the archive is not cached
+     */
+    private static long unpack(File archive, Charset encoding, Path content) throws IOException {
+        Files.createDirectories(content);
+        final Map<Path, ZipArchiveEntry> directories = new LinkedHashMap<>();
+        // whether the entries are directories, by case-insensitive name
+        final Map<String, Boolean> names = new HashMap<>();
+        long size = 0;
+        try (ZipFile zip =
+                ZipFile.builder().setFile(archive).setCharset(encoding).get()) {
+            for (Enumeration<ZipArchiveEntry> entries = zip.getEntries(); entries.hasMoreElements(); ) {
+                final ZipArchiveEntry entry = entries.nextElement();
+                final Path target = content.resolve(entry.getName()).normalize();
+                if (entry.isUnixSymlink()
+                        || !target.startsWith(content)
+                        || target.equals(content)
+                        || collides(names, content.relativize(target), entry.isDirectory())) {
+                    return -1;
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                    directories.put(target, entry);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        size += Files.copy(in, target);
+                    }
+                    setAttributes(target, entry, DEFAULT_FILE_MODE);
+                }
+            }
+        } catch (FileAlreadyExistsException e) {
+            // names the file system considers the same, which lower casing does not tell apart
+            return -1;
+        }
+        // once their files are written, which changes them
+        for (Map.Entry<Path, ZipArchiveEntry> entry : directories.entrySet()) {
+            setAttributes(entry.getKey(), entry.getValue(), DEFAULT_DIRECTORY_MODE);
+        }
+        return size;
+    }
+
+    /**
+     * @param names whether the entries seen so far are directories, by case-insensitive name
+     * @return whether the entry and a previous one, or one of its parent directories, only differ by case
+     */
+    private static boolean collides(Map<String, Boolean> names, Path name, boolean directory) {
+        for (Path parent = name.getParent(); parent != null; parent = parent.getParent()) {
+            if (Boolean.FALSE.equals(names.putIfAbsent(parent.toString().toLowerCase(Locale.ROOT), true))) {
+                return true;
+            }
+        }
+        final Boolean previous = names.put(name.toString().toLowerCase(Locale.ROOT), directory);
+        return previous != null && !(previous && directory);
+    }
+
+    private static void setAttributes(Path target, ZipArchiveEntry entry, int defaultMode) throws IOException {
+        final int mode = entry.getUnixMode() & MODE_MASK;
+        ArchiveEntryUtils.chmod(target.toFile(), mode != 0 ? mode : defaultMode);
+        if (entry.getTime() >= 0) {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getTime()));
+        }
+    }
+
+    /**
+     * Removes the least recently used entries not in use, until the cache fits its maximum size.
+     */
+    private void evict() throws IOException {
+        final long now = System.currentTimeMillis();
+        final List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                final String name = child.getFileName().toString();
+                try {
+                    if (name.contains(TEMPORARY)) {
+                        // left by an interrupted build
+                        if (Files.getLastModifiedTime(child).toMillis() < now - IN_USE_PERIOD) {
+                            FileUtils.deleteDirectory(child.toFile());
+                        }
+                        continue;
+                    }
+                    final Path sizeFile = child.resolve(SIZE);
+                    final long lastUsed = Files.getLastModifiedTime(sizeFile).toMillis();
+                    final long size =
+                            Long.parseLong(new String(Files.readAllBytes(sizeFile), StandardCharsets.US_ASCII).trim());
+                    entries.add(new Entry(name, size, lastUsed));
+                    total += size;
+                } catch (NoSuchFileException | NumberFormatException e) {
+                    // being unpacked or removed by a concurrent build
+                }
+            }
+        }
+
+        entries.sort((first, second) -> Long.compare(first.lastUsed, second.lastUsed));
+        for (Entry entry : entries) {
+            if (total <= maxSize) {
+                break;
+            }
+            if (used.contains(entry.name) || entry.lastUsed >= now - IN_USE_PERIOD) {
+                continue;
+            }
+            // moved out first, so that a partially removed entry is never used
+            final Path removed = directory.resolve(entry.name + TEMPORARY + "removed");
+            try {
+                Files.move(directory.resolve(entry.name), removed, StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException | FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // removed by a concurrent build
+                continue;
+            }
+            FileUtils.deleteDirectory(removed.toFile());
+            total -= entry.size;
+        }
+    }
+
+    private static boolean isZip(File archive) throws IOException {
+        if (!archive.isFile()) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(archive.toPath())) {
+            return in.read() == 'P' && in.read() == 'K';
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static final class Entry {
+        private final String name;
+
+        private final long size;
+
+        private final long lastUsed;
+
+        Entry(String name, long size, long lastUsed) {
+            this.name = name;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -36,6 +36,7 @@ import java.util.stream.Collectors;
 
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.artifact.DefaultArtifact;
 import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
 import org.apache.maven.artifact.versioning.VersionRange;
@@ -57,6 +58,7 @@ import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.graph.DependencyVisitor;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResult;
 import org.eclipse.aether.util.filter.DependencyFilterUtils;
@@ -98,7 +100,12 @@ public class DefaultDependencyResolver implements DependencyResolver {
 
             final ResolutionManagementInfo info = new ResolutionManagementInfo();
             updateDependencySetResolutionRequirements(
-                    configSource.getMavenSession().getRepositorySession(), dependencySet, info, currentProject);
+                    configSource.getMavenSession().getRepositorySession(),
+                    configSource.isDependencySnapshot(),
+                    configSource.getResolvedDependencies(),
+                    dependencySet,
+                    info,
+                    currentProject);
             updateModuleSetResolutionRequirements(moduleSet, dependencySet, info, configSource);
 
             result.put(dependencySet, info.getArtifacts());
@@ -120,7 +127,12 @@ public class DefaultDependencyResolver implements DependencyResolver {
 
             final ResolutionManagementInfo info = new ResolutionManagementInfo();
             updateDependencySetResolutionRequirements(
-                    configSource.getMavenSession().getRepositorySession(), dependencySet, info, currentProject);
+                    configSource.getMavenSession().getRepositorySession(),
+                    configSource.isDependencySnapshot(),
+                    configSource.getResolvedDependencies(),
+                    dependencySet,
+                    info,
+                    currentProject);
 
             result.put(dependencySet, info.getArtifacts());
         }
@@ -152,6 +164,8 @@ public class DefaultDependencyResolver implements DependencyResolver {
             if (binaries.isIncludeDependencies()) {
                 updateDependencySetResolutionRequirements(
                         configSource.getMavenSession().getRepositorySession(),
+                        configSource.isDependencySnapshot(),
+                        configSource.getResolvedDependencies(),
                         dependencySet,
                         requirements,
                         projects.toArray(new MavenProject[0]));
@@ -181,6 +195,36 @@ public class DefaultDependencyResolver implements DependencyResolver {
             final ResolutionManagementInfo requirements,
             final MavenProject... projects)
             throws DependencyResolutionException {
+        updateDependencySetResolutionRequirements(systemSession, false, set, requirements, projects);
+    }
+
+    /**
+     * @param snapshot whether the transitive dependencies are kept in a snapshot to skip their resolution in the next
+     *            builds, see {@link DependencySnapshot}
+     */
+    void updateDependencySetResolutionRequirements(
+            RepositorySystemSession systemSession,
+            final boolean snapshot,
+            final DependencySet set,
+            final ResolutionManagementInfo requirements,
+            final MavenProject... projects)
+            throws DependencyResolutionException {
+        updateDependencySetResolutionRequirements(systemSession, snapshot, null, set, requirements, projects);
+    }
+
+    /**
+     * @param snapshot whether the transitive dependencies are kept in a snapshot to skip their resolution in the next
+     *            builds, see {@link DependencySnapshot}
+     * @param resolved the transitive dependencies resolved so far, by project and scope, null to resolve them again
+     */
+    void updateDependencySetResolutionRequirements(
+            RepositorySystemSession systemSession,
+            final boolean snapshot,
+            final Map<String, Set<Artifact>> resolved,
+            final DependencySet set,
+            final ResolutionManagementInfo requirements,
+            final MavenProject... projects)
+            throws DependencyResolutionException {
         for (final MavenProject project : projects) {
             if (project == null) {
                 continue;
@@ -190,7 +234,7 @@ public class DefaultDependencyResolver implements DependencyResolver {
             if (set.isUseTransitiveDependencies()) {
                 try {
                     // we need resolve project again according to requested scope
-                    dependencyArtifacts = resolveTransitive(systemSession, set.getScope(), project);
+                    dependencyArtifacts = resolveTransitive(systemSession, set.getScope(), project, snapshot, resolved);
                 } catch (org.eclipse.aether.resolution.DependencyResolutionException e) {
                     throw new DependencyResolutionException(e.getMessage(), e);
                 }
@@ -210,7 +254,33 @@ public class DefaultDependencyResolver implements DependencyResolver {
     }
 
     private Set<Artifact> resolveTransitive(
-            RepositorySystemSession repositorySession, String scope, MavenProject project)
+            RepositorySystemSession repositorySession,
+            String scope,
+            MavenProject project,
+            boolean snapshot,
+            Map<String, Set<Artifact>> resolved)
+            throws org.eclipse.aether.resolution.DependencyResolutionException {
+        if (resolved == null) {
+            return resolveTransitive(repositorySession, scope, project, snapshot);
+        }
+        final String key = project.getId() + ':' + scope;
+        Set<Artifact> artifacts = resolved.get(key);
+        if (artifacts == null) {
+            artifacts = resolveTransitive(repositorySession, scope, project, snapshot);
+            resolved.put(key, artifacts);
+        } else {
+            LOGGER.debug("Dependencies of project {} in scope {} already resolved", project.getId(), scope);
+        }
+        // copies, as the artifacts are changed by the assembly phases
+        final Set<Artifact> copies = new HashSet<>();
+        for (Artifact artifact : artifacts) {
+            copies.add(ArtifactUtils.copyArtifact(artifact));
+        }
+        return copies;
+    }
+
+    private Set<Artifact> resolveTransitive(
+            RepositorySystemSession repositorySession, String scope, MavenProject project, boolean snapshot)
             throws org.eclipse.aether.resolution.DependencyResolutionException {
 
         // scope dependency filter
@@ -229,6 +299,26 @@ public class DefaultDependencyResolver implements DependencyResolver {
                         .collect(Collectors.toList()))
                 .orElse(null);
 
+        final DependencySnapshot dependencySnapshot = snapshot
+                ? DependencySnapshot.of(
+                        project,
+                        scope,
+                        dependencies,
+                        managedDependencies,
+                        project.getRemoteProjectRepositories(),
+                        repositorySession.getLocalRepository() != null
+                                ? repositorySession.getLocalRepository().getBasedir()
+                                : null)
+                : null;
+        if (dependencySnapshot != null
+                && !RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals(repositorySession.getUpdatePolicy())) {
+            final Set<Artifact> artifacts = dependencySnapshot.load();
+            if (artifacts != null) {
+                LOGGER.debug("Dependencies of project {} in scope {} loaded from snapshot", project.getId(), scope);
+                return artifacts;
+            }
+        }
+
         CollectRequest collectRequest = new CollectRequest();
         collectRequest.setManagedDependencies(managedDependencies);
         collectRequest.setRepositories(project.getRemoteProjectRepositories());
@@ -245,6 +335,8 @@ public class DefaultDependencyResolver implements DependencyResolver {
         stack.push(project.getArtifact().getId());
 
         Set<Artifact> artifacts = new HashSet<>();
+        List<Dependency> resolved = new ArrayList<>();
+        List<List<String>> trails = new ArrayList<>();
 
         // we need rebuild artifact dependencyTrail - it is used by useTransitiveFiltering
         dependencyResult.getRoot().accept(new DependencyVisitor() {
@@ -271,6 +363,8 @@ public class DefaultDependencyResolver implements DependencyResolver {
                         artifact.setOptional(dependency.isOptional());
                         artifact.setScope(dependency.getScope());
                         artifacts.add(artifact);
+                        resolved.add(dependency);
+                        trails.add(depTrail);
                     }
                     stack.pop();
                 }
@@ -278,6 +372,9 @@ public class DefaultDependencyResolver implements DependencyResolver {
             }
         });
 
+        if (dependencySnapshot != null) {
+            dependencySnapshot.store(resolved, trails);
+        }
         return artifacts;
     }
 }
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.artifact;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of the transitive dependencies of a project in a scope, kept in the build directory of the project.
+ * <p>
+ * The snapshot is keyed by a hash of the project, the scope, the dependencies, the managed dependencies, the
+ * repositories and the local repository, and is valid as long as the files of the artifacts and their POMs keep their
+ * size and last modification time. Projects depending on version ranges and graphs with snapshot versions are never
+ * kept, as their resolution may change without any of them changing, and neither are graphs with artifacts outside of
+ * the local repository or without a POM next to them, like the projects of the reactor or of a workspace, whose
+ * dependencies may change with a POM the snapshot does not know.
+ */
+final class DependencySnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DependencySnapshot.class);
+
+    private static final String DIRECTORY = "assembly-dependencies";
+
+    private static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final File file;
+
+    private final String key;
+
+    private final Path localRepository;
+
+    private DependencySnapshot(File file, String key, Path localRepository) {
+        this.file = file;
+        this.key = key;
+        this.localRepository = localRepository;
+    }
+
+    /**
+     * @return the snapshot of the dependencies of a project in a scope, null if they cannot be kept
+     */
+    static DependencySnapshot of(
+            MavenProject project,
+            String scope,
+            List<Dependency> dependencies,
+            List<Dependency> managedDependencies,
+            List<RemoteRepository> repositories,
+            File localRepository) {
+        if (project.getBuild() == null || project.getBuild().getDirectory() == null || localRepository == null) {
+            return null;
+        }
+        final Path local = localRepository.toPath().toAbsolutePath().normalize();
+        final StringBuilder key = new StringBuilder();
+        key.append(project.getId()).append('\n').append(scope).append('\n');
+        key.append(local).append('\n');
+        for (Dependency dependency : dependencies) {
+            if (isVersionRange(dependency.getArtifact().getVersion())) {
+                return null;
+            }
+            append(key, dependency);
+        }
+        key.append("managed\n");
+        if (managedDependencies != null) {
+            for (Dependency dependency : managedDependencies) {
+                append(key, dependency);
+            }
+        }
+        if (repositories != null) {
+            for (RemoteRepository repository : repositories) {
+                key.append(repository.getId())
+                        .append(' ')
+                        .append(repository.getUrl())
+                        .append('\n');
+            }
+        }
+        final String name = (scope == null || scope.isEmpty() ? "default" : scope) + ".snapshot";
+        return new DependencySnapshot(
+                new File(project.getBuild().getDirectory(), DIRECTORY + "/" + name), hash(key), local);
+    }
+
+    private static boolean isVersionRange(String version) {
+        return version != null && (version.startsWith("[") || version.startsWith("("));
+    }
+
+    private static void append(StringBuilder key, Dependency dependency) {
+        final org.eclipse.aether.artifact.Artifact artifact = dependency.getArtifact();
+        key.append(artifact)
+                .append(' ')
+                .append(artifact.getProperties())
+                .append(' ')
+                .append(dependency.getScope())
+                .append(' ')
+                .append(dependency.getOptional());
+        for (Exclusion exclusion : dependency.getExclusions()) {
+            key.append(' ').append(exclusion);
+        }
+        key.append('\n');
+    }
+
+    private static String hash(CharSequence key) {
+        try {
+            final byte[] digest =
+                    MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the artifacts of the snapshot, null if there is no valid snapshot
+     */
+    Set<Artifact> load() {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE))) {
+            if (in.readInt() != VERSION || !key.equals(in.readUTF())) {
+                return null;
+            }
+            final int count = in.readInt();
+            final Set<Artifact> artifacts = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                final String groupId = in.readUTF();
+                final String artifactId = in.readUTF();
+                final String classifier = in.readUTF();
+                final String extension = in.readUTF();
+                final String version = in.readUTF();
+                final Map<String, String> properties = new HashMap<>();
+                for (int j = in.readInt(); j > 0; j--) {
+                    properties.put(in.readUTF(), in.readUTF());
+                }
+                final File artifactFile = new File(in.readUTF());
+                if (!isUnchanged(in, artifactFile) || !isUnchanged(in, pomFile(artifactFile, artifactId, version))) {
+                    LOGGER.debug("Dependency snapshot {} is stale: {} changed", file, artifactFile);
+                    return null;
+                }
+                final String scope = in.readUTF();
+                final boolean optional = in.readBoolean();
+                final List<String> trail = new ArrayList<>();
+                for (int j = in.readInt(); j > 0; j--) {
+                    trail.add(in.readUTF());
+                }
+
+                final Artifact artifact = RepositoryUtils.toArtifact(new DefaultArtifact(
+                        groupId, artifactId, classifier, extension, version, properties, artifactFile));
+                artifact.setDependencyTrail(trail);
+                artifact.setOptional(optional);
+                artifact.setScope(scope);
+                // like the resolution, the last visit of an artifact wins
+                artifacts.remove(artifact);
+                artifacts.add(artifact);
+            }
+            return artifacts;
+        } catch (IOException e) {
+            LOGGER.debug("Dependency snapshot {} cannot be read", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the resolved dependencies, unless one of them has a snapshot version, is outside of the local repository
+     * or has no POM next to it, in which case a previous snapshot is removed.
+     *
+     * @param dependencies The resolved dependencies
+     * @param trails       The dependency trails of the dependencies
+     */
+    void store(List<Dependency> dependencies, List<List<String>> trails) {
+        for (Dependency dependency : dependencies) {
+            final org.eclipse.aether.artifact.Artifact artifact = dependency.getArtifact();
+            if (artifact.isSnapshot()
+                    || !artifact.getFile().toPath().toAbsolutePath().normalize().startsWith(localRepository)
+                    || !pomFile(artifact.getFile(), artifact.getArtifactId(), artifact.getVersion())
+                            .isFile()) {
+                LOGGER.debug("Dependency snapshot {} is not kept: {} may change with its POM", file, artifact);
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    LOGGER.debug("Dependency snapshot {} cannot be deleted", file, e);
+                }
+                return;
+            }
+        }
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE))) {
+                out.writeInt(VERSION);
+                out.writeUTF(key);
+                out.writeInt(dependencies.size());
+                for (int i = 0; i < dependencies.size(); i++) {
+                    final Dependency dependency = dependencies.get(i);
+                    final org.eclipse.aether.artifact.Artifact artifact = dependency.getArtifact();
+                    out.writeUTF(artifact.getGroupId());
+                    out.writeUTF(artifact.getArtifactId());
+                    out.writeUTF(artifact.getClassifier());
+                    out.writeUTF(artifact.getExtension());
+                    out.writeUTF(artifact.getVersion());
+                    out.writeInt(artifact.getProperties().size());
+                    for (Map.Entry<String, String> property :
+                            artifact.getProperties().entrySet()) {
+                        out.writeUTF(property.getKey());
+                        out.writeUTF(property.getValue());
+                    }
+                    out.writeUTF(artifact.getFile().getAbsolutePath());
+                    writeState(out, artifact.getFile());
+                    writeState(out, pomFile(artifact.getFile(), artifact.getArtifactId(), artifact.getVersion()));
+                    out.writeUTF(dependency.getScope());
+                    out.writeBoolean(dependency.isOptional());
+                    out.writeInt(trails.get(i).size());
+                    for (String id : trails.get(i)) {
+                        out.writeUTF(id);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Dependency snapshot {} cannot be written", file, e);
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+        }
+    }
+
+    /**
+     * @return the POM next to an artifact in the local repository
+     */
+    private static File pomFile(File artifactFile, String artifactId, String version) {
+        return new File(artifactFile.getParentFile(), artifactId + "-" + version + ".pom");
+    }
+
+    private static void writeState(DataOutputStream out, File file) throws IOException {
+        out.writeLong(file.exists() ? file.length() : -1);
+        out.writeLong(file.exists() ? file.lastModified() : -1);
+    }
+
+    private static boolean isUnchanged(DataInputStream in, File file) throws IOException {
+        final long size = in.readLong();
+        final long lastModified = in.readLong();
+        return size == (file.exists() ? file.length() : -1)
+                && lastModified == (file.exists() ? file.lastModified() : -1);
+    }
+}
@@ -22,13 +22,13 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.nio.file.Files;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.maven.plugins.assembly.utils.AssemblyFileUtils;
 import org.codehaus.plexus.archiver.Archiver;
@@ -39,7 +39,7 @@ import org.codehaus.plexus.components.io.fileselectors.FileInfo;
 
 abstract class AbstractLineAggregatingHandler implements ContainerDescriptorHandler {
 
-    private Map<String, List<String>> catalog = new HashMap<>();
+    private Map<String, Set<String>> catalog = new HashMap<>();
 
     private boolean excludeOverride = false;
 
@@ -66,22 +66,14 @@ abstract class AbstractLineAggregatingHandler implements ContainerDescriptorHand
     }
 
     void addToArchive(final Archiver archiver) {
-        for (final Map.Entry<String, List<String>> entry : catalog.entrySet()) {
+        for (final Map.Entry<String, Set<String>> entry : catalog.entrySet()) {
             final String name = entry.getKey();
             final String fname = new File(name).getName();
 
-            File f;
+            final byte[] content;
             try {
-                f = Files.createTempFile("assembly-" + fname, ".tmp").toFile();
-                f.deleteOnExit();
-
-                try (PrintWriter writer =
-                        new PrintWriter(new OutputStreamWriter(Files.newOutputStream(f.toPath()), getEncoding()))) {
-                    for (final String line : entry.getValue()) {
-                        writer.println(line);
-                    }
-                }
-            } catch (final IOException e) {
+                content = toContent(entry.getValue());
+            } catch (final UnsupportedEncodingException e) {
                 throw new ArchiverException(
                         "Error adding aggregated content for: " + fname + " to finalize archive creation. Reason: "
                                 + e.getMessage(),
@@ -89,11 +81,21 @@ abstract class AbstractLineAggregatingHandler implements ContainerDescriptorHand
             }
 
             excludeOverride = true;
-            archiver.addFile(f, name);
+            archiver.addResource(new InMemoryResource(name, content), name, archiver.getOverrideFileMode());
             excludeOverride = false;
         }
     }
 
+    private byte[] toContent(final Set<String> lines) throws UnsupportedEncodingException {
+        // every line is terminated by the platform line separator, like PrintWriter.println() does
+        final String lineSeparator = System.lineSeparator();
+        final StringBuilder content = new StringBuilder();
+        for (final String line : lines) {
+            content.append(line).append(lineSeparator);
+        }
+        return content.toString().getBytes(getEncoding());
+    }
+
     @Override
     public void finalizeArchiveExtraction(final UnArchiver unArchiver) {}
 
@@ -112,7 +114,7 @@ abstract class AbstractLineAggregatingHandler implements ContainerDescriptorHand
 
         if (fileInfo.isFile() && fileMatches(fileInfo)) {
             name = getOutputPathPrefix(fileInfo) + new File(name).getName();
-            List<String> lines = catalog.computeIfAbsent(name, k -> new ArrayList<>());
+            Set<String> lines = catalog.computeIfAbsent(name, k -> new LinkedHashSet<>());
             readLines(fileInfo, lines);
             return false;
         }
@@ -120,21 +122,20 @@ abstract class AbstractLineAggregatingHandler implements ContainerDescriptorHand
         return true;
     }
 
-    void readLines(final FileInfo fileInfo, final List<String> lines) throws IOException {
+    void readLines(final FileInfo fileInfo, final Set<String> lines) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(fileInfo.getContents(), getEncoding()))) {
             for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                if (!lines.contains(line)) {
-                    lines.add(line);
-                }
+                // insertion ordered, so the first occurrence of a line determines its position
+                lines.add(line);
             }
         }
     }
 
-    protected final Map<String, List<String>> getCatalog() {
+    protected final Map<String, Set<String>> getCatalog() {
         return catalog;
     }
 
-    protected final void setCatalog(final Map<String, List<String>> catalog) {
+    protected final void setCatalog(final Map<String, Set<String>> catalog) {
         this.catalog = catalog;
     }
 }
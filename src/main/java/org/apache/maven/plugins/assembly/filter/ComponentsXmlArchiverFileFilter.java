@@ -24,9 +24,12 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,9 +41,10 @@ import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.ResourceIterator;
 import org.codehaus.plexus.archiver.UnArchiver;
 import org.codehaus.plexus.components.io.fileselectors.FileInfo;
-import org.codehaus.plexus.util.xml.Xpp3Dom;
-import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
-import org.codehaus.plexus.util.xml.Xpp3DomWriter;
+import org.codehaus.plexus.util.xml.CompactXMLWriter;
+import org.codehaus.plexus.util.xml.XMLWriter;
+import org.codehaus.plexus.util.xml.pull.MXParser;
+import org.codehaus.plexus.util.xml.pull.XmlPullParser;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 /**
@@ -56,35 +60,92 @@ public class ComponentsXmlArchiverFileFilter implements ContainerDescriptorHandl
     // [jdcasey] Switched visibility to protected to allow testing. Also, because this class isn't final, it should
     // allow
     // some minimal access to the components accumulated for extending classes.
-    Map<String, Xpp3Dom> components;
+    /**
+     * Compact serialized <code>component</code> elements, keyed by role and role-hint; the first one wins.
+     */
+    Map<String, String> components;
 
     private boolean excludeOverride = false;
 
+    /**
+     * Streams the components of a <code>components.xml</code>: only the components not yet known are kept, as
+     * compact XML fragments. Like {@link org.codehaus.plexus.util.xml.Xpp3DomBuilder}, text is trimmed and comments
+     * are dropped.
+     */
     void addComponentsXml(final Reader componentsReader) throws XmlPullParserException, IOException {
-        Xpp3Dom newDom = Xpp3DomBuilder.build(componentsReader);
-
-        if (newDom != null) {
-            newDom = newDom.getChild("components");
+        final XmlPullParser parser = new MXParser();
+        parser.setInput(componentsReader);
+
+        // component-set/components/*, only the first components element counts
+        boolean componentsSeen = false;
+        boolean inComponents = false;
+        for (int event = parser.next(); event != XmlPullParser.END_DOCUMENT; event = parser.next()) {
+            if (event == XmlPullParser.START_TAG) {
+                if (inComponents && parser.getDepth() == 3) {
+                    readComponent(parser);
+                } else if (!componentsSeen && parser.getDepth() == 2 && "components".equals(parser.getName())) {
+                    componentsSeen = true;
+                    inComponents = true;
+                }
+            } else if (event == XmlPullParser.END_TAG && parser.getDepth() == 2) {
+                inComponents = false;
+            }
         }
+    }
 
-        if (newDom != null) {
-            final Xpp3Dom[] children = newDom.getChildren();
-
-            for (final Xpp3Dom component : children) {
-                if (components == null) {
-                    components = new LinkedHashMap<>();
+    /**
+     * Serializes the element the parser is positioned at, up to its end tag, and adds it if its role and role-hint
+     * are new.
+     */
+    private void readComponent(final XmlPullParser parser) throws XmlPullParserException, IOException {
+        final int componentDepth = parser.getDepth();
+        final StringWriter fragment = new StringWriter();
+        final XMLWriter writer = new CompactXMLWriter(fragment);
+        // text and whether child elements were seen, for every open element
+        final Deque<StringBuilder> texts = new ArrayDeque<>();
+        final Deque<Boolean> hasChildren = new ArrayDeque<>();
+        String role = null;
+        String roleHint = "";
+
+        int event = XmlPullParser.START_TAG;
+        do {
+            if (event == XmlPullParser.START_TAG) {
+                if (!hasChildren.isEmpty()) {
+                    hasChildren.pop();
+                    hasChildren.push(Boolean.TRUE);
                 }
-
-                final String role = component.getChild("role").getValue();
-                final Xpp3Dom child = component.getChild("role-hint");
-                final String roleHint = child != null ? child.getValue() : "";
-
-                final String key = role + roleHint;
-                if (!components.containsKey(key)) {
-                    components.put(key, component);
+                writer.startElement(parser.getName());
+                for (int i = 0; i < parser.getAttributeCount(); i++) {
+                    writer.addAttribute(parser.getAttributeName(i), parser.getAttributeValue(i));
+                }
+                texts.push(new StringBuilder());
+                hasChildren.push(Boolean.FALSE);
+            } else if (event == XmlPullParser.TEXT) {
+                texts.peek().append(parser.getText());
+            } else if (event == XmlPullParser.END_TAG) {
+                final String text = texts.pop().toString().trim();
+                if (!hasChildren.pop() && !text.isEmpty()) {
+                    writer.writeText(text);
+                }
+                writer.endElement();
+                if (parser.getDepth() == componentDepth + 1) {
+                    if ("role".equals(parser.getName())) {
+                        role = text;
+                    } else if ("role-hint".equals(parser.getName())) {
+                        roleHint = text;
+                    }
+                }
+                if (parser.getDepth() == componentDepth) {
+                    break;
                 }
             }
+            event = parser.next();
+        } while (event != XmlPullParser.END_DOCUMENT);
+
+        if (components == null) {
+            components = new LinkedHashMap<>();
         }
+        components.putIfAbsent(role + roleHint, fragment.toString());
     }
 
     private void addToArchive(final Archiver archiver) throws IOException {
@@ -95,15 +156,13 @@ public class ComponentsXmlArchiverFileFilter implements ContainerDescriptorHandl
             try (Writer fileWriter = XmlStreamWriter.builder()
                     .setOutputStream(Files.newOutputStream(f.toPath()))
                     .get()) {
-                final Xpp3Dom dom = new Xpp3Dom("component-set");
-                final Xpp3Dom componentDom = new Xpp3Dom("components");
-                dom.addChild(componentDom);
-
-                for (final Xpp3Dom component : components.values()) {
-                    componentDom.addChild(component);
+                fileWriter.write("<component-set>\n  <components>\n");
+                for (final String component : components.values()) {
+                    fileWriter.write("    ");
+                    fileWriter.write(component);
+                    fileWriter.write("\n");
                 }
-
-                Xpp3DomWriter.write(fileWriter, dom);
+                fileWriter.write("  </components>\n</component-set>\n");
             }
 
             excludeOverride = true;
@@ -24,4 +24,9 @@ import org.codehaus.plexus.components.io.fileselectors.FileSelector;
 /**
  *
  */
-public interface ContainerDescriptorHandler extends ArchiveFinalizer, FileSelector {}
+public interface ContainerDescriptorHandler extends ArchiveFinalizer, FileSelector {
+    /**
+     * Called once the archive is written, or failed to be, as the handler is reused for the next archives.
+     */
+    default void archiveCreated() {}
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoResource;
+
+/**
+ * Aggregated content of a container descriptor handler, added to the archive without going through a temporary file.
+ */
+final class InMemoryResource extends AbstractPlexusIoResource {
+
+    private final byte[] content;
+
+    InMemoryResource(String name, byte[] content) {
+        super(name, System.currentTimeMillis(), content.length, true, false, true);
+        this.content = content;
+    }
+
+    @Override
+    public InputStream getContents() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public URL getURL() {
+        return null;
+    }
+}
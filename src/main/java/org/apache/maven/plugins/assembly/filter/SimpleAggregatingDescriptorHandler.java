@@ -20,47 +20,75 @@ package org.apache.maven.plugins.assembly.filter;
 
 import javax.inject.Named;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
-import java.io.StringWriter;
+import java.io.SequenceInputStream;
 import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.maven.plugins.assembly.utils.AssemblyFileUtils;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.UnArchiver;
 import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoResource;
 
 /**
  * <code>file-aggregator</code>: Generic aggregating handler, configured with filePattern and outputPath.
+ * <p>
+ * The aggregated content is kept in memory up to <code>spillThreshold</code> bytes and moved to a temporary file
+ * above it. Properties files are read as ISO-8859-1; other files, and the aggregated output unless it is a properties
+ * file, use the configured <code>encoding</code> (platform encoding if not set). The temporary file is deleted once
+ * the archive is created, and the handler starts again from nothing for the next archive.
  */
 @Named("file-aggregator")
 public class SimpleAggregatingDescriptorHandler implements ContainerDescriptorHandler {
+    private static final int DEFAULT_SPILL_THRESHOLD = 1024 * 1024;
+
     // component configuration.
 
     @SuppressWarnings("FieldCanBeLocal")
     private final String commentChars = "#";
 
-    private final StringWriter aggregateWriter = new StringWriter();
-
     private final List<String> filenames = new ArrayList<>();
 
     // calculated, temporary values.
 
     private String filePattern;
 
+    private Pattern compiledFilePattern;
+
     private String outputPath;
 
+    private String encoding;
+
+    private int spillThreshold = DEFAULT_SPILL_THRESHOLD;
+
+    private DeferredFileOutputStream aggregate;
+
+    private Writer aggregateWriter;
+
+    /**
+     * The temporary file the aggregate of the archive being created spilled to, null if none.
+     */
+    private File spilled;
+
     private boolean overrideFilterAction;
 
     @Override
@@ -77,22 +105,19 @@ public class SimpleAggregatingDescriptorHandler implements ContainerDescriptorHa
             outputPath = outputPath.substring(1);
         }
 
-        final File temp = writePropertiesFile();
+        final AbstractPlexusIoResource resource = createPropertiesResource();
 
         overrideFilterAction = true;
 
-        archiver.addFile(temp, outputPath);
+        archiver.addResource(resource, outputPath, archiver.getOverrideFileMode());
 
         overrideFilterAction = false;
     }
 
-    private File writePropertiesFile() {
-        File f;
+    private AbstractPlexusIoResource createPropertiesResource() {
         try {
-            f = Files.createTempFile("maven-assembly-plugin", "tmp").toFile();
-            f.deleteOnExit();
-
-            try (Writer writer = getWriter(f)) {
+            final ByteArrayOutputStream header = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(header, getOutputCharset())) {
                 writer.write(commentChars + " Aggregated on " + new Date() + " from: ");
 
                 for (final String filename : filenames) {
@@ -100,27 +125,63 @@ public class SimpleAggregatingDescriptorHandler implements ContainerDescriptorHa
                 }
 
                 writer.write("\n\n");
-                writer.write(aggregateWriter.toString());
             }
+
+            if (aggregateWriter != null) {
+                aggregateWriter.close();
+                if (!aggregate.isInMemory()) {
+                    spilled = aggregate.getFile();
+                }
+            }
+            final AggregatedResource resource = new AggregatedResource(outputPath, header.toByteArray(), aggregate);
+            // the next archive aggregates its own files
+            aggregate = null;
+            aggregateWriter = null;
+            filenames.clear();
+            return resource;
         } catch (final IOException e) {
             throw new ArchiverException(
                     "Error adding aggregated properties to finalize archive creation. Reason: " + e.getMessage(), e);
         }
+    }
 
-        return f;
+    private Charset getOutputCharset() {
+        if (AssemblyFileUtils.isPropertyFile(outputPath)) {
+            return StandardCharsets.ISO_8859_1;
+        }
+        return getCharset();
     }
 
-    private Writer getWriter(File f) throws IOException {
-        Writer writer;
-        writer = AssemblyFileUtils.isPropertyFile(f)
-                ? new OutputStreamWriter(Files.newOutputStream(f.toPath()), StandardCharsets.ISO_8859_1)
-                : new OutputStreamWriter(Files.newOutputStream(f.toPath())); // Still platform encoding
-        return writer;
+    private Charset getCharset() {
+        return encoding != null ? Charset.forName(encoding) : Charset.defaultCharset(); // platform encoding
     }
 
     @Override
     public void finalizeArchiveExtraction(final UnArchiver unarchiver) {}
 
+    @Override
+    public void archiveCreated() {
+        try {
+            if (aggregateWriter != null) {
+                // the archive failed before its finalization
+                aggregateWriter.close();
+                if (!aggregate.isInMemory()) {
+                    spilled = aggregate.getFile();
+                }
+            }
+            if (spilled != null) {
+                Files.deleteIfExists(spilled.toPath());
+            }
+        } catch (final IOException e) {
+            throw new ArchiverException("Error deleting aggregated file " + spilled + ": " + e.getMessage(), e);
+        } finally {
+            aggregate = null;
+            aggregateWriter = null;
+            spilled = null;
+            filenames.clear();
+        }
+    }
+
     @Override
     public List<String> getVirtualFiles() {
         checkConfig();
@@ -138,7 +199,7 @@ public class SimpleAggregatingDescriptorHandler implements ContainerDescriptorHa
 
         String name = AssemblyFileUtils.normalizeFileInfo(fileInfo);
 
-        if (fileInfo.isFile() && name.matches(filePattern)) {
+        if (fileInfo.isFile() && compiledFilePattern.matcher(name).matches()) {
             readProperties(fileInfo);
             filenames.add(name);
 
@@ -153,18 +214,26 @@ public class SimpleAggregatingDescriptorHandler implements ContainerDescriptorHa
             throw new IllegalStateException(
                     "You must configure filePattern and outputPath in your containerDescriptorHandler declaration.");
         }
+        if (compiledFilePattern == null) {
+            // the configurator may have injected the field directly
+            compiledFilePattern = Pattern.compile(filePattern);
+        }
     }
 
     private void readProperties(final FileInfo fileInfo) throws IOException {
-        try (StringWriter writer = new StringWriter();
-                Reader reader = AssemblyFileUtils.isPropertyFile(fileInfo.getName())
-                        ? new InputStreamReader(fileInfo.getContents(), StandardCharsets.ISO_8859_1)
-                        : new InputStreamReader(fileInfo.getContents())) // platform encoding
-        {
-            IOUtils.copy(reader, writer);
-            final String content = writer.toString();
+        if (aggregateWriter == null) {
+            aggregate = DeferredFileOutputStream.builder()
+                    .setThreshold(spillThreshold)
+                    .setPrefix("maven-assembly-plugin")
+                    .setSuffix(".tmp")
+                    .get();
+            aggregateWriter = new OutputStreamWriter(aggregate, getOutputCharset());
+        }
+        try (Reader reader = AssemblyFileUtils.isPropertyFile(fileInfo.getName())
+                ? new InputStreamReader(fileInfo.getContents(), StandardCharsets.ISO_8859_1)
+                : new InputStreamReader(fileInfo.getContents(), getCharset())) {
             aggregateWriter.write("\n");
-            aggregateWriter.write(content);
+            IOUtils.copy(reader, aggregateWriter);
         }
     }
 
@@ -176,6 +245,7 @@ public class SimpleAggregatingDescriptorHandler implements ContainerDescriptorHa
     @SuppressWarnings("UnusedDeclaration")
     public void setFilePattern(final String filePattern) {
         this.filePattern = filePattern;
+        this.compiledFilePattern = filePattern != null ? Pattern.compile(filePattern) : null;
     }
 
     @SuppressWarnings("UnusedDeclaration")
@@ -187,4 +257,63 @@ public class SimpleAggregatingDescriptorHandler implements ContainerDescriptorHa
     public void setOutputPath(final String outputPath) {
         this.outputPath = outputPath;
     }
+
+    @SuppressWarnings("UnusedDeclaration")
+    public String getEncoding() {
+        return encoding;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    public void setEncoding(final String encoding) {
+        this.encoding = encoding;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    public int getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    public void setSpillThreshold(final int spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * The header followed by the aggregated content, either in memory or in the temporary file it spilled to.
+     */
+    private static final class AggregatedResource extends AbstractPlexusIoResource {
+
+        private final byte[] header;
+
+        private final DeferredFileOutputStream aggregate;
+
+        AggregatedResource(String name, byte[] header, DeferredFileOutputStream aggregate) {
+            super(
+                    name,
+                    System.currentTimeMillis(),
+                    header.length + (aggregate != null ? aggregate.getByteCount() : 0),
+                    true,
+                    false,
+                    true);
+            this.header = header;
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        public InputStream getContents() throws IOException {
+            final InputStream headerStream = new ByteArrayInputStream(header);
+            if (aggregate == null) {
+                return headerStream;
+            }
+            final InputStream aggregateStream = aggregate.isInMemory()
+                    ? new ByteArrayInputStream(aggregate.getData())
+                    : Files.newInputStream(aggregate.getFile().toPath());
+            return new SequenceInputStream(headerStream, aggregateStream);
+        }
+
+        @Override
+        public URL getURL() {
+            return null;
+        }
+    }
 }
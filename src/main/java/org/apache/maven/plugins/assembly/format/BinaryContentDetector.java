@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.format;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.plexus.components.io.resources.PlexusIoFileResource;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+
+/**
+ * Classifies resources as text or binary by inspecting their first block of content, so that binary files in a
+ * filtered or line-ending converted fileSet can be passed through untouched.
+ * <p>
+ * A block is considered binary if it starts with a well known binary magic number, contains a NUL byte (unless it
+ * starts with a UTF-16/UTF-32 byte order mark), or if too many of its bytes are control characters or invalid UTF-8
+ * sequences. For wide encodings, like UTF-16 and UTF-32, in which text holds NUL bytes, only the magic numbers are
+ * checked. Results for file backed resources are cached by absolute path and encoding and validated against the file
+ * size and modification time, so that the same file is classified only once across formats and assemblies.
+ */
+public final class BinaryContentDetector {
+
+    /**
+     * Number of bytes inspected at the start of each resource.
+     */
+    static final int BLOCK_SIZE = 8192;
+
+    /**
+     * Upper bound of the classification cache; the cache is cleared once it is reached.
+     */
+    private static final int MAX_CACHE_ENTRIES = 65536;
+
+    /**
+     * Maximum percentage of suspicious bytes a text block may contain.
+     */
+    private static final int SUSPICIOUS_PERCENTAGE = 10;
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int ESCAPE = 0x1B;
+
+    private static final int DELETE = 0x7F;
+
+    /**
+     * Lead bytes of the valid two, three and four bytes UTF-8 sequences.
+     */
+    private static final int TWO_BYTES_LEAD_MIN = 0xC2;
+
+    private static final int TWO_BYTES_LEAD_MAX = 0xDF;
+
+    private static final int THREE_BYTES_LEAD_MIN = 0xE0;
+
+    private static final int THREE_BYTES_LEAD_MAX = 0xEF;
+
+    private static final int FOUR_BYTES_LEAD_MIN = 0xF0;
+
+    private static final int FOUR_BYTES_LEAD_MAX = 0xF4;
+
+    private static final int CONTINUATION_MASK = 0xC0;
+
+    private static final int CONTINUATION = 0x80;
+
+    /**
+     * Bytes of the UTF-16 byte order marks, in either order.
+     */
+    private static final byte BOM_HIGH = (byte) 0xFE;
+
+    private static final byte BOM_LOW = (byte) 0xFF;
+
+    private static final byte[][] MAGIC_NUMBERS = {
+        {'P', 'K', 3, 4}, // zip, jar, war, ear, docx...
+        {'P', 'K', 5, 6}, // empty zip
+        {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE}, // class file
+        {(byte) 0x89, 'P', 'N', 'G'},
+        {'G', 'I', 'F', '8'},
+        {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}, // jpeg
+        {'%', 'P', 'D', 'F', '-'},
+        {0x1F, (byte) 0x8B}, // gzip
+        {'B', 'Z', 'h'}, // bzip2
+        {(byte) 0xFD, '7', 'z', 'X', 'Z', 0}, // xz
+        {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD}, // zstd
+        {'7', 'z', (byte) 0xBC, (byte) 0xAF},
+        {'R', 'a', 'r', '!'},
+        {0x7F, 'E', 'L', 'F'},
+        {'w', 'O', 'F', 'F'},
+        {'w', 'O', 'F', '2'},
+        {'O', 'T', 'T', 'O'}, // OpenType font
+        {'R', 'I', 'F', 'F'} // wav, avi, webp
+    };
+
+    private static final Map<String, CacheEntry> CACHE = new ConcurrentHashMap<>();
+
+    private BinaryContentDetector() {
+        // prevent creations of instances.
+    }
+
+    /**
+     * Result of {@link #inspect(PlexusIoResource, InputStream, String)}.
+     */
+    public static final class Inspection {
+        private final InputStream stream;
+
+        private final boolean binary;
+
+        Inspection(InputStream stream, boolean binary) {
+            this.stream = stream;
+            this.binary = binary;
+        }
+
+        /**
+         * @return A stream delivering the full, unmodified content of the resource. Must be used instead of the stream
+         *         passed to {@link #inspect(PlexusIoResource, InputStream, String)}.
+         */
+        public InputStream getStream() {
+            return stream;
+        }
+
+        /**
+         * @return true if the resource is considered to be binary content.
+         */
+        public boolean isBinary() {
+            return binary;
+        }
+    }
+
+    /**
+     * Classifies the given resource, reading at most {@link #BLOCK_SIZE} bytes from the stream if the result is not
+     * cached already.
+     *
+     * @param resource    The resource being transformed, not null
+     * @param inputStream The content of the resource, not null
+     * @param encoding    The encoding the content is expected to be in, null for platform encoding
+     * @return The classification, together with the stream that must be used for further reading.
+     * @throws IOException if reading the first block fails
+     */
+    public static Inspection inspect(PlexusIoResource resource, InputStream inputStream, String encoding)
+            throws IOException {
+        final File file = resource instanceof PlexusIoFileResource ? ((PlexusIoFileResource) resource).getFile() : null;
+        final String key = file != null ? encoding + File.pathSeparator + file.getAbsolutePath() : null;
+        if (key != null) {
+            CacheEntry entry = CACHE.get(key);
+            if (entry != null && entry.matches(file)) {
+                return new Inspection(inputStream, entry.binary);
+            }
+        }
+
+        final BufferedInputStream buffered = new BufferedInputStream(inputStream, BLOCK_SIZE);
+        buffered.mark(BLOCK_SIZE);
+        final byte[] block = new byte[BLOCK_SIZE];
+        int length = 0;
+        int read;
+        while (length < BLOCK_SIZE && (read = buffered.read(block, length, BLOCK_SIZE - length)) != -1) {
+            length += read;
+        }
+        buffered.reset();
+
+        final boolean binary = isBinary(block, length, toCharset(encoding));
+        if (key != null) {
+            if (CACHE.size() >= MAX_CACHE_ENTRIES) {
+                CACHE.clear();
+            }
+            CACHE.put(key, new CacheEntry(file.length(), file.lastModified(), binary));
+        }
+        return new Inspection(buffered, binary);
+    }
+
+    /**
+     * Classifies a block of content.
+     *
+     * @param block       The first bytes of the content
+     * @param length      The number of valid bytes in the block
+     * @param charset     The encoding the content is expected to be in, null if it is not supported
+     * @return true if the block looks like binary content.
+     */
+    static boolean isBinary(byte[] block, int length, Charset charset) {
+        if (length == 0) {
+            return false;
+        }
+        for (byte[] magic : MAGIC_NUMBERS) {
+            if (startsWith(block, length, magic)) {
+                return true;
+            }
+        }
+        if (hasWideBom(block, length) || isWide(charset)) {
+            return false;
+        }
+
+        // invalid UTF-8 sequences count as suspicious bytes
+        final boolean checkUtf8 = StandardCharsets.UTF_8.equals(charset);
+        int suspicious = 0;
+        int i = 0;
+        while (i < length) {
+            final int b = block[i] & BYTE_MASK;
+            if (b == 0) {
+                return true;
+            }
+            if (b < 0x80) {
+                if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != '\b' && b != ESCAPE
+                        || b == DELETE) {
+                    suspicious++;
+                }
+                i++;
+                continue;
+            }
+            if (!checkUtf8) {
+                i++;
+                continue;
+            }
+            final int sequenceLength = utf8SequenceLength(block, i, length);
+            if (sequenceLength < 0) {
+                // truncated by the end of the block, which is not an indication of binary content
+                break;
+            } else if (sequenceLength == 0) {
+                suspicious++;
+                i++;
+            } else {
+                i += sequenceLength;
+            }
+        }
+        return suspicious * 100 > length * SUSPICIOUS_PERCENTAGE;
+    }
+
+    /**
+     * @return the length of the valid UTF-8 sequence at {@code offset}, 0 if it is invalid or -1 if it is cut off by
+     *         the end of the block.
+     */
+    private static int utf8SequenceLength(byte[] block, int offset, int length) {
+        final int lead = block[offset] & BYTE_MASK;
+        final int sequenceLength;
+        if (lead >= TWO_BYTES_LEAD_MIN && lead <= TWO_BYTES_LEAD_MAX) {
+            sequenceLength = 2;
+        } else if (lead >= THREE_BYTES_LEAD_MIN && lead <= THREE_BYTES_LEAD_MAX) {
+            sequenceLength = 3;
+        } else if (lead >= FOUR_BYTES_LEAD_MIN && lead <= FOUR_BYTES_LEAD_MAX) {
+            sequenceLength = 4;
+        } else {
+            return 0;
+        }
+        for (int j = 1; j < sequenceLength; j++) {
+            if (offset + j >= length) {
+                return -1;
+            }
+            if ((block[offset + j] & CONTINUATION_MASK) != CONTINUATION) {
+                return 0;
+            }
+        }
+        return sequenceLength;
+    }
+
+    private static boolean hasWideBom(byte[] block, int length) {
+        return length >= 2
+                && ((block[0] == BOM_HIGH && block[1] == BOM_LOW) || (block[0] == BOM_LOW && block[1] == BOM_HIGH));
+    }
+
+    private static boolean startsWith(byte[] block, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (block[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if ASCII characters take more than one byte in the encoding, so that text holds NUL bytes.
+     */
+    private static boolean isWide(Charset charset) {
+        return charset != null && charset.canEncode() && "\n".getBytes(charset).length > 1;
+    }
+
+    private static Charset toCharset(String encoding) {
+        if (encoding == null) {
+            return Charset.defaultCharset();
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            // unsupported encodings are reported when the content is decoded
+            return null;
+        }
+    }
+
+    private static final class CacheEntry {
+        private final long length;
+
+        private final long lastModified;
+
+        private final boolean binary;
+
+        CacheEntry(long length, long lastModified, boolean binary) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.binary = binary;
+        }
+
+        boolean matches(File file) {
+            return file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+import org.apache.maven.plugins.assembly.utils.LineEndings;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.settings.io.xpp3.SettingsXpp3Writer;
+import org.apache.maven.shared.filtering.MavenReaderFilterRequest;
+
+/**
+ * Caches the output of filtered resources on disk, so that a resource is filtered only once as long as neither its
+ * content nor anything filtering depends on changes.
+ * <p>
+ * Entries are keyed by the SHA-256 of the resource content combined with a digest of the filtering context: the
+ * project model, its base directory and POM file, the settings, the session user and system properties (which include
+ * the environment), the content of the filter files, the additional properties, the delimiters, the escape string,
+ * the escaping of Windows paths and the line ending. The encoding and whether the resource is a properties file are
+ * part of the key of every entry. Resources referencing <code>maven.build.timestamp</code>, or larger than
+ * {@link #MAX_CACHED_SIZE}, are always filtered.
+ * <p>
+ * The last modification time of an entry is its last use. At most once per {@link #CLEAN_UP_PERIOD}, the entries
+ * unused for {@link #MAX_UNUSED_AGE} are removed, then the least recently used ones until the cache fits
+ * {@link #MAX_TOTAL_SIZE}.
+ */
+final class FilteredResourceCache {
+
+    /**
+     * Bumped whenever the filtering pipeline changes its output for the same input.
+     */
+    private static final String CACHE_VERSION = "2";
+
+    /**
+     * Resources are buffered in memory in order to compute their key, larger ones are not cached.
+     */
+    static final int MAX_CACHED_SIZE = 4 * 1024 * 1024;
+
+    static final long MAX_TOTAL_SIZE = 256L * 1024 * 1024;
+
+    static final long MAX_UNUSED_AGE = TimeUnit.DAYS.toMillis(30);
+
+    static final long CLEAN_UP_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Marks the last clean-up of the cache directory by its last modification time.
+     */
+    static final String CLEAN_UP_MARKER = "last-clean-up";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final byte[] BUILD_TIMESTAMP = "maven.build.timestamp".getBytes(StandardCharsets.US_ASCII);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+
+    private final AssemblerConfigurationSource configSource;
+
+    private final LineEndings lineEnding;
+
+    private byte[] contextDigest;
+
+    /**
+     * Applies the filtering pipeline to the content of a resource.
+     */
+    interface Filter {
+        InputStream filter(InputStream source) throws IOException;
+    }
+
+    FilteredResourceCache(File directory, AssemblerConfigurationSource configSource, LineEndings lineEnding) {
+        this.directory = directory;
+        this.configSource = configSource;
+        this.lineEnding = lineEnding;
+    }
+
+    /**
+     * Removes the entries unused for too long, then the least recently used ones until the cache fits its maximum
+     * size, unless the cache was cleaned up recently.
+     *
+     * @param directory the cache directory
+     * @throws IOException if the cache directory cannot be listed
+     */
+    static void cleanUp(File directory) throws IOException {
+        final Path root = directory.toPath();
+        final Path marker = root.resolve(CLEAN_UP_MARKER);
+        final long now = System.currentTimeMillis();
+        try {
+            if (Files.getLastModifiedTime(marker).toMillis() > now - CLEAN_UP_PERIOD) {
+                return;
+            }
+            Files.setLastModifiedTime(marker, FileTime.fromMillis(now));
+        } catch (NoSuchFileException e) {
+            if (!Files.isDirectory(root)) {
+                return;
+            }
+            Files.write(marker, new byte[0]);
+        }
+
+        final List<Path> entries = new ArrayList<>();
+        final Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> buckets = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path bucket : buckets) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(bucket)) {
+                    for (Path file : files) {
+                        final BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                        } catch (NoSuchFileException e) {
+                            // removed by a concurrent build
+                            continue;
+                        }
+                        final long lastUsed = attrs.lastModifiedTime().toMillis();
+                        if (file.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+                            // left by an interrupted build, unless being written
+                            if (lastUsed < now - CLEAN_UP_PERIOD) {
+                                Files.deleteIfExists(file);
+                            }
+                        } else if (lastUsed < now - MAX_UNUSED_AGE) {
+                            Files.deleteIfExists(file);
+                        } else {
+                            entries.add(file);
+                            attributes.put(file, attrs);
+                            total += attrs.size();
+                        }
+                    }
+                }
+            }
+        }
+
+        entries.sort(Comparator.comparing(entry -> attributes.get(entry).lastModifiedTime()));
+        for (Path entry : entries) {
+            if (total <= MAX_TOTAL_SIZE) {
+                break;
+            }
+            Files.deleteIfExists(entry);
+            total -= attributes.get(entry).size();
+        }
+    }
+
+    /**
+     * @param source           The content of the resource, closed by this method or by the returned stream
+     * @param isPropertiesFile Whether the resource is filtered as a properties file
+     * @param encoding         The encoding the resource is filtered with, null for platform encoding
+     * @param filter           The filtering pipeline to apply on a cache miss
+     * @return the filtered content, served from the cache or stored into it while being read
+     * @throws IOException if the resource cannot be read or filtered
+     */
+    InputStream get(InputStream source, boolean isPropertiesFile, String encoding, Filter filter) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[BUFFER_SIZE];
+        int count;
+        while (buffer.size() <= MAX_CACHED_SIZE && (count = source.read(chunk)) != -1) {
+            buffer.write(chunk, 0, count);
+        }
+        final byte[] content = buffer.toByteArray();
+        if (content.length > MAX_CACHED_SIZE) {
+            return filter.filter(new SequenceInputStream(new ByteArrayInputStream(content), source));
+        }
+        source.close();
+        if (contains(content, BUILD_TIMESTAMP)) {
+            return filter.filter(new ByteArrayInputStream(content));
+        }
+
+        final MessageDigest digest = newDigest();
+        digest.update(getContextDigest());
+        update(digest, Boolean.toString(isPropertiesFile));
+        update(digest, encoding);
+        digest.update(newDigest().digest(content));
+        final String key = toHex(digest.digest());
+
+        final Path entry = directory.toPath().resolve(key.substring(0, 2)).resolve(key);
+        try {
+            final InputStream cached = Files.newInputStream(entry);
+            // the last use of the entry, for clean-up
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return cached;
+        } catch (NoSuchFileException e) {
+            // not cached yet
+        }
+        return new StoringInputStream(filter.filter(new ByteArrayInputStream(content)), entry);
+    }
+
+    private synchronized byte[] getContextDigest() throws IOException {
+        if (contextDigest == null) {
+            final MessageDigest digest = newDigest();
+            update(digest, CACHE_VERSION);
+
+            final MavenProject project = configSource.getProject();
+            try (Writer writer = new OutputStreamWriter(
+                    new DigestOutputStream(NullOutputStream.INSTANCE, digest), StandardCharsets.UTF_8)) {
+                new MavenXpp3Writer().write(writer, project.getModel());
+            }
+            update(digest, String.valueOf(project.getBasedir()));
+            update(digest, String.valueOf(project.getFile()));
+
+            final MavenSession session = configSource.getMavenSession();
+            if (session != null) {
+                update(digest, session.getUserProperties());
+                update(digest, session.getSystemProperties());
+            }
+            // for ${settings.*} expressions
+            final Settings settings = session != null ? session.getSettings() : null;
+            if (settings != null) {
+                try (Writer writer = new OutputStreamWriter(
+                        new DigestOutputStream(NullOutputStream.INSTANCE, digest), StandardCharsets.UTF_8)) {
+                    new SettingsXpp3Writer().write(writer, settings);
+                }
+            } else {
+                update(digest, (String) null);
+            }
+
+            final List<String> filters = new ArrayList<>();
+            if (configSource.getFilters() != null) {
+                filters.addAll(configSource.getFilters());
+            }
+            if (configSource.isIncludeProjectBuildFilters()) {
+                filters.addAll(project.getBuild().getFilters());
+            }
+            for (String filter : filters) {
+                update(digest, filter);
+                File filterFile = new File(filter);
+                if (!filterFile.isAbsolute() && project.getBasedir() != null) {
+                    filterFile = new File(project.getBasedir(), filter);
+                }
+                if (filterFile.isFile()) {
+                    digest.update(Files.readAllBytes(filterFile.toPath()));
+                }
+            }
+
+            update(digest, configSource.getAdditionalProperties());
+            update(digest, configSource.getEscapeString());
+            update(digest, String.valueOf(configSource.getDelimiters()));
+            update(digest, Boolean.toString(configSource.isIncludeProjectBuildFilters()));
+            // the escaping of paths is left to the defaults of the filtering requests
+            final MavenReaderFilterRequest defaults = new MavenReaderFilterRequest();
+            update(digest, Boolean.toString(defaults.isEscapeWindowsPaths()));
+            update(digest, Boolean.toString(defaults.isEscapedBackslashesInFilePath()));
+            update(digest, lineEnding.name());
+            contextDigest = digest.digest();
+        }
+        return contextDigest;
+    }
+
+    private static void update(MessageDigest digest, Properties properties) {
+        if (properties == null) {
+            update(digest, (String) null);
+            return;
+        }
+        final Map<String, String> sorted = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            sorted.put(name, properties.getProperty(name));
+        }
+        update(digest, Integer.toString(sorted.size()));
+        for (Map.Entry<String, String> property : sorted.entrySet()) {
+            update(digest, property.getKey());
+            update(digest, property.getValue());
+        }
+    }
+
+    /**
+     * Length prefixed, so that consecutive values cannot be confused.
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static boolean contains(byte[] content, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= content.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (content[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Copies the filtered content into a temporary file while it is read, which becomes the cache entry once the end
+     * of the stream is reached. A partially read stream leaves no entry behind.
+     */
+    private static final class StoringInputStream extends InputStream {
+
+        private final InputStream filtered;
+
+        private final Path entry;
+
+        private final Path temp;
+
+        private final OutputStream out;
+
+        private boolean done = false;
+
+        StoringInputStream(InputStream filtered, Path entry) throws IOException {
+            this.filtered = filtered;
+            this.entry = entry;
+            Files.createDirectories(entry.getParent());
+            this.temp =
+                    Files.createTempFile(entry.getParent(), entry.getFileName().toString(), TEMPORARY_SUFFIX);
+            this.out = Files.newOutputStream(temp);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int c = filtered.read();
+            if (c == -1) {
+                store();
+            } else {
+                out.write(c);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int count = filtered.read(b, off, len);
+            if (count == -1) {
+                store();
+            } else {
+                out.write(b, off, count);
+            }
+            return count;
+        }
+
+        private void store() throws IOException {
+            if (!done) {
+                done = true;
+                out.close();
+                try {
+                    Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                filtered.close();
+            } finally {
+                if (!done) {
+                    done = true;
+                    out.close();
+                    Files.deleteIfExists(temp);
+                }
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.maven.plugins.assembly.format;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -103,6 +104,31 @@ public class ReaderFormatter {
         }
     }
 
+    private static InputStream filter(
+            InputStream in,
+            String encoding,
+            boolean isPropertyFile,
+            AssemblerConfigurationSource configSource,
+            LineEndings lineEndingToUse)
+            throws IOException {
+        Reader source = encoding != null
+                ? new InputStreamReader(in, encoding)
+                : new InputStreamReader(in); // wtf platform encoding ? TODO: Fix this
+        Reader filtered = createReaderFilter(
+                source,
+                configSource.getEscapeString(),
+                configSource.getDelimiters(),
+                configSource,
+                isPropertyFile,
+                configSource.getAdditionalProperties());
+        // convert the filtered characters, so that the content is encoded only once
+        filtered = LineEndingsUtils.lineEndingConverter(filtered, lineEndingToUse);
+        return ReaderInputStream.builder()
+                .setReader(filtered)
+                .setCharset(encoding)
+                .get();
+    }
+
     public static InputStreamTransformer getFileSetTransformers(
             final AssemblerConfigurationSource configSource,
             final boolean isFiltered,
@@ -114,6 +140,19 @@ public class ReaderFormatter {
         final boolean transformLineEndings = !LineEndings.keep.equals(lineEndingToUse);
 
         if (transformLineEndings || isFiltered) {
+            final File cacheDirectory = configSource.getFilteredResourcesCacheDirectory();
+            final FilteredResourceCache cache = isFiltered && cacheDirectory != null
+                    ? new FilteredResourceCache(cacheDirectory, configSource, lineEndingToUse)
+                    : null;
+            if (cache != null) {
+                try {
+                    FilteredResourceCache.cleanUp(cacheDirectory);
+                } catch (IOException e) {
+                    throw new AssemblyFormattingException(
+                            "Cannot clean up the filtered resources cache " + cacheDirectory + ": " + e.getMessage(),
+                            e);
+                }
+            }
             return new InputStreamTransformer() {
                 @Override
                 public InputStream transform(PlexusIoResource plexusIoResource, InputStream inputStream)
@@ -125,28 +164,28 @@ public class ReaderFormatter {
                         }
                     }
 
-                    InputStream result = inputStream;
-                    if (isFiltered) {
-                        boolean isPropertyFile = AssemblyFileUtils.isPropertyFile(plexusIoResource.getName());
-                        final String encoding = isPropertyFile ? "ISO-8859-1" : configSource.getEncoding();
-
-                        Reader source = encoding != null
-                                ? new InputStreamReader(inputStream, encoding)
-                                : new InputStreamReader(inputStream); // wtf platform encoding ? TODO: Fix this
-                        Reader filtered = createReaderFilter(
-                                source,
-                                configSource.getEscapeString(),
-                                configSource.getDelimiters(),
-                                configSource,
-                                isPropertyFile,
-                                configSource.getAdditionalProperties());
-                        result = ReaderInputStream.builder()
-                                .setReader(filtered)
-                                .setCharset(encoding)
-                                .get();
-                    }
+                    final boolean isPropertyFile = AssemblyFileUtils.isPropertyFile(plexusIoResource.getName());
+                    final String encoding = isPropertyFile ? "ISO-8859-1" : configSource.getEncoding();
+
                     if (transformLineEndings) {
                         checkifFileTypeIsAppropriateForLineEndingTransformation(plexusIoResource);
+                    }
+                    InputStream result = inputStream;
+                    if (configSource.isDetectBinaryFiles()) {
+                        BinaryContentDetector.Inspection inspection =
+                                BinaryContentDetector.inspect(plexusIoResource, inputStream, encoding);
+                        result = inspection.getStream();
+                        if (inspection.isBinary()) {
+                            return result;
+                        }
+                    }
+                    if (isFiltered) {
+                        FilteredResourceCache.Filter filter =
+                                in -> filter(in, encoding, isPropertyFile, configSource, lineEndingToUse);
+                        result = cache != null
+                                ? cache.get(result, isPropertyFile, encoding, filter)
+                                : filter.filter(result);
+                    } else if (transformLineEndings) {
                         result = LineEndingsUtils.lineEndingConverter(result, lineEndingToUse);
                     }
                     return result;
@@ -33,6 +33,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.XmlStreamReader;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
@@ -70,6 +71,8 @@ import org.slf4j.LoggerFactory;
 public class DefaultAssemblyReader implements AssemblyReader {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultAssemblyReader.class);
 
+    private final DescriptorCache descriptorCache = new DescriptorCache();
+
     public static FixedStringSearchInterpolator createProjectInterpolator(MavenProject project) {
         // CHECKSTYLE_OFF: LineLength
         return FixedStringSearchInterpolator.create(
@@ -237,10 +240,8 @@ public class DefaultAssemblyReader implements AssemblyReader {
         try (Reader r = XmlStreamReader.builder()
                 .setInputStream(location.getInputStream())
                 .get()) {
-            File dir = null;
-            if (location.getFile() != null) {
-                dir = location.getFile().getParentFile();
-            }
+            final File file = getLocalFile(location);
+            final File dir = file != null ? file.getParentFile() : null;
 
             final Assembly assembly = readAssembly(r, spec, dir, configSource);
 
@@ -252,6 +253,19 @@ public class DefaultAssemblyReader implements AssemblyReader {
         }
     }
 
+    /**
+     * @return the local file of a location, null if it has none, like classpath resources in jars
+     */
+    private static File getLocalFile(final Location location) throws IOException {
+        if (location instanceof FileLocation) {
+            return location.getFile();
+        }
+        if (location instanceof URLLocation) {
+            return ((URLLocation) location).getLocalFile();
+        }
+        return null;
+    }
+
     public Assembly readAssembly(
             Reader reader,
             final String locationDescription,
@@ -273,13 +287,22 @@ public class DefaultAssemblyReader implements AssemblyReader {
             AssemblyXpp3Reader.ContentTransformer transformer =
                     AssemblyInterpolator.assemblyInterpolator(interpolator, is, LOGGER);
 
-            final AssemblyXpp3Reader r = new AssemblyXpp3Reader(transformer);
-            assembly = r.read(reader);
+            // relative descriptors of different modules share their description
+            final String location = assemblyDir != null
+                    ? assemblyDir.getAbsolutePath() + File.pathSeparator + locationDescription
+                    : locationDescription;
+            assembly = descriptorCache.read(
+                    location,
+                    IOUtils.toString(reader),
+                    (in, t) -> new AssemblyXpp3Reader(t::transform).read(in),
+                    transformer::transform);
 
             ComponentXpp3Reader.ContentTransformer ctrans =
                     AssemblyInterpolator.componentInterpolator(interpolator, is, LOGGER);
             mergeComponentsWithMainAssembly(assembly, assemblyDir, configSource, ctrans);
-            debugPrintAssembly("After assembly is interpolated:", assembly);
+            if (LOGGER.isDebugEnabled()) {
+                debugPrintAssembly("After assembly is interpolated:", assembly);
+            }
 
             AssemblyInterpolator.checkErrors(AssemblyId.createAssemblyId(assembly), is, LOGGER);
 
@@ -351,7 +374,11 @@ public class DefaultAssemblyReader implements AssemblyReader {
 
             Component component = null;
             try (Reader reader = new InputStreamReader(resolvedLocation.getInputStream())) {
-                component = new ComponentXpp3Reader(transformer).read(reader);
+                component = descriptorCache.read(
+                        resolvedLocation.getSpecification(),
+                        IOUtils.toString(reader),
+                        (in, t) -> new ComponentXpp3Reader(t::transform).read(in),
+                        transformer::transform);
             } catch (final IOException | XmlPullParserException e) {
                 throw new AssemblyReadException(
                         "Error reading component descriptor: " + location + " (resolved to: "
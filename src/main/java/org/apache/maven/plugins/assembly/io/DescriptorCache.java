@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugins.assembly.model.Assembly;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Cache of the descriptors and component descriptors read by {@link DefaultAssemblyReader}, so that a descriptor shared
+ * by the modules of a reactor is parsed only once.
+ * <p>
+ * A descriptor is parsed without interpolation into a template, kept by location as long as its content is the same.
+ * Each read copies the template, passing its string values through the interpolation of the project, which is what the
+ * readers do while parsing. Descriptors with expressions in values that are not strings, like booleans, are parsed
+ * with the interpolation every time, as their values depend on it.
+ */
+final class DescriptorCache {
+    /**
+     * Reads a model, passing its string values through a transformer.
+     */
+    interface Parser<T> {
+        T parse(Reader reader, Transformer transformer) throws IOException, XmlPullParserException;
+    }
+
+    /**
+     * The content transformer of the readers.
+     */
+    interface Transformer {
+        String transform(String source, String fieldName);
+    }
+
+    private static final String MODEL_PACKAGE = Assembly.class.getPackage().getName();
+
+    private static final String EXPRESSION = "${";
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @param location    The location of the descriptor, the cache key
+     * @param content     The content of the descriptor
+     * @param parser      The reader of the model
+     * @param transformer The interpolation of the project
+     * @return the interpolated model
+     */
+    <T> T read(String location, String content, Parser<T> parser, Transformer transformer)
+            throws IOException, XmlPullParserException {
+        Template template = templates.get(location);
+        if (template == null || !template.content.equals(content)) {
+            template = new Template(content, parse(content, parser));
+            templates.put(location, template);
+        }
+        if (template.model == null) {
+            return parser.parse(new StringReader(content), transformer);
+        }
+        @SuppressWarnings("unchecked")
+        final T model = (T) copy(template.model, transformer);
+        return model;
+    }
+
+    /**
+     * @return the model without interpolation, or null if its values depend on the interpolation
+     */
+    private static Object parse(String content, Parser<?> parser) {
+        final Map<String, Integer> expressions = new HashMap<>();
+        final Object model;
+        try {
+            model = parser.parse(new StringReader(content), (source, fieldName) -> {
+                if (source != null && source.contains(EXPRESSION)) {
+                    expressions.merge(source.trim(), 1, Integer::sum);
+                }
+                return source;
+            });
+        } catch (IOException | XmlPullParserException | RuntimeException e) {
+            // reported by the parse with the interpolation
+            return null;
+        }
+
+        // every expression must have ended in a string value, where the copies interpolate it
+        copy(model, (source, fieldName) -> {
+            if (source.contains(EXPRESSION)) {
+                expressions.computeIfPresent(source, (expression, count) -> count > 1 ? count - 1 : null);
+            }
+            return source;
+        });
+        return expressions.isEmpty() ? model : null;
+    }
+
+    private static Object copy(Object source, Transformer transformer) {
+        try {
+            final Object copy = source.getClass().getConstructor().newInstance();
+            for (Class<?> type = source.getClass(); type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    field.set(copy, copyValue(field.get(source), field.getName(), transformer));
+                }
+            }
+            return copy;
+        } catch (NoSuchMethodException
+                | InstantiationException
+                | IllegalAccessException
+                | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot copy " + source.getClass(), e);
+        }
+    }
+
+    private static Object copyValue(Object value, String fieldName, Transformer transformer) {
+        if (value instanceof String) {
+            // the encoding is the only string the readers do not transform
+            if ("modelEncoding".equals(fieldName)) {
+                return value;
+            }
+            final String transformed = transformer.transform((String) value, fieldName);
+            return transformed != null ? transformed.trim() : null;
+        }
+        if (value instanceof List) {
+            final List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                copy.add(copyValue(element, fieldName, transformer));
+            }
+            return copy;
+        }
+        if (value instanceof Xpp3Dom) {
+            return new Xpp3Dom((Xpp3Dom) value);
+        }
+        if (value != null && value.getClass().getName().startsWith(MODEL_PACKAGE + ".")) {
+            return copy(value, transformer);
+        }
+        return value;
+    }
+
+    private static final class Template {
+        private final String content;
+
+        private final Object model;
+
+        Template(String content, Object model) {
+            this.content = content;
+            this.model = model;
+        }
+    }
+}
@@ -18,27 +18,45 @@
  */
 package org.apache.maven.plugins.assembly.io;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 
 /**
- * The URL Location, storing the URL content to a temporary local file.
- *
+ * The URL Location, reading the URL content in memory.
+ * <p>
+ * The content of URLs backed by a local file, like classpath resources in directories or jars, is cached for the JVM
+ * as long as that file keeps its size and last modification time. The content is only stored to a temporary local file
+ * if {@link #getFile()} is called for a URL that is not a local file.
  */
-class URLLocation extends FileLocation {
+class URLLocation implements Location {
+
+    private static final Map<String, Content> CONTENTS = new ConcurrentHashMap<>();
 
     private final URL url;
 
+    private final String specification;
+
     private final String tempFilePrefix;
 
     private final String tempFileSuffix;
 
     private final boolean tempFileDeleteOnExit;
 
+    private File file;
+
+    private ByteArrayInputStream stream;
+
     /**
      * @param url the URL
      * @param specification the spec
@@ -48,26 +66,137 @@ class URLLocation extends FileLocation {
      */
     URLLocation(
             URL url, String specification, String tempFilePrefix, String tempFileSuffix, boolean tempFileDeleteOnExit) {
-        super(specification);
-
         this.url = url;
+        this.specification = specification;
         this.tempFilePrefix = tempFilePrefix;
         this.tempFileSuffix = tempFileSuffix;
         this.tempFileDeleteOnExit = tempFileDeleteOnExit;
     }
 
     @Override
-    protected void initFile() throws IOException {
-        if (unsafeGetFile() == null) {
+    public File getFile() throws IOException {
+        if (file == null && "file".equals(url.getProtocol())) {
+            file = backingFile(url);
+        }
+        if (file == null) {
             File tempFile = Files.createTempFile(tempFilePrefix, tempFileSuffix).toFile();
 
             if (tempFileDeleteOnExit) {
                 tempFile.deleteOnExit();
             }
 
-            IOUtils.copy(url, tempFile);
+            Files.write(tempFile.toPath(), content());
+
+            file = tempFile;
+        }
+        return file;
+    }
+
+    /**
+     * @return the local file of a <code>file:</code> URL, null for other URLs, whose content is never stored to a
+     *         temporary file by this method
+     */
+    File getLocalFile() {
+        return "file".equals(url.getProtocol()) ? backingFile(url) : null;
+    }
+
+    @Override
+    public String getSpecification() {
+        return specification;
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (stream == null) {
+            stream = new ByteArrayInputStream(content());
+        }
+    }
+
+    @Override
+    public void close() {
+        stream = null;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+        open();
+        final int length = Math.min(buffer.remaining(), stream.available());
+        if (length == 0) {
+            return buffer.hasRemaining() ? -1 : 0;
+        }
+        final byte[] bytes = new byte[length];
+        stream.read(bytes, 0, length);
+        buffer.put(bytes);
+        return length;
+    }
+
+    @Override
+    public int read(byte[] buffer) throws IOException {
+        open();
+        return stream.read(buffer, 0, buffer.length);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        open();
+        return stream;
+    }
+
+    private byte[] content() throws IOException {
+        final File backingFile = backingFile(url);
+        if (backingFile == null) {
+            return IOUtils.toByteArray(url);
+        }
+
+        final String key = url.toExternalForm();
+        final Content cached = CONTENTS.get(key);
+        if (cached != null && cached.isValid(backingFile)) {
+            return cached.bytes;
+        }
+        // the file is checked before it is read, so that a concurrent change is seen by the next read
+        final long length = backingFile.length();
+        final long lastModified = backingFile.lastModified();
+        final Content content = new Content(length, lastModified, IOUtils.toByteArray(url));
+        CONTENTS.put(key, content);
+        return content.bytes;
+    }
+
+    /**
+     * @return the local file holding the content of a URL, the archive for a jar entry, null if there is none
+     */
+    static File backingFile(URL url) {
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return new File(url.toURI());
+            }
+            if ("jar".equals(url.getProtocol())) {
+                final String path = url.getPath();
+                final int separator = path.indexOf("!/");
+                if (separator > 0) {
+                    return backingFile(new URL(path.substring(0, separator)));
+                }
+            }
+        } catch (MalformedURLException | URISyntaxException | IllegalArgumentException e) {
+            // not a local file
+        }
+        return null;
+    }
+
+    private static final class Content {
+        private final long length;
+
+        private final long lastModified;
+
+        private final byte[] bytes;
+
+        Content(long length, long lastModified, byte[] bytes) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.bytes = bytes;
+        }
 
-            setFile(tempFile);
+        boolean isValid(File backingFile) {
+            return length == backingFile.length() && lastModified == backingFile.lastModified();
         }
     }
 }
@@ -19,13 +19,18 @@
 package org.apache.maven.plugins.assembly.mojos;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import org.apache.maven.archiver.MavenArchiveConfiguration;
 import org.apache.maven.archiver.MavenArchiver;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -37,6 +42,7 @@ import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugins.assembly.archive.ArchiveCreationException;
 import org.apache.maven.plugins.assembly.archive.AssemblyArchiver;
+import org.apache.maven.plugins.assembly.archive.DeltaArchiveWriter;
 import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
 import org.apache.maven.plugins.assembly.io.AssemblyReadException;
 import org.apache.maven.plugins.assembly.io.AssemblyReader;
@@ -344,6 +350,11 @@ public abstract class AbstractAssemblyMojo extends AbstractMojo implements Assem
     /**
      * This will cause the assembly to only update an existing archive, if it exists.
      * <p>
+     * Zip archives are updated with their changed entries only: the state of their entries is kept in an index in the
+     * working directory, unchanged entries are copied from the existing archive without being compressed again, and
+     * entries which are no longer part of the assembly are removed.
+     * </p>
+     * <p>
      * <strong>Note:</strong> The property that can be used on the command line was misspelled as "assembly.updatOnly"
      * in versions prior to version 2.4.
      * </p>
@@ -402,6 +413,195 @@ public abstract class AbstractAssemblyMojo extends AbstractMojo implements Assem
     @Parameter(defaultValue = "${project.build.outputTimestamp}")
     private String outputTimestamp;
 
+    /**
+     * Set to <code>true</code> in order to classify every filtered or line-ending converted resource by inspecting its
+     * first block of content (NUL bytes, invalid UTF-8 sequences, well known magic numbers). Resources detected as
+     * binary, such as images, fonts or class files, are then copied untouched instead of being decoded as text.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.detectBinaryFiles", defaultValue = "false")
+    private boolean detectBinaryFiles;
+
+    /**
+     * Directory in which the output of filtered resources is cached, so that unchanged resources are not filtered
+     * again by later builds or other formats. An entry is reused only if the resource and everything filtering depends
+     * on are unchanged: the project model and location, the settings, the session and environment properties, the
+     * filter files, the additional properties, the delimiters, the escape string, the encoding and the line ending.
+     * Resources referencing <code>maven.build.timestamp</code> are always filtered. Entries unused for 30 days are
+     * removed, then the least recently used ones while the cache exceeds 256 MB. Caching is disabled if not set.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.filteredResourcesCacheDirectory")
+    private File filteredResourcesCacheDirectory;
+
+    /**
+     * How entries of file sets, dependency sets and module sets that are mapped to the same path in the archive are
+     * resolved, before any of them is read or compressed:
+     * <ul>
+     * <li><code>none</code>: duplicates are left to the archiver, which reads all of them</li>
+     * <li><code>first-wins</code>: the entry added first is kept</li>
+     * <li><code>last-wins</code>: the entry added last is kept; the entry names are scanned once before writing</li>
+     * <li><code>fail</code>: any duplicate fails the build</li>
+     * <li><code>skip-if-identical</code>: duplicates with the same content are skipped, others fail the build; every
+     * entry is hashed</li>
+     * </ul>
+     * Skipped duplicates are reported with the directory or archive they come from. Individually added files, such as
+     * <code>files</code> items, are not part of the index.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.duplicateEntryPolicy", defaultValue = "none")
+    private String duplicateEntryPolicy;
+
+    /**
+     * Runs the container descriptor handlers in a single iteration of the entries of the archive, instead of one
+     * iteration each before the archive is written, which saves time for assemblies with millions of entries. A
+     * handler then does not aggregate the files added by another handler. It does not reduce memory use: the entries
+     * are still all held in memory until the archive is written.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.combineHandlerIterations", defaultValue = "false")
+    private boolean combineHandlerIterations;
+
+    /**
+     * Number of threads reading, filtering and converting the line endings of the upcoming files of filtered or line
+     * ending converted file sets, while the archiver writes the current one. This helps with many small files, or a
+     * workspace on a network file system. The files are still written in the same order. 0 disables it.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.readAheadThreads", defaultValue = "0")
+    private int readAheadThreads;
+
+    /**
+     * A previous version of the assemblies, to create delta archives against. For each zip based archive, a delta
+     * archive named after it with a <code>-delta</code> suffix is created next to it, containing the entries added or
+     * changed since the baseline, and the names of the entries removed since the baseline in
+     * <code>META-INF/DELETED-ENTRIES.txt</code>. Entries are compared by the CRC and size recorded in the central
+     * directories of the archives, without extracting the baseline.
+     * <p>
+     * The baseline is either a directory holding the previous archives under the same names, or an archive, which is
+     * used for the archive of the same name, or for the only archive if a single one is created.
+     * </p>
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.deltaBaseline")
+    private File deltaBaseline;
+
+    /**
+     * How the <code>dir</code> format creates the files which are existing files as is, such as dependencies or
+     * files of unfiltered file sets:
+     * <ul>
+     * <li><code>copy</code>: files are copied</li>
+     * <li><code>hardlink</code>: files are hard links to their source, or copies where the source is on another file
+     * system</li>
+     * <li><code>reflink</code>: files are copied by the operating system, which clones them on file systems supporting
+     * it, such as btrfs or xfs</li>
+     * <li><code>symlink</code>: files are symbolic links to their source</li>
+     * </ul>
+     * Except for <code>copy</code>, these files are created by several threads. Linked files share their content,
+     * permissions and last modification time with their source, so changing them changes the source, e.g. in the
+     * local repository: only use links for directories which are not modified.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.dirLinkMode", defaultValue = "copy")
+    private String dirLinkMode;
+
+    /**
+     * Synchronizes the output directories of the <code>dir</code> format with the assemblies, instead of writing all
+     * files into them: only new or changed files are written, and files which are no longer part of an assembly are
+     * deleted. The state of the files is kept in the working directory to speed up the comparisons.
+     * <ul>
+     * <li><code>none</code>: all files are written and no file is deleted</li>
+     * <li><code>mtime</code>: files copied as is are compared by the size and last modification time of their source,
+     * filtered files and files of archives by their content</li>
+     * <li><code>checksum</code>: all files are compared by a checksum of their content</li>
+     * </ul>
+     * <strong>Note:</strong> any file of the output directory which is not part of the assembly is deleted.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.dirSync", defaultValue = "none")
+    private String dirSync;
+
+    /**
+     * Keeps the transitive dependencies resolved for dependency sets in a snapshot in the build directory of each
+     * project, and loads them from it in the next builds instead of collecting them again, as long as the dependencies,
+     * the managed dependencies and the repositories of the project, and the files of the artifacts and their POMs, did
+     * not change. Dependencies on version ranges or snapshot versions are always resolved, as are the dependencies
+     * reaching an artifact outside of the local repository, like a module of the reactor, and everything with
+     * <code>-U</code>.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.dependencySnapshot", defaultValue = "false")
+    private boolean dependencySnapshot;
+
+    /**
+     * The number of threads scanning the directories of file sets, instead of the single threaded scanner of the
+     * archivers. Subdirectories excluded as a whole, like <code>target/**</code>, are not walked, and the attributes of
+     * the files are read once. The listings of the directories are shared by the file sets, formats and assemblies of
+     * the build, as long as the directories are not modified. A value of 0 leaves the scans to the archivers.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.scanThreads", defaultValue = "0")
+    private int scanThreads;
+
+    /**
+     * Adds the files of file sets which are tracked by git only, as listed by the index of their git work tree,
+     * instead of all the files of their directories. Untracked directories, like <code>target</code> or
+     * <code>node_modules</code>, are then not walked, which suits source assemblies. The includes and excludes still
+     * apply to the tracked files, and the directories of file sets which hold no tracked files, like the build
+     * directory, are scanned as before. Work trees whose index cannot be fully read, like split or sparse indexes, are
+     * scanned as before too.
+     * <p>
+     * <strong>Note:</strong> new files are only added once they are added to the git index.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.useGitIndex", defaultValue = "false")
+    private boolean useGitIndex;
+
+    /**
+     * Adds the classes of the reactor modules of unpacked module binaries from their build output directory, like
+     * <code>target/classes</code>, instead of decompressing their jar, as long as the directory holds the files of the
+     * jar, with the same sizes, and none of them was modified after the jar. Otherwise the jar is unpacked as before.
+     * The entries of the jar which are not in the directory, like the manifest and the Maven descriptors under
+     * <code>META-INF</code>, are still added from the jar.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.useModuleOutputDirectories", defaultValue = "false")
+    private boolean useModuleOutputDirectories;
+
+    /**
+     * Directory in which the content of unpacked zip archives, like the dependencies and modules of unpacked sets, is
+     * cached, so that an archive is decompressed only once across assemblies, formats and builds, for example
+     * <code>${user.home}/.m2/assembly-unpack-cache</code>. Entries are keyed by the SHA-256 of the archive and added as
+     * file sets, which the <code>dir</code> format never links to the cache: with a <code>hardlink</code> or
+     * <code>symlink</code> <code>dirLinkMode</code>, they are copied like with <code>reflink</code>. Archives which are
+     * not zip archives are unpacked as before. Caching is disabled if not set.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.unpackCacheDirectory")
+    private File unpackCacheDirectory;
+
+    /**
+     * The maximum size of the unpack cache, in megabytes. Once exceeded, the least recently used entries are removed,
+     * except the ones used by the current build or by a build in the last minutes.
+     *
+     * @since 3.7.2
+     */
+    @Parameter(property = "assembly.unpackCacheMaxSize", defaultValue = "1024")
+    private int unpackCacheMaxSize;
+
     /**
      * Override of user ID in archive type which can store it.
      */
@@ -446,28 +646,69 @@ public abstract class AbstractAssemblyMojo extends AbstractMojo implements Assem
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        if (isSkipped()) {
+            return;
+        }
+
+        createAssemblies(readAssemblies(), attach);
+    }
 
+    /**
+     * @return whether the assemblies are skipped in this project
+     */
+    boolean isSkipped() {
         if (skipAssembly) {
             getLog().info("Assemblies have been skipped per configuration of the skipAssembly parameter.");
-            return;
+            return true;
         }
 
         // run only at the execution root.
         if (runOnlyAtExecutionRoot && !isThisTheExecutionRoot()) {
             getLog().info("Skipping the assembly in this project because it's not the Execution Root");
-            return;
+            return true;
         }
+        return false;
+    }
 
-        List<Assembly> assemblies;
+    /**
+     * @return the assemblies of the descriptors
+     */
+    List<Assembly> readAssemblies() throws MojoExecutionException, MojoFailureException {
         try {
-            assemblies = assemblyReader.readAssemblies(this);
+            return assemblyReader.readAssemblies(this);
         } catch (final AssemblyReadException e) {
             throw new MojoExecutionException("Error reading assemblies: " + e.getMessage(), e);
         } catch (final InvalidAssemblerConfigurationException e) {
             throw new MojoFailureException(
                     assemblyReader, e.getMessage(), "Mojo configuration is invalid: " + e.getMessage());
         }
+    }
+
+    /**
+     * @param assembly The assembly
+     * @return the formats to create the assembly in
+     */
+    List<String> getEffectiveFormats(final Assembly assembly) throws MojoFailureException {
+        List<String> effectiveFormats = formats;
+        if (effectiveFormats == null || effectiveFormats.isEmpty()) {
+            effectiveFormats = assembly.getFormats();
+        }
+        if (effectiveFormats == null || effectiveFormats.isEmpty()) {
+            throw new MojoFailureException(
+                    "No formats specified in the execution parameters or the assembly descriptor.");
+        }
+        return effectiveFormats;
+    }
 
+    /**
+     * Creates the assemblies in all their formats.
+     *
+     * @param assemblies      The assemblies
+     * @param attachArtifacts Whether the archives are attached to the project
+     * @return the archives created
+     */
+    List<File> createAssemblies(final List<Assembly> assemblies, final boolean attachArtifacts)
+            throws MojoExecutionException, MojoFailureException {
         // TODO: include dependencies marked for distribution under certain formats
         // TODO: how, might we plug this into an installer, such as NSIS?
 
@@ -475,27 +716,20 @@ public abstract class AbstractAssemblyMojo extends AbstractMojo implements Assem
                 .map(FileTime::from)
                 .orElse(null);
 
+        final List<File> destFiles = new ArrayList<>();
         boolean warnedAboutMainProjectArtifact = false;
         for (final Assembly assembly : assemblies) {
             try {
                 final String fullName = AssemblyFormatUtils.getDistributionName(assembly, this);
 
-                List<String> effectiveFormats = formats;
-                if (effectiveFormats == null || effectiveFormats.isEmpty()) {
-                    effectiveFormats = assembly.getFormats();
-                }
-                if (effectiveFormats == null || effectiveFormats.isEmpty()) {
-                    throw new MojoFailureException(
-                            "No formats specified in the execution parameters or the assembly descriptor.");
-                }
-
-                for (final String format : effectiveFormats) {
+                for (final String format : getEffectiveFormats(assembly)) {
                     final File destFile = assemblyArchiver.createArchive(assembly, fullName, format, this, outputDate);
+                    destFiles.add(destFile);
 
                     final MavenProject project = getProject();
                     final String type = project.getArtifact().getType();
 
-                    if (attach && destFile.isFile()) {
+                    if (attachArtifacts && destFile.isFile()) {
                         if (isAssemblyIdAppended()) {
                             projectHelper.attachArtifact(project, format, assembly.getId(), destFile);
                         } else if (!"pom".equals(type) && format.equals(type)) {
@@ -524,7 +758,7 @@ public abstract class AbstractAssemblyMojo extends AbstractMojo implements Assem
                         } else {
                             projectHelper.attachArtifact(project, format, null, destFile);
                         }
-                    } else if (attach) {
+                    } else if (attachArtifacts) {
                         getLog().warn("Assembly file: " + destFile + " is not a regular file (it may be a directory). "
                                 + "It cannot be attached to the project build for installation or "
                                 + "deployment.");
@@ -539,6 +773,18 @@ public abstract class AbstractAssemblyMojo extends AbstractMojo implements Assem
                         "Assembly: " + assembly.getId() + " is not configured correctly: " + e.getMessage());
             }
         }
+
+        if (deltaBaseline != null && !dryRun) {
+            for (final File destFile : destFiles) {
+                try {
+                    DeltaArchiveWriter.write(deltaBaseline, destFile, destFiles.size() == 1);
+                } catch (final IOException e) {
+                    throw new MojoExecutionException(
+                            "Failed to create the delta of assembly " + destFile + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return destFiles;
     }
 
     private FixedStringSearchInterpolator createRepositoryInterpolator() {
@@ -860,4 +1106,79 @@ public abstract class AbstractAssemblyMojo extends AbstractMojo implements Assem
     public String getOverrideGroupName() {
         return this.overrideGroupName;
     }
+
+    @Override
+    public boolean isDetectBinaryFiles() {
+        return detectBinaryFiles;
+    }
+
+    @Override
+    public File getFilteredResourcesCacheDirectory() {
+        return filteredResourcesCacheDirectory;
+    }
+
+    @Override
+    public String getDuplicateEntryPolicy() {
+        return duplicateEntryPolicy;
+    }
+
+    @Override
+    public boolean isCombineHandlerIterations() {
+        return combineHandlerIterations;
+    }
+
+    @Override
+    public int getReadAheadThreads() {
+        return readAheadThreads;
+    }
+
+    @Override
+    public File getDeltaBaseline() {
+        return deltaBaseline;
+    }
+
+    @Override
+    public String getDirLinkMode() {
+        return dirLinkMode;
+    }
+
+    @Override
+    public String getDirSync() {
+        return dirSync;
+    }
+
+    @Override
+    public boolean isDependencySnapshot() {
+        return dependencySnapshot;
+    }
+
+    @Override
+    public Map<String, Set<Artifact>> getResolvedDependencies() {
+        return null;
+    }
+
+    @Override
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    @Override
+    public boolean isUseGitIndex() {
+        return useGitIndex;
+    }
+
+    @Override
+    public boolean isUseModuleOutputDirectories() {
+        return useModuleOutputDirectories;
+    }
+
+    @Override
+    public File getUnpackCacheDirectory() {
+        return unpackCacheDirectory;
+    }
+
+    @Override
+    public int getUnpackCacheMaxSize() {
+        return unpackCacheMaxSize;
+    }
 }
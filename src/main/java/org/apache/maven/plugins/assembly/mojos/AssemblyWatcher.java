@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.mojos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the inputs of assemblies for changes.
+ * <p>
+ * Directory trees are watched recursively, including the directories created in them later; single files are watched
+ * through their parent directory. Changes to excluded paths, such as the outputs of the assemblies, are ignored.
+ */
+final class AssemblyWatcher implements Closeable {
+    /**
+     * The suffix of the temporary files written next to the archives they update, see IncrementalZipUpdater.
+     */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final WatchService watchService;
+
+    /**
+     * The watched directories, with the names of the files watched in them, or null if all their files are watched.
+     */
+    private final Map<Path, Set<Path>> directories = new HashMap<>();
+
+    private final Set<Path> trees = new HashSet<>();
+
+    private final List<Path> excluded = new ArrayList<>();
+
+    AssemblyWatcher() throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Ignores the changes of a path, of the files under it if it is a directory, and of the temporary files next to it
+     * named after it with a {@value #TEMPORARY_SUFFIX} suffix.
+     */
+    void exclude(Path path) {
+        excluded.add(path.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Watches a directory and all directories under it, except excluded ones.
+     */
+    void watchTree(Path directory) throws IOException {
+        final Path root = directory.toAbsolutePath().normalize();
+        if (!Files.isDirectory(root) || isExcluded(root)) {
+            return;
+        }
+        trees.add(root);
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (isExcluded(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                register(dir, null);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Watches a single file.
+     */
+    void watchFile(Path file) throws IOException {
+        final Path path = file.toAbsolutePath().normalize();
+        final Path parent = path.getParent();
+        if (parent != null && Files.isDirectory(parent) && !isExcluded(path)) {
+            register(parent, path.getFileName());
+        }
+    }
+
+    private void register(Path directory, Path name) throws IOException {
+        if (directories.containsKey(directory)) {
+            final Set<Path> names = directories.get(directory);
+            if (names != null) {
+                if (name == null) {
+                    directories.put(directory, null);
+                } else {
+                    names.add(name);
+                }
+            }
+            return;
+        }
+        directory.register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        Set<Path> names = null;
+        if (name != null) {
+            names = new HashSet<>();
+            names.add(name);
+        }
+        directories.put(directory, names);
+    }
+
+    /**
+     * Waits for changes of the watched files, then for a quiet period without further changes.
+     *
+     * @param debounceMillis The quiet period in milliseconds
+     * @return the changed files, sorted
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Set<Path> awaitChanges(long debounceMillis) throws InterruptedException, IOException {
+        final Set<Path> changes = new TreeSet<>();
+        while (changes.isEmpty()) {
+            collect(watchService.take(), changes);
+        }
+        for (WatchKey key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                key != null;
+                key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) {
+            collect(key, changes);
+        }
+        return changes;
+    }
+
+    private void collect(WatchKey key, Set<Path> changes) throws IOException {
+        final Path directory = (Path) key.watchable();
+        final Set<Path> names = directories.get(directory);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changes.add(directory);
+                continue;
+            }
+            final Path name = (Path) event.context();
+            final Path path = directory.resolve(name);
+            if ((names != null && !names.contains(name)) || isExcluded(path)) {
+                continue;
+            }
+            changes.add(path);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && names == null
+                    && isInTree(directory)
+                    && Files.isDirectory(path)) {
+                watchTree(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(directory);
+        }
+    }
+
+    private boolean isInTree(Path directory) {
+        for (Path tree : trees) {
+            if (directory.startsWith(tree)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExcluded(Path path) {
+        for (Path exclusion : excluded) {
+            if (path.startsWith(exclusion)) {
+                return true;
+            }
+            final Path parent = exclusion.getParent();
+            if (parent != null && parent.equals(path.getParent())) {
+                final String name = path.getFileName().toString();
+                if (name.startsWith(exclusion.getFileName().toString()) && name.endsWith(TEMPORARY_SUFFIX)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
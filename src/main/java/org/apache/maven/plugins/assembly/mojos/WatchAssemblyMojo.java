@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.mojos;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.plugins.assembly.archive.DeltaArchiveWriter;
+import org.apache.maven.plugins.assembly.archive.archiver.SyncMode;
+import org.apache.maven.plugins.assembly.model.Assembly;
+import org.apache.maven.plugins.assembly.model.FileItem;
+import org.apache.maven.plugins.assembly.model.FileSet;
+import org.apache.maven.plugins.assembly.utils.AssemblyFileUtils;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Assembles the assemblies like the <code>single</code> goal, then watches their inputs and updates them whenever an
+ * input changes, until the build is interrupted.
+ * <p>
+ * The inputs are the directories of the file sets, the sources of the files, the sources of the modules and the
+ * dependency artifacts of the assemblies, their descriptors and the filter files. The descriptors are only read again
+ * when one of them changes, and all files are written again when a filter file changes, as filtered files are
+ * otherwise only written when their source changes, and the transitive dependencies of a project are resolved once for the whole goal. Only the <code>dir</code>
+ * formats are updated, unless <code>watchArchives</code> is set: zip archives only have their changed entries
+ * rewritten, as with <code>updateOnly</code>. The directories are synchronized with the assemblies, deleting the files
+ * removed from them, only if <code>dirSync</code> is set. Archives are not attached to the project.
+ *
+ * @since 3.7.2
+ */
+@Mojo(name = "watch", requiresDependencyResolution = ResolutionScope.TEST, requiresDirectInvocation = true)
+public class WatchAssemblyMojo extends AbstractAssemblyMojo {
+    /**
+     * The time in milliseconds without further changes to wait for before updating the assemblies, so that a batch of
+     * changes, e.g. by a compiler, is handled at once.
+     */
+    @Parameter(property = "assembly.watchDebounce", defaultValue = "500")
+    private long watchDebounce;
+
+    /**
+     * Whether archives are updated too, and not only the <code>dir</code> formats.
+     */
+    @Parameter(property = "assembly.watchArchives", defaultValue = "false")
+    private boolean watchArchives;
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * The transitive dependencies resolved by the first update, by project and scope.
+     */
+    private final Map<String, Set<Artifact>> resolvedDependencies = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the current update writes all files again.
+     */
+    private boolean forced;
+
+    @Override
+    public MavenProject getProject() {
+        return project;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (isSkipped()) {
+            return;
+        }
+
+        if (SyncMode.fromValue(getDirSync()) == SyncMode.NONE) {
+            getLog().warn("dirSync is not set: files removed from the assemblies are kept in the dir formats,"
+                    + " set dirSync to mtime or checksum to synchronize them");
+        }
+
+        List<Assembly> assemblies = readAssemblies();
+        List<File> outputs = createAssemblies(assemblies, false);
+
+        AssemblyWatcher watcher = null;
+        try {
+            watcher = watch(assemblies, outputs);
+            while (true) {
+                getLog().info("Watching the inputs of the assemblies for changes, press Ctrl+C to stop");
+                final Set<Path> changes = watcher.awaitChanges(watchDebounce);
+                getLog().info(changes.size() + " file(s) changed, updating the assemblies");
+                for (Path change : changes) {
+                    getLog().debug("Changed: " + change);
+                }
+
+                try {
+                    if (isChanged(changes, getDescriptorPaths())) {
+                        assemblies = readAssemblies();
+                    }
+                    forced = isChanged(changes, getFilterPaths());
+                    // watch again before updating, so that the changes made meanwhile are not missed
+                    watcher.close();
+                    watcher = watch(assemblies, outputs);
+                    outputs = createAssemblies(assemblies, false);
+                } catch (MojoExecutionException | MojoFailureException e) {
+                    // keep watching, the next change may fix it
+                    getLog().error(e.getMessage(), e);
+                } finally {
+                    forced = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to watch the inputs of the assemblies: " + e.getMessage(), e);
+        } finally {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    getLog().debug("Failed to close the watch service", e);
+                }
+            }
+        }
+    }
+
+    private AssemblyWatcher watch(List<Assembly> assemblies, List<File> outputs) throws IOException {
+        final AssemblyWatcher watcher = new AssemblyWatcher();
+        try {
+            watch(watcher, assemblies, outputs);
+            return watcher;
+        } catch (IOException | RuntimeException e) {
+            watcher.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Watches the inputs of the assemblies, except their outputs and the working directories.
+     */
+    void watch(AssemblyWatcher watcher, List<Assembly> assemblies, List<File> outputs) throws IOException {
+        for (File output : outputs) {
+            watcher.exclude(output.toPath());
+            if (getDeltaBaseline() != null) {
+                watcher.exclude(
+                        new File(output.getParentFile(), DeltaArchiveWriter.deltaName(output.getName())).toPath());
+            }
+        }
+        watcher.exclude(getWorkingDirectory().toPath());
+        watcher.exclude(getTemporaryRootDirectory().toPath());
+
+        for (File descriptor : getDescriptorFiles()) {
+            watcher.watchFile(descriptor.toPath());
+        }
+        if (getDescriptorSourceDirectory() != null) {
+            watcher.watchTree(getDescriptorSourceDirectory().toPath());
+        }
+        for (Path filter : getFilterPaths()) {
+            watcher.watchFile(filter);
+        }
+
+        boolean watchModules = false;
+        for (Assembly assembly : assemblies) {
+            for (FileSet fileSet : assembly.getFileSets()) {
+                watcher.watchTree(resolve(fileSet.getDirectory()).toPath());
+            }
+            for (FileItem fileItem : assembly.getFiles()) {
+                if (fileItem.getSource() != null) {
+                    watcher.watchFile(resolve(fileItem.getSource()).toPath());
+                }
+                for (String source : fileItem.getSources()) {
+                    watcher.watchFile(resolve(source).toPath());
+                }
+            }
+            watchModules |= !assembly.getModuleSets().isEmpty();
+        }
+
+        if (watchModules && getReactorProjects() != null) {
+            for (MavenProject module : getReactorProjects()) {
+                if (module.getBuild() != null && module.getBuild().getDirectory() != null) {
+                    watcher.exclude(new File(module.getBuild().getDirectory()).toPath());
+                }
+            }
+            for (MavenProject module : getReactorProjects()) {
+                if (module.getBasedir() != null) {
+                    watcher.watchTree(module.getBasedir().toPath());
+                }
+            }
+        }
+
+        for (Artifact artifact : getProject().getArtifacts()) {
+            final File file = artifact.getFile();
+            if (file == null) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                watcher.watchTree(file.toPath());
+            } else {
+                watcher.watchFile(file.toPath());
+            }
+        }
+    }
+
+    private static boolean isChanged(Set<Path> changes, List<Path> inputs) {
+        for (Path change : changes) {
+            for (Path input : inputs) {
+                if (change.startsWith(input)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<Path> getDescriptorPaths() {
+        final List<Path> descriptors = new ArrayList<>();
+        for (File descriptor : getDescriptorFiles()) {
+            descriptors.add(descriptor.getAbsoluteFile().toPath().normalize());
+        }
+        if (getDescriptorSourceDirectory() != null) {
+            descriptors.add(
+                    getDescriptorSourceDirectory().getAbsoluteFile().toPath().normalize());
+        }
+        return descriptors;
+    }
+
+    /**
+     * @return the filter files, and the build filters of the project if included, relative to the base directory of
+     *         the project like the filtering does
+     */
+    private List<Path> getFilterPaths() {
+        final List<String> filters = new ArrayList<>();
+        if (getFilters() != null) {
+            filters.addAll(getFilters());
+        }
+        if (isIncludeProjectBuildFilters() && getProject().getBuild() != null) {
+            filters.addAll(getProject().getBuild().getFilters());
+        }
+        final List<Path> paths = new ArrayList<>();
+        for (String filter : filters) {
+            File file = new File(filter);
+            if (!file.isAbsolute() && getBasedir() != null) {
+                file = new File(getBasedir(), filter);
+            }
+            paths.add(file.getAbsoluteFile().toPath().normalize());
+        }
+        return paths;
+    }
+
+    private List<File> getDescriptorFiles() {
+        final List<File> files = new ArrayList<>();
+        if (getDescriptors() != null) {
+            for (String descriptor : getDescriptors()) {
+                files.add(resolve(descriptor));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return the file of a path relative to the base directory of the project, or to the archive base directory
+     */
+    private File resolve(String path) {
+        if (path == null || path.trim().isEmpty()) {
+            return getBasedir();
+        }
+        if (getArchiveBaseDirectory() != null) {
+            return new File(getArchiveBaseDirectory(), path);
+        }
+        final File file = new File(path);
+        return AssemblyFileUtils.isAbsolutePath(file) ? file : new File(getBasedir(), path);
+    }
+
+    @Override
+    List<String> getEffectiveFormats(Assembly assembly) throws MojoFailureException {
+        final List<String> effectiveFormats = new ArrayList<>();
+        for (String format : super.getEffectiveFormats(assembly)) {
+            if (watchArchives || format.startsWith("dir")) {
+                effectiveFormats.add(format);
+            }
+        }
+        return effectiveFormats;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The assemblies are updated, unless a filter file changed.
+     */
+    @Override
+    public boolean isUpdateOnly() {
+        return !forced;
+    }
+
+    @Override
+    public Map<String, Set<Artifact>> getResolvedDependencies() {
+        return resolvedDependencies;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Converts line endings in the char domain, so that it can sit directly on top of a filtering reader and the content
+ * is encoded only once. The conversion rules match {@link LinuxLineFeedInputStream} and
+ * {@link WindowsLineFeedInputStream} without ensuring a line feed at the end of the file.
+ */
+class LineEndingsReader extends Reader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int POOL_SIZE = 16;
+
+    /**
+     * Read-ahead buffers of closed readers, as one reader is created for every filtered file.
+     */
+    private static final BlockingQueue<char[]> BUFFER_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final Reader target;
+
+    private final boolean crlf;
+
+    private char[] buffer;
+
+    private int bufferPos;
+
+    private int bufferLimit;
+
+    private boolean slashRSeen = false;
+
+    private boolean injectSlashN = false;
+
+    private boolean closed = false;
+
+    LineEndingsReader(Reader in, boolean crlf) {
+        this.target = in;
+        this.crlf = crlf;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (off < 0 || len < 0 || len > cbuf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (buffer == null) {
+            buffer = acquireBuffer();
+        }
+        final int end = off + len;
+        int written = off;
+        if (injectSlashN) {
+            injectSlashN = false;
+            cbuf[written++] = '\n';
+        }
+        while (written < end) {
+            if (bufferPos == bufferLimit) {
+                if (written > off) {
+                    break;
+                }
+                final int count = target.read(buffer, 0, buffer.length);
+                if (count == -1) {
+                    break;
+                }
+                bufferPos = 0;
+                bufferLimit = count;
+            }
+            written = crlf ? convertToCrLf(cbuf, written, end) : convertToLf(cbuf, written, end);
+        }
+        return written == off ? -1 : written - off;
+    }
+
+    private int convertToLf(char[] cbuf, int from, int to) {
+        int written = from;
+        while (bufferPos < bufferLimit && written < to) {
+            final char c = buffer[bufferPos++];
+            final boolean prevWasSlashR = slashRSeen;
+            slashRSeen = c == '\r';
+            if (slashRSeen) {
+                cbuf[written++] = '\n';
+            } else if (!prevWasSlashR || c != '\n') { // skip /n of /r/n
+                cbuf[written++] = c;
+            }
+        }
+        return written;
+    }
+
+    private int convertToCrLf(char[] cbuf, int from, int to) {
+        int written = from;
+        while (bufferPos < bufferLimit && written < to) {
+            final char c = buffer[bufferPos++];
+            final boolean prevWasSlashR = slashRSeen;
+            slashRSeen = c == '\r';
+            if (c == '\n' && !prevWasSlashR) {
+                cbuf[written++] = '\r';
+                if (written < to) {
+                    cbuf[written++] = '\n';
+                } else {
+                    injectSlashN = true;
+                }
+            } else {
+                cbuf[written++] = c;
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (buffer != null) {
+            BUFFER_POOL.offer(buffer);
+            buffer = null;
+        }
+        target.close();
+    }
+
+    private static char[] acquireBuffer() {
+        final char[] pooled = BUFFER_POOL.poll();
+        return pooled != null ? pooled : new char[BUFFER_SIZE];
+    }
+}
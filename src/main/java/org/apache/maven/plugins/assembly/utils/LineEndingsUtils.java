@@ -26,7 +26,14 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
 
@@ -35,6 +42,10 @@ import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
  */
 public final class LineEndingsUtils {
 
+    private static final byte[] ASCII_CRLF = {'\r', '\n'};
+
+    private static final int CONVERSION_BUFFER_SIZE = 64 * 1024;
+
     private LineEndingsUtils() {
         // prevent creations of instances.
     }
@@ -56,6 +67,91 @@ public final class LineEndingsUtils {
     public static void convertLineEndings(
             final File source, File dest, LineEndings lineEndings, final Boolean atEndOfFile, String encoding)
             throws IOException {
+        if (isAsciiCompatible(encoding)) {
+            // line endings are single bytes that never occur inside multi-byte sequences, no need to decode
+            convertLineEndingsOfBytes(source, dest, lineEndings, atEndOfFile);
+        } else {
+            convertLineEndingsOfChars(source, dest, lineEndings, atEndOfFile, encoding);
+        }
+    }
+
+    /**
+     * @param encoding The encoding to check, null for platform encoding
+     * @return true if CR and LF are encoded as their ASCII bytes, false for e.g. UTF-16 or unsupported encodings
+     */
+    static boolean isAsciiCompatible(String encoding) {
+        final Charset charset;
+        try {
+            charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            // let the decoding path report the unsupported encoding
+            return false;
+        }
+        return charset.canEncode() && Arrays.equals(ASCII_CRLF, "\r\n".getBytes(charset));
+    }
+
+    private static void convertLineEndingsOfBytes(File source, File dest, LineEndings lineEndings, Boolean atEndOfFile)
+            throws IOException {
+        final byte[] lineEnding = lineEndings.getLineEndingCharacters().getBytes(StandardCharsets.US_ASCII);
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(
+                        dest.toPath(),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer inBuffer = ByteBuffer.allocateDirect(CONVERSION_BUFFER_SIZE);
+            final ByteBuffer outBuffer = ByteBuffer.allocateDirect(CONVERSION_BUFFER_SIZE);
+            // like BufferedReader.readLine() a line ends with LF, CR or CRLF; the terminator of a line is only
+            // written once the next line starts, as the terminator of the last line is governed by atEndOfFile
+            boolean pendingLineEnding = false;
+            boolean prevWasSlashR = false;
+            int last = -1;
+            while (in.read(inBuffer) != -1) {
+                inBuffer.flip();
+                while (inBuffer.hasRemaining()) {
+                    final byte c = inBuffer.get();
+                    last = c;
+                    if (c == '\n' && prevWasSlashR) {
+                        prevWasSlashR = false;
+                        continue;
+                    }
+                    prevWasSlashR = c == '\r';
+                    if (outBuffer.remaining() <= lineEnding.length) {
+                        flush(out, outBuffer);
+                    }
+                    if (pendingLineEnding) {
+                        outBuffer.put(lineEnding);
+                    }
+                    pendingLineEnding = c == '\n' || c == '\r';
+                    if (!pendingLineEnding) {
+                        outBuffer.put(c);
+                    }
+                }
+                inBuffer.clear();
+            }
+            // MASSEMBLY-637, MASSEMBLY-96: an empty file stays empty, otherwise the last line ending is preserved
+            // (only LF counts, as CRLF also ends in LF) unless it is forced or stripped
+            if (last != -1 && (atEndOfFile == null ? last == '\n' : atEndOfFile)) {
+                if (outBuffer.remaining() < lineEnding.length) {
+                    flush(out, outBuffer);
+                }
+                outBuffer.put(lineEnding);
+            }
+            flush(out, outBuffer);
+        }
+    }
+
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void convertLineEndingsOfChars(
+            final File source, File dest, LineEndings lineEndings, final Boolean atEndOfFile, String encoding)
+            throws IOException {
         // MASSEMBLY-637, MASSEMBLY-96
         // find characters at the end of the file
         // needed to preserve the last line ending
@@ -125,6 +221,21 @@ public final class LineEndingsUtils {
                 : lineEndings.isCrLF() ? new WindowsLineFeedInputStream(in, false) : in;
     }
 
+    /**
+     * Converts the line endings of the characters read from a reader, e.g. the output of a filtering reader, so that
+     * the content needs to be encoded only once.
+     *
+     * @param in          The source reader
+     * @param lineEndings The line ending style to enforce, not null.
+     * @return a reader that enforces a specific line ending style
+     */
+    @SuppressWarnings("resource")
+    public static Reader lineEndingConverter(Reader in, LineEndings lineEndings) {
+        return lineEndings.isNewLine()
+                ? new LineEndingsReader(in, false)
+                : lineEndings.isCrLF() ? new LineEndingsReader(in, true) : in;
+    }
+
     public static LineEndings getLineEnding(/* nullable */ String lineEnding) throws AssemblyFormattingException {
         LineEndings result = LineEndings.keep;
         if (lineEnding != null) {
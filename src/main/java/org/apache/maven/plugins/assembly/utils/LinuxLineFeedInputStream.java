@@ -73,6 +73,56 @@ class LinuxLineFeedInputStream extends InputStream {
         }
     }
 
+    /**
+     * Bulk variant of {@link #read()}: the target is read directly into {@code b} and converted in place, which is
+     * possible as converting to linux line feeds never makes the content longer. Like the default implementation, this
+     * reads until {@code len} bytes have been delivered or the end of the stream has been reached.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        final int end = off + len;
+        int written = off;
+        while (written < end) {
+            if (eofSeen) {
+                final int c = eofGame(slashRSeen);
+                if (c == -1) {
+                    break;
+                }
+                b[written++] = (byte) c;
+            } else {
+                final int count = target.read(b, written, end - written);
+                if (count == -1) {
+                    eofSeen = true;
+                } else {
+                    written = convert(b, written, written + count);
+                }
+            }
+        }
+        return written == off ? -1 : written - off;
+    }
+
+    private int convert(byte[] b, int from, int to) {
+        int written = from;
+        for (int i = from; i < to; i++) {
+            final byte c = b[i];
+            final boolean prevWasSlashR = slashRSeen;
+            slashNSeen = c == '\n';
+            slashRSeen = c == '\r';
+            if (slashRSeen) {
+                b[written++] = '\n';
+            } else if (!prevWasSlashR || !slashNSeen) { // skip /n of /r/n
+                b[written++] = c;
+            }
+        }
+        return written;
+    }
+
     private int eofGame(boolean previousWasSlashR) {
         if (previousWasSlashR || !ensureLineFeedAtEndOfFile) {
             return -1;
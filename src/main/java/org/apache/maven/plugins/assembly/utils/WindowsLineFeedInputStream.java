@@ -26,6 +26,8 @@ import java.io.InputStream;
  */
 class WindowsLineFeedInputStream extends InputStream {
 
+    private static final int BUFFER_SIZE = 8192;
+
     private final InputStream target;
 
     private final boolean ensureLineFeedAtEndOfFile;
@@ -38,13 +40,22 @@ class WindowsLineFeedInputStream extends InputStream {
 
     private boolean eofSeen = false;
 
+    /**
+     * Holds bytes read ahead from the target by {@link #read(byte[], int, int)} that are not yet converted.
+     */
+    private byte[] buffer;
+
+    private int bufferPos;
+
+    private int bufferLimit;
+
     WindowsLineFeedInputStream(InputStream in, boolean ensureLineFeedAtEndOfFile) {
         this.target = in;
         this.ensureLineFeedAtEndOfFile = ensureLineFeedAtEndOfFile;
     }
 
     private int readWithUpdate() throws IOException {
-        final int target = this.target.read();
+        final int target = bufferPos < bufferLimit ? Byte.toUnsignedInt(buffer[bufferPos++]) : this.target.read();
         eofSeen = target == -1;
         if (eofSeen) {
             return target;
@@ -77,6 +88,71 @@ class WindowsLineFeedInputStream extends InputStream {
         }
     }
 
+    /**
+     * Bulk variant of {@link #read()}. As a lone /n expands to /r/n, the target is read into an internal buffer; if
+     * there is only room for the /r, the /n is injected by the next read just like {@link #read()} does. Like the
+     * default implementation, this reads until {@code len} bytes have been delivered or the end of the stream has been
+     * reached.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        final int end = off + len;
+        int written = off;
+        while (written < end) {
+            if (eofSeen) {
+                final int c = eofGame();
+                if (c == -1) {
+                    break;
+                }
+                b[written++] = (byte) c;
+            } else if (injectSlashN) {
+                injectSlashN = false;
+                b[written++] = '\n';
+            } else if (bufferPos == bufferLimit) {
+                if (buffer == null) {
+                    buffer = new byte[BUFFER_SIZE];
+                }
+                final int count = target.read(buffer, 0, buffer.length);
+                if (count == -1) {
+                    eofSeen = true;
+                } else {
+                    bufferPos = 0;
+                    bufferLimit = count;
+                }
+            } else {
+                written = convert(b, written, end);
+            }
+        }
+        return written == off ? -1 : written - off;
+    }
+
+    private int convert(byte[] b, int from, int to) {
+        int written = from;
+        while (bufferPos < bufferLimit && written < to) {
+            final byte c = buffer[bufferPos++];
+            final boolean prevWasSlashR = slashRSeen;
+            slashRSeen = c == '\r';
+            slashNSeen = c == '\n';
+            if (slashNSeen && !prevWasSlashR) {
+                b[written++] = '\r';
+                if (written < to) {
+                    b[written++] = '\n';
+                } else {
+                    injectSlashN = true;
+                }
+            } else {
+                b[written++] = c;
+            }
+        }
+        return written;
+    }
+
     private int eofGame() {
         if (!ensureLineFeedAtEndOfFile) {
             return -1;
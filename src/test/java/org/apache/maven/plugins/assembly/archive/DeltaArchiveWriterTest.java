@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DeltaArchiveWriterTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testDeltaHoldsChangedEntriesAndDeletions() throws IOException {
+        final File baseline = temporaryFolder.newFolder("baseline");
+        final File output = temporaryFolder.newFolder("output");
+        zip(new File(baseline, "app.zip"), "same.txt", "same", "changed.txt", "before", "removed.txt", "removed");
+        zip(new File(output, "app.zip"), "same.txt", "same", "changed.txt", "after", "added.txt", "added");
+
+        final File delta = DeltaArchiveWriter.write(baseline, new File(output, "app.zip"), false);
+
+        assertEquals(new File(output, "app-delta.zip"), delta);
+        try (ZipFile zip = ZipFile.builder().setFile(delta).get()) {
+            final List<String> names = new ArrayList<>();
+            for (ZipArchiveEntry entry : Collections.list(zip.getEntries())) {
+                names.add(entry.getName());
+            }
+            assertEquals(Arrays.asList("changed.txt", "added.txt", DeltaArchiveWriter.DELETED_ENTRIES), names);
+            assertEquals("after", read(zip, "changed.txt"));
+            assertEquals("removed.txt\n", read(zip, DeltaArchiveWriter.DELETED_ENTRIES));
+        }
+    }
+
+    @Test
+    public void testNoDeltaWithoutBaseline() throws IOException {
+        final File archive = temporaryFolder.newFile("app.zip");
+        zip(archive, "a.txt", "a");
+
+        assertNull(DeltaArchiveWriter.write(new File(temporaryFolder.getRoot(), "missing.zip"), archive, true));
+    }
+
+    @Test
+    public void testArchiveBaselineOnlyAppliesToTheArchiveOfTheSameNameOrTheOnlyArchive() throws IOException {
+        final File baseline = temporaryFolder.newFile("app-1.0.zip");
+        final File output = temporaryFolder.newFolder("output");
+        zip(baseline, "a.txt", "a");
+        final File archive = new File(output, "app-1.1.zip");
+        zip(archive, "a.txt", "changed");
+
+        assertNull(DeltaArchiveWriter.write(baseline, archive, false));
+        assertEquals(new File(output, "app-1.1-delta.zip"), DeltaArchiveWriter.write(baseline, archive, true));
+
+        final File sameName = new File(output, "app-1.0.zip");
+        zip(sameName, "a.txt", "a");
+        assertEquals(new File(output, "app-1.0-delta.zip"), DeltaArchiveWriter.write(baseline, sameName, false));
+    }
+
+    @Test
+    public void testDeltaName() {
+        assertEquals("app-1.0-bin-delta.zip", DeltaArchiveWriter.deltaName("app-1.0-bin.zip"));
+        assertEquals("app-delta", DeltaArchiveWriter.deltaName("app"));
+    }
+
+    private static void zip(File file, String... namesAndContents) throws IOException {
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(Files.newOutputStream(file.toPath()))) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                out.putArchiveEntry(new ZipArchiveEntry(namesAndContents[i]));
+                out.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                out.closeArchiveEntry();
+            }
+        }
+    }
+
+    private static String read(ZipFile zip, String name) throws IOException {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DirectoryListingsTest {
+    private static final FileTime AN_HOUR_AGO =
+            FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testUnmodifiedDirectoryIsListedOnce() throws IOException {
+        final File directory = temporaryFolder.newFolder("classes");
+        new File(directory, "App.class").createNewFile();
+        new File(directory, "org").mkdir();
+        Files.setLastModifiedTime(directory.toPath(), AN_HOUR_AGO);
+        final DirectoryListings listings = new DirectoryListings();
+
+        final List<DirectoryListings.Child> listed = listings.list(directory);
+        assertNotNull(listed.get(0).attributes);
+
+        // not seen as long as the directory keeps its modification time
+        new File(directory, "Other.class").createNewFile();
+        Files.setLastModifiedTime(directory.toPath(), AN_HOUR_AGO);
+        final List<DirectoryListings.Child> cached = listings.list(directory);
+        assertEquals(asList("App.class", "org"), sorted(names(cached)));
+        assertNull(cached.get(0).attributes);
+        final DirectoryListings.Child org = "org".equals(cached.get(0).name) ? cached.get(0) : cached.get(1);
+        assertTrue(org.directory);
+    }
+
+    @Test
+    public void testModifiedDirectoryIsListedAgain() throws IOException {
+        final File directory = temporaryFolder.newFolder("classes");
+        new File(directory, "App.class").createNewFile();
+        Files.setLastModifiedTime(directory.toPath(), AN_HOUR_AGO);
+        final DirectoryListings listings = new DirectoryListings();
+        listings.list(directory);
+
+        new File(directory, "Other.class").createNewFile();
+        Files.setLastModifiedTime(directory.toPath(), FileTime.fromMillis(AN_HOUR_AGO.toMillis() + 1000L));
+
+        assertEquals(asList("App.class", "Other.class"), sorted(names(listings.list(directory))));
+    }
+
+    @Test
+    public void testRecentlyModifiedDirectoryIsNotCached() throws IOException {
+        final File directory = temporaryFolder.newFolder("classes");
+        new File(directory, "App.class").createNewFile();
+        final FileTime lastModified = Files.getLastModifiedTime(directory.toPath());
+        final DirectoryListings listings = new DirectoryListings();
+        listings.list(directory);
+
+        new File(directory, "Other.class").createNewFile();
+        Files.setLastModifiedTime(directory.toPath(), lastModified);
+
+        assertEquals(2, listings.list(directory).size());
+    }
+
+    private static List<String> names(List<DirectoryListings.Child> children) {
+        final List<String> names = new ArrayList<>();
+        for (DirectoryListings.Child child : children) {
+            names.add(child.name);
+        }
+        return names;
+    }
+
+    private static List<String> sorted(List<String> names) {
+        names.sort(null);
+        return names;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class DuplicateEntryIndexTest {
+    @Test
+    public void testFirstWinsSkipsLaterEntries() throws IOException {
+        final DuplicateEntryIndex index = new DuplicateEntryIndex(DuplicateEntryPolicy.FIRST_WINS);
+        final FileSelector[] first = index.selectorsFor(index.addSource("first"), "lib/", null);
+        final FileSelector[] second = index.selectorsFor(index.addSource("second"), "lib", null);
+
+        assertTrue(select(first, file("a.jar", "a")));
+        assertFalse(select(second, file("/a.jar", "b")));
+        assertTrue(select(second, file("/b.jar", "b")));
+    }
+
+    @Test
+    public void testSourceMayClaimItsEntriesAgain() throws IOException {
+        final DuplicateEntryIndex index = new DuplicateEntryIndex(DuplicateEntryPolicy.FAIL);
+        final FileSelector[] selectors = index.selectorsFor(index.addSource("first"), "", null);
+
+        assertTrue(select(selectors, file("a.txt", "a")));
+        assertTrue(select(selectors, file("a.txt", "a")));
+    }
+
+    @Test
+    public void testDirectoriesAreNotClaimed() throws IOException {
+        final DuplicateEntryIndex index = new DuplicateEntryIndex(DuplicateEntryPolicy.FAIL);
+        final FileSelector[] first = index.selectorsFor(index.addSource("first"), "", null);
+        final FileSelector[] second = index.selectorsFor(index.addSource("second"), "", null);
+        final FileInfo directory = mock(FileInfo.class);
+        when(directory.getName()).thenReturn("META-INF");
+        when(directory.isDirectory()).thenReturn(true);
+
+        assertTrue(select(first, directory));
+        assertTrue(select(second, directory));
+    }
+
+    @Test
+    public void testFailThrowsOnDuplicate() throws IOException {
+        final DuplicateEntryIndex index = new DuplicateEntryIndex(DuplicateEntryPolicy.FAIL);
+        final FileSelector[] first = index.selectorsFor(index.addSource("first"), "", null);
+        final FileSelector[] second = index.selectorsFor(index.addSource("second"), "", null);
+
+        assertTrue(select(first, file("a.txt", "a")));
+        try {
+            select(second, file("a.txt", "a"));
+            fail("Duplicate entry should fail");
+        } catch (ArchiverException e) {
+            assertTrue(e.getMessage().contains("second"));
+            assertTrue(e.getMessage().contains("first"));
+        }
+    }
+
+    @Test
+    public void testSkipIfIdenticalComparesContents() throws IOException {
+        final DuplicateEntryIndex index = new DuplicateEntryIndex(DuplicateEntryPolicy.SKIP_IF_IDENTICAL);
+        final FileSelector[] first = index.selectorsFor(index.addSource("first"), "", null);
+        final FileSelector[] second = index.selectorsFor(index.addSource("second"), "", null);
+
+        assertTrue(select(first, file("a.txt", "a")));
+        assertTrue(select(first, file("b.txt", "b")));
+        assertFalse(select(second, file("a.txt", "a")));
+        try {
+            select(second, file("b.txt", "changed"));
+            fail("Duplicate entry with different content should fail");
+        } catch (ArchiverException e) {
+            assertTrue(e.getMessage().contains("b.txt"));
+        }
+    }
+
+    @Test
+    public void testOtherSelectorsRunBeforeClaim() throws IOException {
+        final DuplicateEntryIndex index = new DuplicateEntryIndex(DuplicateEntryPolicy.FAIL);
+        final FileSelector consumer = fileInfo -> false;
+        final FileSelector[] first = index.selectorsFor(index.addSource("first"), "", new FileSelector[] {consumer});
+        final FileSelector[] second = index.selectorsFor(index.addSource("second"), "", null);
+
+        assertEquals(2, first.length);
+        assertFalse(select(first, file("a.txt", "a")));
+        assertTrue(select(second, file("a.txt", "a")));
+    }
+
+    @Test
+    public void testRecordsGrow() {
+        final DuplicateEntryIndex.Records records = new DuplicateEntryIndex.Records(false);
+        for (int i = 0; i < 10000; i++) {
+            final String path = "dir/file" + i;
+            final long key = DuplicateEntryIndex.hash(path, 0);
+            final long key2 = DuplicateEntryIndex.hash(path, 1);
+            records.put(records.slot(key, key2), key, key2, i, null);
+        }
+
+        assertEquals(10000, records.size());
+        for (int i = 0; i < 10000; i++) {
+            final String path = "dir/file" + i;
+            final int slot = records.slot(DuplicateEntryIndex.hash(path, 0), DuplicateEntryIndex.hash(path, 1));
+            assertFalse(records.isEmpty(slot));
+            assertEquals(i, records.value(slot));
+        }
+        assertTrue(records.isEmpty(
+                records.slot(DuplicateEntryIndex.hash("dir/file", 0), DuplicateEntryIndex.hash("dir/file", 1))));
+    }
+
+    @Test
+    public void testFromValue() {
+        assertEquals(DuplicateEntryPolicy.NONE, DuplicateEntryPolicy.fromValue(null));
+        assertEquals(DuplicateEntryPolicy.NONE, DuplicateEntryPolicy.fromValue(" "));
+        assertEquals(DuplicateEntryPolicy.LAST_WINS, DuplicateEntryPolicy.fromValue("last-wins"));
+        try {
+            DuplicateEntryPolicy.fromValue("random");
+            fail("Illegal value should fail");
+        } catch (ArchiverException e) {
+            assertTrue(e.getMessage().contains("random"));
+        }
+    }
+
+    private static boolean select(FileSelector[] selectors, FileInfo fileInfo) throws IOException {
+        for (FileSelector selector : selectors) {
+            if (!selector.isSelected(fileInfo)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FileInfo file(String name, String contents) throws IOException {
+        final FileInfo fileInfo = mock(FileInfo.class);
+        when(fileInfo.getName()).thenReturn(name);
+        when(fileInfo.isFile()).thenReturn(true);
+        when(fileInfo.getContents())
+                .thenAnswer(invocation -> new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)));
+        return fileInfo;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GitIndexTest {
+    private static final int REGULAR = 0100644;
+
+    private static final int SUBMODULE = 0160000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testTrackedFilesAreListed() throws IOException {
+        final File workTree = temporaryFolder.newFolder("project");
+        writeIndex(workTree, 2, "pom.xml", "src/main/App.java", "src/test/AppTest.java");
+
+        final GitIndex index = GitIndex.find(new File(workTree, "src/main"), new HashMap<>());
+
+        assertEquals("src/main", index.relativePath(new File(workTree, "src/main")));
+        assertEquals(asList("pom.xml", "src"), names(index.list("", workTree)));
+        assertEquals(asList("main", "test"), names(index.list("src", new File(workTree, "src"))));
+        assertTrue(index.list("src", new File(workTree, "src")).get(0).directory);
+        assertEquals(asList("App.java"), names(index.list("src/main", new File(workTree, "src/main"))));
+        assertNull(index.list("target", new File(workTree, "target")));
+    }
+
+    @Test
+    public void testPrefixCompressedPaths() throws IOException {
+        final File workTree = temporaryFolder.newFolder("project");
+        writeIndex(workTree, 4, "src/main/App.java", "src/main/Main.java", "src/site/site.xml");
+
+        final GitIndex index = GitIndex.find(workTree, new HashMap<>());
+
+        assertEquals(asList("App.java", "Main.java"), names(index.list("src/main", new File(workTree, "src/main"))));
+        assertEquals(asList("site.xml"), names(index.list("src/site", new File(workTree, "src/site"))));
+    }
+
+    @Test
+    public void testSparseAndSubmoduleEntries() throws IOException {
+        final File workTree = temporaryFolder.newFolder("project");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        header(out, 3, 3);
+        entry(out, 3, "docs/guide.md", REGULAR, true);
+        entry(out, 3, "lib/module", SUBMODULE, false);
+        entry(out, 3, "pom.xml", REGULAR, false);
+        write(workTree, bytes.toByteArray());
+
+        final GitIndex index = GitIndex.find(workTree, new HashMap<>());
+
+        assertEquals(asList("lib", "pom.xml"), names(index.list("", workTree)));
+        assertTrue(index.list("lib", new File(workTree, "lib")).get(0).directory);
+        // listed from the work tree
+        assertNull(index.list("lib/module", new File(workTree, "lib/module")));
+    }
+
+    @Test
+    public void testIndexWithRequiredExtensionIsNotUsed() throws IOException {
+        final File workTree = temporaryFolder.newFolder("project");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        header(out, 2, 1);
+        entry(out, 2, "pom.xml", REGULAR, false);
+        // optional cached tree, then the shared index of a split index
+        extension(out, "TREE", new byte[6]);
+        extension(out, "link", new byte[20]);
+        write(workTree, bytes.toByteArray());
+
+        assertNull(GitIndex.find(workTree, new HashMap<>()));
+    }
+
+    @Test
+    public void testOptionalExtensionsAreSkipped() throws IOException {
+        final File workTree = temporaryFolder.newFolder("project");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        header(out, 2, 1);
+        entry(out, 2, "pom.xml", REGULAR, false);
+        extension(out, "TREE", new byte[6]);
+        extension(out, "UNTR", new byte[3]);
+        write(workTree, bytes.toByteArray());
+
+        assertEquals(
+                asList("pom.xml"),
+                names(GitIndex.find(workTree, new HashMap<>()).list("", workTree)));
+    }
+
+    @Test
+    public void testUntrackedFilesAreNotScanned() throws IOException {
+        final File workTree = temporaryFolder.newFolder("project");
+        for (String name : asList("pom.xml", "src/main/App.java", "node_modules/lib.js", "target/app.jar")) {
+            final File file = new File(workTree, name);
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), name.getBytes(StandardCharsets.UTF_8));
+        }
+        writeIndex(workTree, 2, "pom.xml", "src/main/App.java", "src/main/Deleted.java");
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            assertEquals(asList("pom.xml", "src/main/App.java"), scan(workTree, pool));
+            // no tracked files, scanned from the disk
+            assertEquals(asList("app.jar"), scan(new File(workTree, "target"), pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<String> scan(File directory, ForkJoinPool pool) throws IOException {
+        final DefaultFileSet fileSet = DefaultFileSet.fileSet(directory);
+        fileSet.includeEmptyDirs(false);
+        final ScannedFileResourceCollection collection =
+                ScannedFileResourceCollection.of(new ZipArchiver(), fileSet, pool, new DirectoryListings(), true);
+        final List<String> names = new ArrayList<>();
+        for (Iterator<PlexusIoResource> it = collection.getResources(); it.hasNext(); ) {
+            names.add(it.next().getName());
+        }
+        names.sort(null);
+        return names;
+    }
+
+    private static List<String> names(List<DirectoryListings.Child> children) {
+        final List<String> names = new ArrayList<>();
+        for (DirectoryListings.Child child : children) {
+            names.add(child.name);
+        }
+        return names;
+    }
+
+    private static void writeIndex(File workTree, int version, String... paths) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        header(out, version, paths.length);
+        String previous = "";
+        for (String path : paths) {
+            if (version == 4) {
+                int common = 0;
+                while (common < previous.length()
+                        && common < path.length()
+                        && previous.charAt(common) == path.charAt(common)) {
+                    common++;
+                }
+                stat(out, REGULAR);
+                out.writeShort(path.length());
+                out.writeByte(previous.length() - common);
+                out.write(path.substring(common).getBytes(StandardCharsets.UTF_8));
+                out.writeByte(0);
+                previous = path;
+            } else {
+                entry(out, version, path, REGULAR, false);
+            }
+        }
+        write(workTree, bytes.toByteArray());
+    }
+
+    private static void header(DataOutputStream out, int version, int entries) throws IOException {
+        out.write("DIRC".getBytes(StandardCharsets.US_ASCII));
+        out.writeInt(version);
+        out.writeInt(entries);
+    }
+
+    private static void entry(DataOutputStream out, int version, String path, int mode, boolean skipWorktree)
+            throws IOException {
+        stat(out, mode);
+        final boolean extended = version >= 3 && skipWorktree;
+        out.writeShort((extended ? 0x4000 : 0) | path.length());
+        if (extended) {
+            out.writeShort(0x4000);
+        }
+        out.write(path.getBytes(StandardCharsets.UTF_8));
+        final int size = (extended ? 64 : 62) + path.length();
+        for (int i = size; i < ((size + 8) & ~7); i++) {
+            out.writeByte(0);
+        }
+    }
+
+    private static void extension(DataOutputStream out, String signature, byte[] data) throws IOException {
+        out.write(signature.getBytes(StandardCharsets.US_ASCII));
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private static void stat(DataOutputStream out, int mode) throws IOException {
+        for (int i = 0; i < 6; i++) {
+            out.writeInt(0);
+        }
+        out.writeInt(mode);
+        for (int i = 0; i < 3; i++) {
+            out.writeInt(0);
+        }
+        out.write(new byte[20]);
+    }
+
+    private static void write(File workTree, byte[] index) throws IOException {
+        final File gitDir = new File(workTree, ".git");
+        gitDir.mkdirs();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(index);
+        bytes.write(new byte[20]);
+        Files.write(new File(gitDir, "index").toPath(), bytes.toByteArray());
+    }
+}
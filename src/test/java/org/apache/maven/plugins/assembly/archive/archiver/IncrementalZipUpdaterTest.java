@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNoException;
+
+public class IncrementalZipUpdaterTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testOnlyChangedEntriesAreWritten() throws IOException {
+        final File directory = temporaryFolder.newFolder();
+        write(new File(directory, "a.txt"), "unchanged unchanged unchanged");
+        write(new File(directory, "sub/b.txt"), "before before before");
+        write(new File(directory, "c.txt"), "removed removed removed");
+        final File destFile = new File(temporaryFolder.getRoot(), "out.zip");
+        final File index = new File(temporaryFolder.getRoot(), "work");
+
+        update(directory, destFile, index, true);
+        assertTrue(new File(index, "out.zip.index").isFile());
+        try (ZipFile zip = ZipFile.builder().setFile(destFile).get()) {
+            assertEquals(ZipArchiveEntry.DEFLATED, zip.getEntry("a.txt").getMethod());
+            assertTrue(zip.getEntry("sub/").isDirectory());
+            assertEquals("removed removed removed", read(zip, "c.txt"));
+        }
+
+        write(new File(directory, "sub/b.txt"), "after after after after");
+        Files.delete(new File(directory, "c.txt").toPath());
+
+        // without compression, only the changed entry is stored while the unchanged one is copied as it was
+        update(directory, destFile, index, false);
+        try (ZipFile zip = ZipFile.builder().setFile(destFile).get()) {
+            assertEquals(ZipArchiveEntry.DEFLATED, zip.getEntry("a.txt").getMethod());
+            assertEquals("unchanged unchanged unchanged", read(zip, "a.txt"));
+            assertEquals(ZipArchiveEntry.STORED, zip.getEntry("sub/b.txt").getMethod());
+            assertEquals("after after after after", read(zip, "sub/b.txt"));
+            assertNull(zip.getEntry("c.txt"));
+        }
+    }
+
+    @Test
+    public void testUnchangedArchiveIsKept() throws IOException {
+        final File directory = temporaryFolder.newFolder();
+        write(new File(directory, "a.txt"), "content");
+        final File destFile = new File(temporaryFolder.getRoot(), "out.zip");
+        final File index = new File(temporaryFolder.getRoot(), "work");
+
+        update(directory, destFile, index, true);
+        final byte[] content = Files.readAllBytes(destFile.toPath());
+        final long lastModified = destFile.lastModified();
+
+        update(directory, destFile, index, true);
+        assertEquals(lastModified, destFile.lastModified());
+        assertArrayEquals(content, Files.readAllBytes(destFile.toPath()));
+    }
+
+    @Test
+    public void testSymbolicLinksAreWritten() throws IOException {
+        final File directory = temporaryFolder.newFolder();
+        write(new File(directory, "a.txt"), "content");
+        try {
+            Files.createSymbolicLink(directory.toPath().resolve("link.txt"), new File("a.txt").toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            assumeNoException(e);
+        }
+        final File destFile = new File(temporaryFolder.getRoot(), "out.zip");
+        final File index = new File(temporaryFolder.getRoot(), "work");
+
+        update(directory, destFile, index, true);
+        try (ZipFile zip = ZipFile.builder().setFile(destFile).get()) {
+            assertTrue(zip.getEntry("link.txt").isUnixSymlink());
+            assertEquals("a.txt", read(zip, "link.txt"));
+        }
+
+        final long lastModified = destFile.lastModified();
+        update(directory, destFile, index, true);
+        assertEquals(lastModified, destFile.lastModified());
+    }
+
+    @Test
+    public void testDuplicatesFollowTheDuplicateBehavior() throws IOException {
+        final File first = temporaryFolder.newFile("first.txt");
+        write(first, "first");
+        final File second = temporaryFolder.newFile("second.txt");
+        write(second, "second");
+        final File destFile = new File(temporaryFolder.getRoot(), "out.zip");
+        final File index = new File(temporaryFolder.getRoot(), "work");
+
+        updateWithDuplicates(first, second, destFile, index, Archiver.DUPLICATES_SKIP);
+        try (ZipFile zip = ZipFile.builder().setFile(destFile).get()) {
+            assertEquals(1, Collections.list(zip.getEntries()).size());
+            assertEquals("first", read(zip, "a.txt"));
+        }
+
+        updateWithDuplicates(first, second, destFile, index, Archiver.DUPLICATES_ADD);
+        try (ZipFile zip = ZipFile.builder().setFile(destFile).get()) {
+            final List<ZipArchiveEntry> entries = Collections.list(zip.getEntries());
+            assertEquals(2, entries.size());
+            try (InputStream in = zip.getInputStream(entries.get(1))) {
+                assertEquals("second", IOUtils.toString(in, StandardCharsets.UTF_8));
+            }
+        }
+
+        try {
+            updateWithDuplicates(first, second, destFile, index, Archiver.DUPLICATES_FAIL);
+            fail("Duplicate entries fail the update");
+        } catch (ArchiverException expected) {
+            assertTrue(expected.getMessage().contains("a.txt"));
+        }
+    }
+
+    private static void updateWithDuplicates(File first, File second, File destFile, File index, String behavior)
+            throws IOException {
+        final ZipArchiver archiver = new ZipArchiver();
+        archiver.setDestFile(destFile);
+        archiver.setDuplicateBehavior(behavior);
+        archiver.addFile(first, "a.txt");
+        archiver.addFile(second, "a.txt");
+        new IncrementalZipUpdater(index).update(archiver, Collections.emptyList());
+    }
+
+    private static void update(File directory, File destFile, File index, boolean compress) throws IOException {
+        final ZipArchiver archiver = new ZipArchiver();
+        archiver.setDestFile(destFile);
+        archiver.setCompress(compress);
+        archiver.addFileSet(DefaultFileSet.fileSet(directory));
+        new IncrementalZipUpdater(index).update(archiver, Collections.emptyList());
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(ZipFile zip, String name) throws IOException {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
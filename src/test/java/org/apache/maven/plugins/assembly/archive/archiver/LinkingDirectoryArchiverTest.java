@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import javax.inject.Provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.manager.ArchiverManager;
+import org.codehaus.plexus.archiver.manager.DefaultArchiverManager;
+import org.codehaus.plexus.archiver.util.DefaultArchivedFileSet;
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.components.io.resources.PlexusIoResourceCollection;
+import org.codehaus.plexus.components.io.resources.PlexusIoZipFileResourceCollection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LinkingDirectoryArchiverTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testHardLinksUntransformedFiles() throws IOException {
+        final File source = temporaryFolder.newFolder("source");
+        final Path jar = write(new File(source, "lib.jar"), "jar");
+        final Path text = write(new File(source, "text/readme.txt"), "readme");
+        final File output = temporaryFolder.newFolder("output");
+
+        createArchive(LinkMode.HARDLINK, source, output);
+
+        assertTrue(Files.isSameFile(jar, output.toPath().resolve("lib/lib.jar")));
+        assertTrue(Files.isSameFile(jar, output.toPath().resolve("all/lib.jar")));
+        assertFalse(Files.isSameFile(text, output.toPath().resolve("filtered/readme.txt")));
+        assertEquals("README", read(output.toPath().resolve("filtered/readme.txt")));
+    }
+
+    @Test
+    public void testSymbolicLinks() throws IOException {
+        final File source = temporaryFolder.newFolder("source");
+        final Path jar = write(new File(source, "lib.jar"), "jar");
+        write(new File(source, "text/readme.txt"), "readme");
+        final File output = temporaryFolder.newFolder("output");
+
+        createArchive(LinkMode.SYMLINK, source, output);
+
+        final Path link = output.toPath().resolve("lib/lib.jar");
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals(jar.toAbsolutePath(), Files.readSymbolicLink(link));
+        assertFalse(Files.isSymbolicLink(output.toPath().resolve("filtered/readme.txt")));
+    }
+
+    @Test
+    public void testReflinkCopiesFiles() throws IOException {
+        final File source = temporaryFolder.newFolder("source");
+        final Path jar = write(new File(source, "lib.jar"), "jar");
+        write(new File(source, "text/readme.txt"), "readme");
+        final File output = temporaryFolder.newFolder("output");
+
+        createArchive(LinkMode.REFLINK, source, output);
+
+        final Path copy = output.toPath().resolve("lib/lib.jar");
+        assertFalse(Files.isSameFile(jar, copy));
+        assertEquals("jar", read(copy));
+    }
+
+    @Test
+    public void testArchivedFileSetsAreCopied() throws IOException {
+        final File archive = zip(new File(temporaryFolder.getRoot(), "lib.zip"), "com/App.class");
+        final File output = temporaryFolder.newFolder("output");
+
+        final LinkingDirectoryArchiver archiver = new LinkingDirectoryArchiver(LinkMode.HARDLINK, archiverManager());
+        archiver.setDestFile(output);
+        final DefaultArchivedFileSet unpacked = DefaultArchivedFileSet.archivedFileSet(archive);
+        unpacked.setPrefix("unpacked/");
+        archiver.addArchivedFileSet(unpacked);
+        archiver.createArchive();
+
+        assertEquals("com/App.class", read(output.toPath().resolve("unpacked/com/App.class")));
+    }
+
+    @Test
+    public void testCachedFilesAreCopied() throws IOException {
+        final File source = temporaryFolder.newFolder("source");
+        final Path jar = write(new File(source, "lib.jar"), "jar");
+        write(new File(source, "text/readme.txt"), "readme");
+        final File output = temporaryFolder.newFolder("output");
+
+        final LinkingDirectoryArchiver archiver = new LinkingDirectoryArchiver(LinkMode.HARDLINK, archiverManager());
+        archiver.setCacheDirectory(source);
+        createArchive(archiver, source, output);
+
+        final Path copy = output.toPath().resolve("all/lib.jar");
+        assertFalse(Files.isSameFile(jar, copy));
+        assertEquals("jar", read(copy));
+    }
+
+    private static void createArchive(LinkMode linkMode, File source, File output) throws IOException {
+        createArchive(new LinkingDirectoryArchiver(linkMode, archiverManager()), source, output);
+    }
+
+    private static void createArchive(LinkingDirectoryArchiver archiver, File source, File output) throws IOException {
+        archiver.setDestFile(output);
+        archiver.addFile(new File(source, "lib.jar"), "lib/lib.jar");
+
+        final DefaultFileSet all = DefaultFileSet.fileSet(source);
+        all.setIncludes(new String[] {"*.jar"});
+        all.setPrefix("all/");
+        archiver.addFileSet(all);
+
+        final DefaultFileSet filtered = DefaultFileSet.fileSet(new File(source, "text"));
+        filtered.setPrefix("filtered/");
+        filtered.setStreamTransformer((resource, in) -> new ByteArrayInputStream(
+                IOUtils.toString(in, StandardCharsets.UTF_8).toUpperCase().getBytes(StandardCharsets.UTF_8)));
+        archiver.addFileSet(filtered);
+
+        archiver.createArchive();
+    }
+
+    /**
+     * @return a manager reading zip archives, as injected by the container
+     */
+    static ArchiverManager archiverManager() {
+        return new DefaultArchiverManager(
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                Collections.<String, Provider<PlexusIoResourceCollection>>singletonMap(
+                        "zip", PlexusIoZipFileResourceCollection::new));
+    }
+
+    /**
+     * @return the archive, holding the given entries, whose content is their name
+     */
+    static File zip(File archive, String... names) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive.toPath()))) {
+            for (String name : names) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(name.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+    private static Path write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        return Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
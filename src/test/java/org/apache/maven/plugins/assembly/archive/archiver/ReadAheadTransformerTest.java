@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.codehaus.plexus.components.io.resources.ResourceFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReadAheadTransformerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    private final InputStreamTransformer upperCase = (resource, in) -> {
+        threads.add(Thread.currentThread().getName());
+        final String content = IOUtils.toString(in, StandardCharsets.UTF_8);
+        return new ByteArrayInputStream(
+                (resource.getName() + ": " + content.toUpperCase()).getBytes(StandardCharsets.UTF_8));
+    };
+
+    @Test
+    public void testFilesAreTransformedAheadInOrder() throws IOException {
+        final File directory = temporaryFolder.newFolder();
+        for (int i = 0; i < 50; i++) {
+            Files.write(new File(directory, "file" + i + ".txt").toPath(), ("content " + i).getBytes("UTF-8"));
+        }
+
+        final ReadAheadTransformer.Pool pool = new ReadAheadTransformer.Pool(2);
+        try {
+            final DefaultFileSet fileSet = DefaultFileSet.fileSet(directory).prefixed("prefix/");
+            fileSet.setStreamTransformer(new ReadAheadTransformer(upperCase, pool));
+            final ScannedFileResourceCollection collection = ScannedFileResourceCollection.of(
+                    new ZipArchiver(), fileSet, ForkJoinPool.commonPool(), new DirectoryListings(), false);
+
+            // the files are read ahead in the order of the collection, from its first iteration on
+            for (int pass = 0; pass < 2; pass++) {
+                int count = 0;
+                for (Iterator<PlexusIoResource> it = collection.getResources(); it.hasNext(); ) {
+                    final PlexusIoResource resource = it.next();
+                    if (resource.isDirectory()) {
+                        continue;
+                    }
+                    final String name = resource.getName();
+                    final String index = name.substring("prefix/file".length(), name.length() - ".txt".length());
+                    try (InputStream in = collection.getInputStream(resource)) {
+                        assertEquals(name + ": CONTENT " + index, IOUtils.toString(in, StandardCharsets.UTF_8));
+                    }
+                    count++;
+                }
+                assertEquals(50, count);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(threads.contains("assembly-read-ahead-1"));
+    }
+
+    @Test
+    public void testPrefetchesOfSkippedFilesAreDropped() throws IOException {
+        final File directory = temporaryFolder.newFolder();
+        final List<File> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final File file = new File(directory, "file" + i + ".txt");
+            Files.write(file.toPath(), ("content " + i).getBytes("UTF-8"));
+            files.add(file);
+        }
+        final List<String> names = new ArrayList<>();
+        for (File file : files) {
+            names.add(file.getName());
+        }
+
+        final ReadAheadTransformer.Pool pool = new ReadAheadTransformer.Pool(1);
+        try {
+            final ReadAheadTransformer transformer = new ReadAheadTransformer(upperCase, pool);
+            transformer.start(files, names);
+            assertEquals("file0.txt: CONTENT 0", transform(transformer, files.get(0)));
+            assertEquals(Arrays.asList(1, 2, 3, 4), transformer.getPrefetched());
+
+            // the files in between are skipped
+            assertEquals("file10.txt: CONTENT 10", transform(transformer, files.get(10)));
+            assertEquals(Arrays.asList(11, 12, 13, 14), transformer.getPrefetched());
+
+            transformer.finish();
+            assertTrue(transformer.getPrefetched().isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String transform(ReadAheadTransformer transformer, File file) throws IOException {
+        final PlexusIoResource resource = ResourceFactory.createResource(file, file.getName());
+        try (InputStream contents = Files.newInputStream(file.toPath());
+                InputStream in = transformer.transform(resource, contents)) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+import org.codehaus.plexus.components.io.resources.PlexusIoFileResourceCollection;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.codehaus.plexus.components.io.resources.PlexusIoResourceCollection;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScannedFileResourceCollectionTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @After
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSameResourcesAsTheArchivers() throws IOException {
+        final File source = createTree();
+        Files.createSymbolicLink(
+                source.toPath().resolve("linked"), source.toPath().resolve("src"));
+
+        final DefaultFileSet fileSet = DefaultFileSet.fileSet(source);
+        fileSet.setExcludes(new String[] {"target/**", "**/*.tmp"});
+        fileSet.setPrefix("app/");
+        fileSet.includeEmptyDirs(true);
+        assertEquals(names(plexusCollection(fileSet)), names(scanned(fileSet, null)));
+
+        fileSet.setIncludes(new String[] {"src/**", "linked", "*.txt"});
+        fileSet.includeEmptyDirs(false);
+        assertEquals(names(plexusCollection(fileSet)), names(scanned(fileSet, null)));
+    }
+
+    @Test
+    public void testExcludedSubtreeIsNotWalked() throws IOException {
+        final File source = createTree();
+        final Set<String> listed = ConcurrentHashMap.newKeySet();
+        final Comparator<String> recording = (first, second) -> {
+            listed.add(first);
+            listed.add(second);
+            return first.compareTo(second);
+        };
+
+        final DefaultFileSet fileSet = DefaultFileSet.fileSet(source);
+        fileSet.setExcludes(new String[] {"target/**"});
+        final List<String> names = names(scanned(fileSet, recording));
+
+        assertTrue(names.contains("src/main/App.java"));
+        assertFalse(listed.contains("classes"));
+        assertFalse(listed.contains("app.jar"));
+    }
+
+    @Test
+    public void testScannedFileSetsAreLinked() throws IOException {
+        final File source = createTree();
+        final File output = temporaryFolder.newFolder("output");
+        final LinkingDirectoryArchiver archiver =
+                new LinkingDirectoryArchiver(LinkMode.HARDLINK, LinkingDirectoryArchiverTest.archiverManager());
+        archiver.setDestFile(output);
+
+        final DefaultFileSet fileSet = DefaultFileSet.fileSet(source);
+        fileSet.setIncludes(new String[] {"*.txt"});
+        archiver.addResources(
+                ScannedFileResourceCollection.of(archiver, fileSet, pool, new DirectoryListings(), false));
+        archiver.createArchive();
+
+        assertTrue(Files.isSameFile(
+                source.toPath().resolve("readme.txt"), output.toPath().resolve("readme.txt")));
+    }
+
+    private File createTree() throws IOException {
+        final File source = temporaryFolder.newFolder("source");
+        write(new File(source, "readme.txt"), "readme");
+        write(new File(source, "src/main/App.java"), "app");
+        write(new File(source, "src/main/App.tmp"), "tmp");
+        write(new File(source, "src/test/AppTest.java"), "test");
+        write(new File(source, ".git/HEAD"), "head");
+        write(new File(source, "target/app.jar"), "jar");
+        write(new File(source, "target/classes/App.class"), "class");
+        Files.createDirectories(source.toPath().resolve("src/empty"));
+        return source;
+    }
+
+    private PlexusIoResourceCollection scanned(DefaultFileSet fileSet, Comparator<String> comparator) {
+        final ZipArchiver archiver = new ZipArchiver();
+        archiver.setFilenameComparator(comparator);
+        return ScannedFileResourceCollection.of(archiver, fileSet, pool, new DirectoryListings(), false);
+    }
+
+    private static PlexusIoResourceCollection plexusCollection(DefaultFileSet fileSet) {
+        final PlexusIoFileResourceCollection collection = new PlexusIoFileResourceCollection();
+        collection.setFollowingSymLinks(false);
+        collection.setIncludes(fileSet.getIncludes());
+        collection.setExcludes(fileSet.getExcludes());
+        collection.setBaseDir(fileSet.getDirectory());
+        collection.setIncludingEmptyDirectories(fileSet.isIncludingEmptyDirectories());
+        collection.setPrefix(fileSet.getPrefix());
+        collection.setUsingDefaultExcludes(fileSet.isUsingDefaultExcludes());
+        return collection;
+    }
+
+    private static List<String> names(PlexusIoResourceCollection collection) throws IOException {
+        final List<String> names = new ArrayList<>();
+        for (Iterator<PlexusIoResource> it = collection.getResources(); it.hasNext(); ) {
+            names.add(it.next().getName());
+        }
+        return names;
+    }
+
+    private static Path write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        return Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
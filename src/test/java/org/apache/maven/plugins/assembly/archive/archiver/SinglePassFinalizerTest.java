@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.apache.maven.plugins.assembly.filter.ContainerDescriptorHandler;
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ResourceIterator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SinglePassFinalizerTest {
+    @Test
+    public void testHandlersShareOneIteration() throws Exception {
+        final Archiver archiver = mock(Archiver.class);
+        final int[] iterated = new int[1];
+        when(archiver.getResources()).thenAnswer(invocation -> resources(iterated, 3));
+        when(archiver.getOverrideFileMode()).thenReturn(0644);
+
+        final ContainerDescriptorHandler first = mock(ContainerDescriptorHandler.class);
+        final ContainerDescriptorHandler second = mock(ContainerDescriptorHandler.class);
+        final int[] seen = new int[2];
+        doAnswer(invocation -> {
+                    final Archiver aggregated = invocation.getArgument(0);
+                    assertFalse(aggregated.getResources().hasNext());
+                    assertEquals(0644, aggregated.getOverrideFileMode());
+                    seen[0]++;
+                    return null;
+                })
+                .when(first)
+                .finalizeArchiveCreation(any(Archiver.class));
+        doAnswer(invocation -> {
+                    seen[1]++;
+                    return null;
+                })
+                .when(second)
+                .finalizeArchiveCreation(any(Archiver.class));
+
+        new SinglePassFinalizer(Arrays.asList(first, second)).finalizeArchiveCreation(archiver);
+
+        verify(archiver, times(1)).getResources();
+        assertEquals(3, iterated[0]);
+        assertEquals(1, seen[0]);
+        assertEquals(1, seen[1]);
+    }
+
+    @Test
+    public void testVirtualFilesOfAllHandlers() {
+        final ContainerDescriptorHandler first = mock(ContainerDescriptorHandler.class);
+        when(first.getVirtualFiles()).thenReturn(Collections.singletonList("META-INF/services/a"));
+        final ContainerDescriptorHandler second = mock(ContainerDescriptorHandler.class);
+        final ContainerDescriptorHandler third = mock(ContainerDescriptorHandler.class);
+        when(third.getVirtualFiles()).thenReturn(Collections.singletonList("META-INF/spring.handlers"));
+
+        assertEquals(
+                Arrays.asList("META-INF/services/a", "META-INF/spring.handlers"),
+                new SinglePassFinalizer(Arrays.asList(first, second, third)).getVirtualFiles());
+        assertNull(new SinglePassFinalizer(Collections.singletonList(second)).getVirtualFiles());
+    }
+
+    private static ResourceIterator resources(int[] iterated, int count) {
+        final Iterator<ArchiveEntry> entries =
+                Collections.nCopies(count, mock(ArchiveEntry.class)).iterator();
+        return new ResourceIterator() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public ArchiveEntry next() {
+                iterated[0]++;
+                return entries.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.util.DefaultArchivedFileSet;
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SyncingDirectoryArchiverTest {
+    private static final FileTime MARKER = FileTime.fromMillis(1000000000000L);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testOnlyChangedFilesAreWrittenAndStaleFilesDeleted() throws IOException {
+        final File source = temporaryFolder.newFolder("source");
+        write(new File(source, "files/a.txt"), "a");
+        write(new File(source, "files/b.txt"), "b");
+        write(new File(source, "text/c.txt"), "c");
+        final File output = temporaryFolder.newFolder("output");
+        final File state = new File(temporaryFolder.getRoot(), "state");
+
+        createArchive(SyncMode.MTIME, source, output, state);
+        assertEquals("C", read(output, "filtered/c.txt"));
+        assertTrue(new File(state, "output.state").isFile());
+
+        Files.delete(new File(source, "files/a.txt").toPath());
+        write(new File(source, "files/b.txt"), "bb");
+        write(new File(output, "stale/d.txt"), "d");
+        Files.setLastModifiedTime(output.toPath().resolve("filtered/c.txt"), MARKER);
+
+        createArchive(SyncMode.MTIME, source, output, state);
+        assertFalse(new File(output, "files/a.txt").exists());
+        assertFalse(new File(output, "stale").exists());
+        assertEquals("bb", read(output, "files/b.txt"));
+        // the filtered file has the same content, so it is not written again
+        assertEquals(MARKER, Files.getLastModifiedTime(output.toPath().resolve("filtered/c.txt")));
+    }
+
+    @Test
+    public void testChecksumFindsChangesWithSameSizeAndTime() throws IOException {
+        final File source = temporaryFolder.newFolder("source");
+        final Path a = write(new File(source, "files/a.txt"), "a");
+        write(new File(source, "text/c.txt"), "c");
+        final File output = temporaryFolder.newFolder("output");
+        final File state = new File(temporaryFolder.getRoot(), "state");
+
+        createArchive(SyncMode.CHECKSUM, source, output, state);
+        final FileTime lastModified = Files.getLastModifiedTime(a);
+        write(a.toFile(), "z");
+        Files.setLastModifiedTime(a, lastModified);
+
+        createArchive(SyncMode.CHECKSUM, source, output, state);
+        assertEquals("z", read(output, "files/a.txt"));
+    }
+
+    @Test
+    public void testArchiveWithoutFilesIsSynchronized() throws IOException {
+        final File source = temporaryFolder.newFolder("source");
+        final Path a = write(new File(source, "files/a.txt"), "a");
+        Files.createDirectories(source.toPath().resolve("files/empty"));
+        Files.createDirectories(source.toPath().resolve("text"));
+        final File output = temporaryFolder.newFolder("output");
+        final File state = new File(temporaryFolder.getRoot(), "state");
+
+        createArchive(SyncMode.MTIME, source, output, state);
+        assertTrue(new File(output, "files/a.txt").isFile());
+
+        Files.delete(a);
+        createArchive(SyncMode.MTIME, source, output, state);
+        assertFalse(new File(output, "files/a.txt").exists());
+        assertTrue(new File(output, "files/empty").isDirectory());
+    }
+
+    @Test
+    public void testUnpackedFilesAreSynchronized() throws IOException {
+        final File archive = new File(temporaryFolder.getRoot(), "lib.zip");
+        final File output = temporaryFolder.newFolder("output");
+        final File state = new File(temporaryFolder.getRoot(), "state");
+
+        LinkingDirectoryArchiverTest.zip(archive, "com/App.class", "com/Old.class");
+        unpack(archive, output, state);
+        assertEquals("com/Old.class", read(output, "unpacked/com/Old.class"));
+
+        LinkingDirectoryArchiverTest.zip(archive, "com/App.class");
+        unpack(archive, output, state);
+        assertEquals("com/App.class", read(output, "unpacked/com/App.class"));
+        assertFalse(new File(output, "unpacked/com/Old.class").exists());
+    }
+
+    private static void unpack(File archive, File output, File state) throws IOException {
+        final SyncingDirectoryArchiver archiver = new SyncingDirectoryArchiver(
+                LinkMode.HARDLINK, SyncMode.CHECKSUM, state, LinkingDirectoryArchiverTest.archiverManager());
+        archiver.setDestFile(output);
+        final DefaultArchivedFileSet unpacked = DefaultArchivedFileSet.archivedFileSet(archive);
+        unpacked.setPrefix("unpacked/");
+        archiver.addArchivedFileSet(unpacked);
+        archiver.createArchive();
+    }
+
+    private static void createArchive(SyncMode syncMode, File source, File output, File state) throws IOException {
+        final SyncingDirectoryArchiver archiver = new SyncingDirectoryArchiver(
+                LinkMode.COPY, syncMode, state, LinkingDirectoryArchiverTest.archiverManager());
+        archiver.setDestFile(output);
+
+        final DefaultFileSet files = DefaultFileSet.fileSet(new File(source, "files"));
+        files.setPrefix("files/");
+        archiver.addFileSet(files);
+
+        final DefaultFileSet filtered = DefaultFileSet.fileSet(new File(source, "text"));
+        filtered.setPrefix("filtered/");
+        filtered.setStreamTransformer((resource, in) -> new ByteArrayInputStream(
+                IOUtils.toString(in, StandardCharsets.UTF_8).toUpperCase().getBytes(StandardCharsets.UTF_8)));
+        archiver.addFileSet(filtered);
+
+        archiver.createArchive();
+    }
+
+    private static Path write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        return Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File directory, String name) throws IOException {
+        return new String(Files.readAllBytes(new File(directory, name).toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -19,10 +19,12 @@
 package org.apache.maven.plugins.assembly.archive.phase;
 
 import java.io.File;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Collections;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.model.Model;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.model.Assembly;
@@ -36,10 +38,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -137,6 +141,50 @@ public class FileItemAssemblyPhaseTest {
                         any(PlexusIoResource.class), eq("file.txt"), eq(TypeConversionUtils.modeToInt("777", logger)));
     }
 
+    @Test
+    public void testExecute_ConcatenatesSourcesWhenRead() throws Exception {
+        final AssemblerConfigurationSource macCS = mock(AssemblerConfigurationSource.class);
+
+        final File basedir = temporaryFolder.getRoot();
+
+        final File header = temporaryFolder.newFile("header.txt");
+        Files.write(header.toPath(), "header\n".getBytes(StandardCharsets.UTF_8));
+        final File body = temporaryFolder.newFile("body.txt");
+        Files.write(body.toPath(), "body\n".getBytes(StandardCharsets.UTF_8));
+
+        when(macCS.getBasedir()).thenReturn(basedir);
+        when(macCS.getProject()).thenReturn(new MavenProject(new Model()));
+        when(macCS.getFinalName()).thenReturn("final-name");
+        prepareInterpolators(macCS);
+
+        final Archiver macArchiver = mock(Archiver.class);
+
+        final Assembly assembly = new Assembly();
+        assembly.setId("test");
+
+        final FileItem fi = new FileItem();
+        fi.addSource("header.txt");
+        fi.addSource("body.txt");
+        fi.setDestName("all.txt");
+        fi.setFiltered(false);
+        fi.setFileMode("644");
+
+        assembly.addFile(fi);
+
+        new FileItemAssemblyPhase().execute(assembly, macArchiver, macCS);
+
+        final ArgumentCaptor<PlexusIoResource> resource = ArgumentCaptor.forClass(PlexusIoResource.class);
+        verify(macArchiver)
+                .addResource(resource.capture(), eq("all.txt"), eq(TypeConversionUtils.modeToInt("644", logger)));
+        assertEquals(12, resource.getValue().getSize());
+
+        // the sources are read once the content is
+        Files.write(body.toPath(), "BODY\n".getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = resource.getValue().getContents()) {
+            assertEquals("header\nBODY\n", IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+    }
+
     @Test
     public void testExecute_WithOutputDirectory() throws Exception {
         final AssemblerConfigurationSource macCS = mock(AssemblerConfigurationSource.class);
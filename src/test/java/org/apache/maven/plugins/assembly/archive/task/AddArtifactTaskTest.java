@@ -20,7 +20,11 @@ package org.apache.maven.plugins.assembly.archive.task;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.handler.ArtifactHandler;
@@ -32,20 +36,29 @@ import org.apache.maven.plugins.assembly.utils.TypeConversionUtils;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.archiver.ArchivedFileSet;
 import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.FileSet;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -258,4 +271,97 @@ public class AddArtifactTaskTest {
         verify(archiver).getOverrideDirectoryMode();
         verify(archiver).getOverrideFileMode();
     }
+
+    @Test
+    public void testShouldAddBuildOutputDirectoryHoldingTheArtifactContent() throws Exception {
+        final File jar = createJar();
+        final File classes = createClasses(jar.lastModified() - 10000);
+        final Archiver archiver = unpack(jar, classes);
+
+        final ArgumentCaptor<FileSet> fileSet = ArgumentCaptor.forClass(FileSet.class);
+        verify(archiver).addFileSet(fileSet.capture());
+        assertEquals(classes, fileSet.getValue().getDirectory());
+        assertEquals("app/", fileSet.getValue().getPrefix());
+
+        // the entries which are not in the directory are still unpacked
+        final ArgumentCaptor<ArchivedFileSet> archivedFileSet = ArgumentCaptor.forClass(ArchivedFileSet.class);
+        verify(archiver).addArchivedFileSet(archivedFileSet.capture(), isNull());
+        final FileSelector selector = archivedFileSet.getValue().getFileSelectors()[0];
+        assertTrue(selector.isSelected(fileInfo("META-INF/MANIFEST.MF")));
+        assertFalse(selector.isSelected(fileInfo("com/App.class")));
+    }
+
+    @Test
+    public void testShouldUnpackArtifactWhenBuildOutputDirectoryWasModified() throws Exception {
+        final File jar = createJar();
+        final File classes = createClasses(jar.lastModified() + 10000);
+        final Archiver archiver = unpack(jar, classes);
+
+        final ArgumentCaptor<ArchivedFileSet> archivedFileSet = ArgumentCaptor.forClass(ArchivedFileSet.class);
+        verify(archiver).addArchivedFileSet(archivedFileSet.capture(), isNull());
+        assertNull(archivedFileSet.getValue().getFileSelectors());
+        verify(archiver, never()).addFileSet(any(FileSet.class));
+    }
+
+    @Test
+    public void testShouldAddCachedArtifactContents() throws Exception {
+        final File cacheDirectory = temporaryFolder.newFolder("cache");
+        when(configSource.getUnpackCacheDirectory()).thenReturn(cacheDirectory);
+        when(configSource.getUnpackCacheMaxSize()).thenReturn(1024);
+
+        final Archiver archiver = unpack(createJar(), null);
+
+        final ArgumentCaptor<FileSet> fileSet = ArgumentCaptor.forClass(FileSet.class);
+        verify(archiver).addFileSet(fileSet.capture());
+        assertTrue(new File(fileSet.getValue().getDirectory(), "com/App.class").isFile());
+        assertTrue(fileSet.getValue().getDirectory().toPath().startsWith(cacheDirectory.toPath()));
+        verify(archiver, never()).addArchivedFileSet(any(ArchivedFileSet.class), isNull());
+    }
+
+    private Archiver unpack(File jar, File classes) throws Exception {
+        final Archiver archiver = mock(Archiver.class);
+        when(archiver.getDestFile()).thenReturn(new File("junk"));
+        when(archiver.getOverrideDirectoryMode()).thenReturn(-1);
+        when(archiver.getOverrideFileMode()).thenReturn(-1);
+
+        DefaultAssemblyArchiverTest.setupInterpolators(configSource, mainProject);
+
+        Artifact artifact = mock(Artifact.class);
+        when(artifact.getFile()).thenReturn(jar);
+
+        AddArtifactTask task = createTask(artifact);
+        task.setOutputDirectory("app");
+        task.setUnpack(true);
+        task.setBuildOutputDirectory(classes);
+
+        task.execute(archiver, configSource);
+        return archiver;
+    }
+
+    private static FileInfo fileInfo(String name) {
+        FileInfo fileInfo = mock(FileInfo.class);
+        when(fileInfo.getName()).thenReturn(name);
+        return fileInfo;
+    }
+
+    private File createJar() throws IOException {
+        final File jar = temporaryFolder.newFile("module.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            out.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("com/"));
+            out.putNextEntry(new ZipEntry("com/App.class"));
+            out.write("app".getBytes(StandardCharsets.UTF_8));
+        }
+        return jar;
+    }
+
+    private File createClasses(long lastModified) throws IOException {
+        final File classes = temporaryFolder.newFolder("classes");
+        final File file = new File(classes, "com/App.class");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "APP".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+        return classes;
+    }
 }
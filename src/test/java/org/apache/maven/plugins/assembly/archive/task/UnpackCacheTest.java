@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.archive.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class UnpackCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testArchiveIsUnpackedOnce() throws IOException {
+        final File cacheDirectory = temporaryFolder.newFolder("cache");
+        final File archive = createArchive("lib.jar", "com/App.class", "bin/run.sh");
+        final UnpackCache cache = new UnpackCache(cacheDirectory, Long.MAX_VALUE);
+
+        final File unpacked = cache.unpacked(archive, null);
+        assertEquals("com/App.class", read(new File(unpacked, "com/App.class")));
+        assertEquals("bin/run.sh", read(new File(unpacked, "bin/run.sh")));
+        if (Files.getFileStore(unpacked.toPath()).supportsFileAttributeView("posix")) {
+            assertTrue(Files.getPosixFilePermissions(new File(unpacked, "bin/run.sh").toPath())
+                    .contains(PosixFilePermission.OWNER_EXECUTE));
+        }
+
+        // a copy of the archive is the same entry, served from the cache by another build
+        final File copy = temporaryFolder.newFile("copy.jar");
+        Files.copy(archive.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.write(new File(unpacked, "marker").toPath(), new byte[0]);
+        final File cached = new UnpackCache(cacheDirectory, Long.MAX_VALUE).unpacked(copy, null);
+        assertEquals(unpacked, cached);
+        assertTrue(new File(cached, "marker").isFile());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreRemoved() throws IOException {
+        final File cacheDirectory = temporaryFolder.newFolder("cache");
+        final File old = createEntry(cacheDirectory, "old", System.currentTimeMillis() - 3600000L);
+        final File recent = createEntry(cacheDirectory, "recent", System.currentTimeMillis());
+        final UnpackCache cache = new UnpackCache(cacheDirectory, 1);
+
+        final File unpacked = cache.unpacked(createArchive("lib.jar", "com/App.class"), null);
+
+        assertFalse(old.exists());
+        // possibly in use by a concurrent build
+        assertTrue(recent.exists());
+        // in use by this build
+        assertTrue(unpacked.isDirectory());
+    }
+
+    @Test
+    public void testEntriesUsedByTheBuildAreKeptUntilTheArchiveIsCreated() throws IOException {
+        final File cacheDirectory = temporaryFolder.newFolder("cache");
+        final UnpackCache cache = new UnpackCache(cacheDirectory, 1);
+        final File unpacked = cache.unpacked(createArchive("lib.jar", "com/App.class"), null);
+        // looked up long before the archive is created
+        final Path size = new File(unpacked.getParentFile(), "size").toPath();
+        Files.setLastModifiedTime(size, FileTime.fromMillis(System.currentTimeMillis() - 3600000L));
+
+        cache.refresh();
+        new UnpackCache(cacheDirectory, 1).unpacked(createArchive("other.jar", "com/Other.class"), null);
+
+        // used again once the archive is created, so kept by a concurrent build
+        assertTrue(unpacked.isDirectory());
+    }
+
+    @Test
+    public void testArchivesOutsideOfTheirRootAreNotCached() throws IOException {
+        final File cacheDirectory = temporaryFolder.newFolder("cache");
+        final UnpackCache cache = new UnpackCache(cacheDirectory, Long.MAX_VALUE);
+
+        final File evil = createArchive("evil.jar", "../evil.txt");
+        assertNull(cache.unpacked(evil, null));
+        final File tarball = temporaryFolder.newFile("lib.tar");
+        Files.write(tarball.toPath(), "not a zip".getBytes(StandardCharsets.UTF_8));
+        assertNull(cache.unpacked(tarball, null));
+
+        // only the marker of the archive which is not cached is kept, and read by the next builds
+        final File[] entries = cacheDirectory.listFiles();
+        assertEquals(1, entries.length);
+        assertTrue(new File(entries[0], "uncached").isFile());
+        assertFalse(new File(entries[0], "content").exists());
+        assertNull(new UnpackCache(cacheDirectory, Long.MAX_VALUE).unpacked(evil, null));
+        assertEquals(1, cacheDirectory.list().length);
+    }
+
+    @Test
+    public void testArchivesWithNamesOnlyDifferingByCaseAreNotCached() throws IOException {
+        final File cacheDirectory = temporaryFolder.newFolder("cache");
+        final UnpackCache cache = new UnpackCache(cacheDirectory, Long.MAX_VALUE);
+
+        assertNull(cache.unpacked(createArchive("lib.jar", "a/Foo.class", "a/foo.class"), null));
+        assertNull(cache.unpacked(createArchive("dir.jar", "a/Foo", "a/foo/Bar.class"), null));
+        for (File entry : cacheDirectory.listFiles()) {
+            assertFalse(new File(entry, "content").exists());
+        }
+    }
+
+    private File createArchive(String name, String... entries) throws IOException {
+        final File archive = temporaryFolder.newFile(name);
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(archive)) {
+            for (String entryName : entries) {
+                final ZipArchiveEntry entry = new ZipArchiveEntry(entryName);
+                entry.setUnixMode(entryName.endsWith(".sh") ? 0100755 : 0100644);
+                out.putArchiveEntry(entry);
+                out.write(entryName.getBytes(StandardCharsets.UTF_8));
+                out.closeArchiveEntry();
+            }
+        }
+        return archive;
+    }
+
+    private static File createEntry(File cacheDirectory, String name, long lastUsed) throws IOException {
+        final File entry = new File(cacheDirectory, name);
+        assumeTrue(new File(entry, "content").mkdirs());
+        final File size = new File(entry, "size");
+        Files.write(size.toPath(), "100".getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(size.toPath(), FileTime.fromMillis(lastUsed));
+        return entry;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
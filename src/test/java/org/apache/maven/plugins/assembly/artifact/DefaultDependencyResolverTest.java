@@ -21,7 +21,9 @@ package org.apache.maven.plugins.assembly.artifact;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
@@ -30,6 +32,7 @@ import org.apache.maven.artifact.handler.DefaultArtifactHandler;
 import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
 import org.apache.maven.artifact.versioning.VersionRange;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
 import org.apache.maven.model.Model;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.model.DependencySet;
@@ -40,19 +43,24 @@ import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.graph.DefaultDependencyNode;
 import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResult;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -71,6 +79,9 @@ public class DefaultDependencyResolverTest {
     @InjectMocks
     private DefaultDependencyResolver resolver;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void test_getDependencySetResolutionRequirements_transitive() throws Exception {
         final DependencySet ds = new DependencySet();
@@ -107,6 +118,113 @@ public class DefaultDependencyResolverTest {
         });
     }
 
+    @Test
+    public void test_getDependencySetResolutionRequirements_snapshot() throws Exception {
+        final DependencySet ds = new DependencySet();
+        ds.setScope(Artifact.SCOPE_RUNTIME);
+        ds.setUseTransitiveDependencies(true);
+
+        final MavenProject project = createMavenProject("main-group", "main-artifact", "1", null);
+        project.getBuild().setDirectory(temporaryFolder.newFolder("target").getPath());
+        final File repository = temporaryFolder.newFolder("repository");
+        when(systemSession.getLocalRepository()).thenReturn(new LocalRepository(repository));
+        final File jar = new File(repository, "g/id/a-id/1/a-id-1.jar");
+        assertTrue(jar.getParentFile().mkdirs());
+        assertTrue(jar.createNewFile());
+        assertTrue(new File(jar.getParentFile(), "a-id-1.pom").createNewFile());
+
+        DefaultDependencyNode node = new DefaultDependencyNode(
+                new Dependency(new org.eclipse.aether.artifact.DefaultArtifact("g.id:a-id:1").setFile(jar), "runtime"));
+        DependencyResult dependencyResult = new DependencyResult(new DependencyRequest());
+        DefaultDependencyNode rootDependencyNode = new DefaultDependencyNode((Dependency) null);
+        rootDependencyNode.setChildren(Collections.singletonList(node));
+        dependencyResult.setRoot(rootDependencyNode);
+
+        when(repositorySystem.resolveDependencies(eq(systemSession), any())).thenReturn(dependencyResult);
+
+        final ResolutionManagementInfo resolved = new ResolutionManagementInfo();
+        resolver.updateDependencySetResolutionRequirements(systemSession, true, ds, resolved, project);
+        final ResolutionManagementInfo loaded = new ResolutionManagementInfo();
+        resolver.updateDependencySetResolutionRequirements(systemSession, true, ds, loaded, project);
+
+        verify(repositorySystem).resolveDependencies(eq(systemSession), any());
+        assertEquals(resolved.getArtifacts(), loaded.getArtifacts());
+        final Artifact artifact = loaded.getArtifacts().iterator().next();
+        assertEquals(jar, artifact.getFile());
+        assertEquals("runtime", artifact.getScope());
+        assertEquals(Arrays.asList(project.getArtifact().getId(), artifact.getId()), artifact.getDependencyTrail());
+
+        // a changed artifact invalidates the snapshot
+        assertTrue(jar.setLastModified(jar.lastModified() - 10000L));
+        resolver.updateDependencySetResolutionRequirements(
+                systemSession, true, ds, new ResolutionManagementInfo(), project);
+        verify(repositorySystem, times(2)).resolveDependencies(eq(systemSession), any());
+    }
+
+    @Test
+    public void test_getDependencySetResolutionRequirements_snapshotOutsideOfLocalRepository() throws Exception {
+        final DependencySet ds = new DependencySet();
+        ds.setScope(Artifact.SCOPE_RUNTIME);
+        ds.setUseTransitiveDependencies(true);
+
+        final MavenProject project = createMavenProject("main-group", "main-artifact", "1", null);
+        project.getBuild().setDirectory(temporaryFolder.newFolder("target").getPath());
+        when(systemSession.getLocalRepository())
+                .thenReturn(new LocalRepository(temporaryFolder.newFolder("repository")));
+        // the output directory of a module of the reactor, whose pom.xml may change its dependencies
+        final File classes = temporaryFolder.newFolder("module", "target", "classes");
+
+        DefaultDependencyNode node = new DefaultDependencyNode(new Dependency(
+                new org.eclipse.aether.artifact.DefaultArtifact("g.id:module:1").setFile(classes), "runtime"));
+        DependencyResult dependencyResult = new DependencyResult(new DependencyRequest());
+        DefaultDependencyNode rootDependencyNode = new DefaultDependencyNode((Dependency) null);
+        rootDependencyNode.setChildren(Collections.singletonList(node));
+        dependencyResult.setRoot(rootDependencyNode);
+
+        when(repositorySystem.resolveDependencies(eq(systemSession), any())).thenReturn(dependencyResult);
+
+        resolver.updateDependencySetResolutionRequirements(
+                systemSession, true, ds, new ResolutionManagementInfo(), project);
+        resolver.updateDependencySetResolutionRequirements(
+                systemSession, true, ds, new ResolutionManagementInfo(), project);
+
+        verify(repositorySystem, times(2)).resolveDependencies(eq(systemSession), any());
+        assertFalse(new File(project.getBuild().getDirectory(), "assembly-dependencies/runtime.snapshot").exists());
+    }
+
+    @Test
+    public void test_getDependencySetResolutionRequirements_resolvedOnce() throws Exception {
+        final DependencySet ds = new DependencySet();
+        ds.setScope(Artifact.SCOPE_RUNTIME);
+        ds.setUseTransitiveDependencies(true);
+
+        final MavenProject project = createMavenProject("main-group", "main-artifact", "1", null);
+        final File jar = temporaryFolder.newFile("a-id-1.jar");
+
+        DefaultDependencyNode node = new DefaultDependencyNode(
+                new Dependency(new org.eclipse.aether.artifact.DefaultArtifact("g.id:a-id:1").setFile(jar), "runtime"));
+        DependencyResult dependencyResult = new DependencyResult(new DependencyRequest());
+        DefaultDependencyNode rootDependencyNode = new DefaultDependencyNode((Dependency) null);
+        rootDependencyNode.setChildren(Collections.singletonList(node));
+        dependencyResult.setRoot(rootDependencyNode);
+
+        when(repositorySystem.resolveDependencies(eq(systemSession), any())).thenReturn(dependencyResult);
+
+        final Map<String, Set<Artifact>> resolvedDependencies = new HashMap<>();
+        final ResolutionManagementInfo first = new ResolutionManagementInfo();
+        resolver.updateDependencySetResolutionRequirements(
+                systemSession, false, resolvedDependencies, ds, first, project);
+        // changed by an assembly phase
+        first.getArtifacts().iterator().next().setFile(new File("moved.jar"));
+        final ResolutionManagementInfo second = new ResolutionManagementInfo();
+        resolver.updateDependencySetResolutionRequirements(
+                systemSession, false, resolvedDependencies, ds, second, project);
+
+        verify(repositorySystem).resolveDependencies(eq(systemSession), any());
+        assertEquals(first.getArtifacts(), second.getArtifacts());
+        assertEquals(jar, second.getArtifacts().iterator().next().getFile());
+    }
+
     @Test
     public void test_getDependencySetResolutionRequirements_nonTransitive() throws DependencyResolutionException {
         final DependencySet ds = new DependencySet();
@@ -206,6 +324,7 @@ public class DefaultDependencyResolverTest {
         model.setPackaging("pom");
 
         final MavenProject project = new MavenProject(model);
+        model.setBuild(new Build());
 
         final Artifact pomArtifact = newArtifact(groupId, artifactId, version);
         project.setArtifact(pomArtifact);
@@ -25,6 +25,7 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -45,6 +46,8 @@ import org.codehaus.plexus.components.io.resources.PlexusIoResource;
 import org.codehaus.plexus.components.io.resources.PlexusIoResourceCollection;
 import org.codehaus.plexus.util.xml.PrettyPrintXMLWriter;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.codehaus.plexus.util.xml.Xpp3DomWriter;
 import org.jdom2.Document;
 import org.jdom2.Text;
 import org.jdom2.filter.Filters;
@@ -83,7 +86,7 @@ public class ComponentsXmlArchiverFileFilterTest {
 
         assertFalse(filter.components.isEmpty());
 
-        final Xpp3Dom componentDom = filter.components.get("role");
+        final Xpp3Dom componentDom = getComponentDom("role");
 
         assertEquals("role", componentDom.getChild("role").getValue());
         assertNull(componentDom.getChild("role-hint"));
@@ -100,7 +103,7 @@ public class ComponentsXmlArchiverFileFilterTest {
 
         assertFalse(filter.components.isEmpty());
 
-        final Xpp3Dom componentDom = filter.components.get("rolehint");
+        final Xpp3Dom componentDom = getComponentDom("rolehint");
 
         assertEquals("role", componentDom.getChild("role").getValue());
         assertEquals("hint", componentDom.getChild("role-hint").getValue());
@@ -121,14 +124,14 @@ public class ComponentsXmlArchiverFileFilterTest {
 
         assertFalse(filter.components.isEmpty());
 
-        Xpp3Dom componentDom = filter.components.get("rolehint");
+        Xpp3Dom componentDom = getComponentDom("rolehint");
 
         assertEquals("role", componentDom.getChild("role").getValue());
         assertEquals("hint", componentDom.getChild("role-hint").getValue());
         assertEquals(
                 "org.apache.maven.Impl", componentDom.getChild("implementation").getValue());
 
-        componentDom = filter.components.get("rolehint2");
+        componentDom = getComponentDom("rolehint2");
 
         assertEquals("role", componentDom.getChild("role").getValue());
         assertEquals("hint2", componentDom.getChild("role-hint").getValue());
@@ -137,12 +140,29 @@ public class ComponentsXmlArchiverFileFilterTest {
                 componentDom.getChild("implementation").getValue());
     }
 
+    @Test
+    public void testAddComponentsXml_ShouldKeepFirstComponentWithSameRoleHint() throws Exception {
+        filter.addComponentsXml(writeComponentsXml(
+                Collections.singletonList(new ComponentDef("role", "hint", "org.apache.maven.Impl"))));
+        filter.addComponentsXml(writeComponentsXml(Arrays.asList(
+                new ComponentDef("role", "hint", "org.apache.maven.Other"),
+                new ComponentDef("role", "hint2", "org.apache.maven.Impl2"))));
+
+        assertEquals(2, filter.components.size());
+        assertEquals(
+                "org.apache.maven.Impl",
+                getComponentDom("rolehint").getChild("implementation").getValue());
+        assertEquals(
+                "org.apache.maven.Impl2",
+                getComponentDom("rolehint2").getChild("implementation").getValue());
+    }
+
     @Test
     public void testAddToArchive_ShouldWriteComponentWithoutHintToFile() throws Exception {
         final Xpp3Dom dom = createComponentDom(new ComponentDef("role", null, "impl"));
 
         filter.components = new LinkedHashMap<>();
-        filter.components.put("role", dom);
+        filter.components.put("role", toFragment(dom));
 
         final FileCatchingArchiver fca = new FileCatchingArchiver();
 
@@ -170,7 +190,7 @@ public class ComponentsXmlArchiverFileFilterTest {
         final Xpp3Dom dom = createComponentDom(new ComponentDef("role", "hint", "impl"));
 
         filter.components = new LinkedHashMap<>();
-        filter.components.put("rolehint", dom);
+        filter.components.put("rolehint", toFragment(dom));
 
         final FileCatchingArchiver fca = new FileCatchingArchiver();
 
@@ -199,11 +219,11 @@ public class ComponentsXmlArchiverFileFilterTest {
 
         final Xpp3Dom dom = createComponentDom(new ComponentDef("role", "hint", "impl"));
 
-        filter.components.put("rolehint", dom);
+        filter.components.put("rolehint", toFragment(dom));
 
         final Xpp3Dom dom2 = createComponentDom(new ComponentDef("role", "hint2", "impl"));
 
-        filter.components.put("rolehint2", dom2);
+        filter.components.put("rolehint2", toFragment(dom2));
 
         final FileCatchingArchiver fca = new FileCatchingArchiver();
 
@@ -242,11 +262,11 @@ public class ComponentsXmlArchiverFileFilterTest {
 
         final Xpp3Dom dom = createComponentDom(new ComponentDef("role", "hint", "impl"));
 
-        filter.components.put("rolehint", dom);
+        filter.components.put("rolehint", toFragment(dom));
 
         final Xpp3Dom dom2 = createComponentDom(new ComponentDef("role", "hint2", "impl"));
 
-        filter.components.put("rolehint2", dom2);
+        filter.components.put("rolehint2", toFragment(dom2));
 
         final ZipArchiver archiver = new ZipArchiver();
 
@@ -293,6 +313,16 @@ public class ComponentsXmlArchiverFileFilterTest {
         assertEquals("impl", implementation2.evaluateFirst(doc).getText());
     }
 
+    private Xpp3Dom getComponentDom(final String key) throws Exception {
+        return Xpp3DomBuilder.build(new StringReader(filter.components.get(key)));
+    }
+
+    private String toFragment(final Xpp3Dom dom) {
+        final StringWriter writer = new StringWriter();
+        Xpp3DomWriter.write(writer, dom);
+        return writer.toString();
+    }
+
     private Xpp3Dom createComponentDom(final ComponentDef def) {
         final Xpp3Dom dom = new Xpp3Dom("component");
 
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.filter;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetaInfServicesHandlerTest {
+
+    private static final String SERVICE = "META-INF/services/org.example.Service";
+
+    @Test
+    public void testServicesAreAggregatedInOrderWithoutDuplicates() throws Exception {
+        final MetaInfServicesHandler handler = new MetaInfServicesHandler();
+
+        assertFalse(handler.isSelected(service("org.example.A\norg.example.B\n")));
+        assertFalse(handler.isSelected(service("org.example.C\norg.example.A\norg.example.B\n")));
+        assertTrue(handler.isSelected(fileInfo("META-INF/MANIFEST.MF", "")));
+        assertEquals(Collections.singletonList(SERVICE), handler.getVirtualFiles());
+
+        final Archiver archiver = mock(Archiver.class);
+        handler.addToArchive(archiver);
+
+        final ArgumentCaptor<PlexusIoResource> resource = ArgumentCaptor.forClass(PlexusIoResource.class);
+        verify(archiver).addResource(resource.capture(), eq(SERVICE), anyInt());
+        final String nl = System.lineSeparator();
+        assertEquals(
+                "org.example.A" + nl + "org.example.B" + nl + "org.example.C" + nl,
+                IOUtils.toString(resource.getValue().getContents(), StandardCharsets.UTF_8));
+    }
+
+    private FileInfo service(final String content) throws Exception {
+        return fileInfo(SERVICE, content);
+    }
+
+    private FileInfo fileInfo(final String name, final String content) throws Exception {
+        final FileInfo fileInfo = mock(FileInfo.class);
+        when(fileInfo.getName()).thenReturn(name);
+        when(fileInfo.isFile()).thenReturn(true);
+        when(fileInfo.getContents()).thenReturn(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        return fileInfo;
+    }
+}
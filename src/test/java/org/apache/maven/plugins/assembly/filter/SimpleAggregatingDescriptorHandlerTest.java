@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.filter;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SimpleAggregatingDescriptorHandlerTest {
+
+    @Test
+    public void testAggregatesInMemory() throws Exception {
+        assertEquals("\nfirst\n\nsecond\n", aggregate(1024 * 1024));
+    }
+
+    @Test
+    public void testAggregatesAboveSpillThreshold() throws Exception {
+        assertEquals("\nfirst\n\nsecond\n", aggregate(4));
+    }
+
+    @Test
+    public void testEachArchiveAggregatesItsOwnFiles() throws Exception {
+        final SimpleAggregatingDescriptorHandler handler = createHandler(4);
+
+        assertEquals("\nfirst\n\nsecond\n", aggregate(handler));
+        assertEquals("\nfirst\n\nsecond\n", aggregate(handler));
+
+        final PlexusIoResource resource = finalizeArchive(handler);
+        handler.archiveCreated();
+        try {
+            resource.getContents();
+            fail("The aggregate spilled to a temporary file, deleted once the archive is created");
+        } catch (NoSuchFileException expected) {
+            // deleted
+        }
+    }
+
+    private String aggregate(final int spillThreshold) throws Exception {
+        return aggregate(createHandler(spillThreshold));
+    }
+
+    private static SimpleAggregatingDescriptorHandler createHandler(final int spillThreshold) {
+        final SimpleAggregatingDescriptorHandler handler = new SimpleAggregatingDescriptorHandler();
+        handler.setFilePattern(".*/file\\.txt");
+        handler.setOutputPath("file.txt");
+        handler.setEncoding("UTF-8");
+        handler.setSpillThreshold(spillThreshold);
+        return handler;
+    }
+
+    private String aggregate(final SimpleAggregatingDescriptorHandler handler) throws Exception {
+        final PlexusIoResource resource = finalizeArchive(handler);
+        final String content = IOUtils.toString(resource.getContents(), StandardCharsets.UTF_8);
+        assertTrue(content.startsWith("# Aggregated on "));
+        assertTrue(content.contains("\n# a/file.txt\n# b/file.txt\n\n"));
+        assertEquals(content.length(), resource.getSize());
+        handler.archiveCreated();
+        return content.substring(content.indexOf("\n\n") + 2);
+    }
+
+    private PlexusIoResource finalizeArchive(final SimpleAggregatingDescriptorHandler handler) throws Exception {
+        assertFalse(handler.isSelected(fileInfo("a/file.txt", "first\n")));
+        assertTrue(handler.isSelected(fileInfo("a/other.txt", "other\n")));
+        assertFalse(handler.isSelected(fileInfo("b/file.txt", "second\n")));
+
+        final Archiver archiver = mock(Archiver.class);
+        handler.finalizeArchiveCreation(archiver);
+
+        final ArgumentCaptor<PlexusIoResource> resource = ArgumentCaptor.forClass(PlexusIoResource.class);
+        verify(archiver).addResource(resource.capture(), eq("file.txt"), anyInt());
+        return resource.getValue();
+    }
+
+    private FileInfo fileInfo(final String name, final String content) throws Exception {
+        final FileInfo fileInfo = mock(FileInfo.class);
+        when(fileInfo.getName()).thenReturn(name);
+        when(fileInfo.isFile()).thenReturn(true);
+        when(fileInfo.getContents()).thenReturn(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        return fileInfo;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.components.io.resources.PlexusIoFileResource;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BinaryContentDetectorTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void plainTextIsNotBinary() {
+        assertFalse(isBinary("Hello ${name},\r\n\tthis is text.\n".getBytes(StandardCharsets.UTF_8), true));
+    }
+
+    @Test
+    public void utf8TextIsNotBinary() {
+        assertFalse(isBinary("Grüße, 日本語, ünïcödé\n".getBytes(StandardCharsets.UTF_8), true));
+    }
+
+    @Test
+    public void latin1TextIsNotBinaryWhenNotCheckingUtf8() {
+        byte[] content = "Grüße à tous\n".getBytes(StandardCharsets.ISO_8859_1);
+        assertFalse(isBinary(content, false));
+    }
+
+    @Test
+    public void nulByteIsBinary() {
+        assertTrue(isBinary(new byte[] {'a', 'b', 0, 'c'}, true));
+    }
+
+    @Test
+    public void utf16WithBomIsNotBinary() {
+        assertFalse(isBinary("\uFEFFhello".getBytes(StandardCharsets.UTF_16BE), true));
+        assertFalse(isBinary("\uFEFFhello".getBytes(StandardCharsets.UTF_16LE), true));
+    }
+
+    @Test
+    public void wideTextWithoutBomIsNotBinary() {
+        final String text = "Hello ${name},\r\n\tthis is text.\n";
+        assertFalse(BinaryContentDetector.isBinary(
+                text.getBytes(StandardCharsets.UTF_16LE), text.length() * 2, StandardCharsets.UTF_16LE));
+        assertFalse(BinaryContentDetector.isBinary(
+                text.getBytes(StandardCharsets.UTF_16BE), text.length() * 2, StandardCharsets.UTF_16BE));
+        assertTrue(BinaryContentDetector.isBinary(
+                text.getBytes(StandardCharsets.UTF_16LE), text.length() * 2, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void magicNumbersAreBinary() {
+        assertTrue(isBinary(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n'}, true));
+        assertTrue(isBinary(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE}, true));
+        assertTrue(isBinary(new byte[] {'P', 'K', 3, 4, 'x'}, true));
+    }
+
+    @Test
+    public void invalidUtf8IsBinary() {
+        byte[] content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 2 == 0 ? 0x80 + i : 'a');
+        }
+        assertTrue(isBinary(content, true));
+    }
+
+    @Test
+    public void truncatedUtf8SequenceAtEndOfBlockIsNotBinary() {
+        byte[] text = "abcü".getBytes(StandardCharsets.UTF_8);
+        assertFalse(BinaryContentDetector.isBinary(text, text.length - 1, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void inspectPreservesContent() throws IOException {
+        byte[] content = new byte[BinaryContentDetector.BLOCK_SIZE * 3];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        BinaryContentDetector.Inspection inspection =
+                BinaryContentDetector.inspect(mock(PlexusIoResource.class), new ByteArrayInputStream(content), "UTF-8");
+        assertFalse(inspection.isBinary());
+        assertArrayEquals(content, IOUtils.toByteArray(inspection.getStream()));
+    }
+
+    @Test
+    public void inspectCachesClassificationPerEncoding() throws IOException {
+        final File file = temporaryFolder.newFile("latin1.txt");
+        Files.write(file.toPath(), "Grüße à tous\n".getBytes(StandardCharsets.ISO_8859_1));
+        final PlexusIoFileResource resource = mock(PlexusIoFileResource.class);
+        when(resource.getFile()).thenReturn(file);
+
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            assertFalse(
+                    BinaryContentDetector.inspect(resource, in, "ISO-8859-1").isBinary());
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            assertTrue(BinaryContentDetector.inspect(resource, in, "UTF-8").isBinary());
+        }
+    }
+
+    private static boolean isBinary(byte[] content, boolean checkUtf8) {
+        return BinaryContentDetector.isBinary(
+                content, content.length, checkUtf8 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+    }
+}
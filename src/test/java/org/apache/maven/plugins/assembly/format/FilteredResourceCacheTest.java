@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugins.assembly.testutils.PojoConfigSource;
+import org.apache.maven.plugins.assembly.utils.LineEndings;
+import org.apache.maven.project.MavenProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FilteredResourceCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicInteger filtered = new AtomicInteger();
+
+    private final FilteredResourceCache.Filter upperCase = in -> {
+        filtered.incrementAndGet();
+        String content = IOUtils.toString(in, StandardCharsets.UTF_8);
+        return new ByteArrayInputStream(content.toUpperCase().getBytes(StandardCharsets.UTF_8));
+    };
+
+    @Test
+    public void unchangedResourceIsFilteredOnce() throws Exception {
+        PojoConfigSource cfg = getPojoConfigSource();
+
+        assertEquals("HELLO ${NAME}", get(newCache(cfg), "hello ${name}", false));
+        assertEquals("HELLO ${NAME}", get(newCache(cfg), "hello ${name}", false));
+        assertEquals(1, filtered.get());
+    }
+
+    @Test
+    public void changedResourceOrContextIsFilteredAgain() throws Exception {
+        PojoConfigSource cfg = getPojoConfigSource();
+
+        get(newCache(cfg), "hello ${name}", false);
+        get(newCache(cfg), "hello ${other}", false);
+        get(newCache(cfg), "hello ${name}", true);
+        cfg.getProject().getModel().setVersion("2.0");
+        get(newCache(cfg), "hello ${name}", false);
+        Properties additionalProperties = new Properties();
+        additionalProperties.setProperty("name", "world");
+        cfg.setAdditionalProperties(additionalProperties);
+        get(newCache(cfg), "hello ${name}", false);
+        get(new FilteredResourceCache(temporaryFolder.getRoot(), cfg, LineEndings.crlf), "hello ${name}", false);
+        cfg.getProject().setFile(new File(temporaryFolder.getRoot(), "other/pom.xml"));
+        get(newCache(cfg), "hello ${name}", false);
+        assertEquals(7, filtered.get());
+    }
+
+    @Test
+    public void cleanUpRemovesUnusedEntries() throws Exception {
+        PojoConfigSource cfg = getPojoConfigSource();
+        get(newCache(cfg), "used", false);
+        get(newCache(cfg), "unused", false);
+        final long now = System.currentTimeMillis();
+        final List<Path> entries;
+        try (Stream<Path> files = Files.walk(temporaryFolder.getRoot().toPath())) {
+            entries = files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        assertEquals(2, entries.size());
+        // the second entry was not used for too long
+        Files.setLastModifiedTime(
+                entries.get(1), FileTime.fromMillis(now - FilteredResourceCache.MAX_UNUSED_AGE - 1000));
+
+        FilteredResourceCache.cleanUp(temporaryFolder.getRoot());
+        assertTrue(Files.exists(entries.get(0)));
+        assertFalse(Files.exists(entries.get(1)));
+        assertTrue(new File(temporaryFolder.getRoot(), FilteredResourceCache.CLEAN_UP_MARKER).isFile());
+
+        // cleaned up at most once per period
+        Files.setLastModifiedTime(
+                entries.get(0), FileTime.fromMillis(now - FilteredResourceCache.MAX_UNUSED_AGE - 1000));
+        FilteredResourceCache.cleanUp(temporaryFolder.getRoot());
+        assertTrue(Files.exists(entries.get(0)));
+    }
+
+    @Test
+    public void buildTimestampIsNeverCached() throws Exception {
+        PojoConfigSource cfg = getPojoConfigSource();
+
+        get(newCache(cfg), "built ${maven.build.timestamp}", false);
+        get(newCache(cfg), "built ${maven.build.timestamp}", false);
+        assertEquals(2, filtered.get());
+    }
+
+    @Test
+    public void partiallyReadResourceIsNotCached() throws Exception {
+        PojoConfigSource cfg = getPojoConfigSource();
+
+        try (InputStream in = newCache(cfg).get(payload("hello"), false, "UTF-8", upperCase)) {
+            assertEquals('H', in.read());
+        }
+        assertEquals("HELLO", get(newCache(cfg), "hello", false));
+        assertEquals(2, filtered.get());
+    }
+
+    private String get(FilteredResourceCache cache, String content, boolean isPropertiesFile) throws IOException {
+        try (InputStream in = cache.get(payload(content), isPropertiesFile, "UTF-8", upperCase)) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    private FilteredResourceCache newCache(PojoConfigSource cfg) {
+        return new FilteredResourceCache(temporaryFolder.getRoot(), cfg, LineEndings.unix);
+    }
+
+    private ByteArrayInputStream payload(String payload) {
+        return new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PojoConfigSource getPojoConfigSource() {
+        final Model model = new Model();
+        model.setArtifactId("anArtifact");
+        model.setGroupId("group");
+        model.setVersion("1.0");
+
+        final PojoConfigSource cfg = new PojoConfigSource();
+        cfg.setEncoding("UTF-8");
+        cfg.setMavenProject(new MavenProject(model));
+        return cfg;
+    }
+}
@@ -45,6 +45,7 @@ import org.mockito.ArgumentCaptor;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -99,6 +100,33 @@ public class ReaderFormatterTest {
         assertThat(transformer.transform(resource, is), not(sameInstance(is)));
     }
 
+    @Test
+    public void binaryContentIsNotTransformed() throws Exception {
+        final PojoConfigSource cfg = getPojoConfigSource();
+        cfg.setDetectBinaryFiles(true);
+        InputStreamTransformer transformer =
+                ReaderFormatter.getFileSetTransformers(cfg, true, Collections.emptySet(), "dos");
+
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, '$', '{', 'a', '}'};
+        InputStream result = transformer.transform(dummyResource(), new ByteArrayInputStream(png));
+        assertArrayEquals(png, IOUtils.toByteArray(result));
+
+        InputStream text = transformer.transform(dummyResource(), payload("${artifactId}\n"));
+        assertEquals("anArtifact\r\n", readResultStream(text));
+    }
+
+    @Test(expected = IOException.class)
+    public void binaryDetectionKeepsRejectingLineEndingsOfArchives() throws Exception {
+        final PojoConfigSource cfg = getPojoConfigSource();
+        cfg.setDetectBinaryFiles(true);
+        InputStreamTransformer transformer =
+                ReaderFormatter.getFileSetTransformers(cfg, false, Collections.emptySet(), "dos");
+
+        byte[] jar = {'P', 'K', 3, 4, 0, 0};
+        transformer.transform(
+                new PlexusIoVirtualFileResource(new File("lib.jar"), "lib.jar") {}, new ByteArrayInputStream(jar));
+    }
+
     @Test
     public void additionalProperties() throws Exception {
         final MavenReaderFilter mavenReaderFilter = mock(MavenReaderFilter.class);
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.io;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugins.assembly.model.Assembly;
+import org.apache.maven.plugins.assembly.model.FileSet;
+import org.apache.maven.plugins.assembly.model.io.xpp3.AssemblyXpp3Reader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class DescriptorCacheTest {
+    private static final String DESCRIPTOR = "<assembly><id>${name}</id><formats><format>zip</format></formats>"
+            + "<fileSets><fileSet><directory> ${name}/src </directory><outputDirectory>${name}</outputDirectory>"
+            + "<includes><include>${name}/**</include></includes></fileSet></fileSets></assembly>";
+
+    private final AtomicInteger parses = new AtomicInteger();
+
+    private final DescriptorCache.Parser<Assembly> parser = (reader, transformer) -> {
+        parses.incrementAndGet();
+        return new AssemblyXpp3Reader(transformer::transform).read(reader);
+    };
+
+    @Test
+    public void testDescriptorIsParsedOnceAndInterpolatedPerRead() throws Exception {
+        final DescriptorCache cache = new DescriptorCache();
+
+        final Assembly first = cache.read("bin", DESCRIPTOR, parser, interpolation("first"));
+        final Assembly second = cache.read("bin", DESCRIPTOR, parser, interpolation("second"));
+
+        assertEquals(1, parses.get());
+        assertEquals("first", first.getId());
+        assertEquals("second", second.getId());
+        final FileSet fileSet = second.getFileSets().get(0);
+        assertEquals("second/src", fileSet.getDirectory());
+        assertEquals("second/**", fileSet.getIncludes().get(0));
+        // not interpolated by the readers either
+        assertEquals("${name}", fileSet.getOutputDirectory());
+        assertNotSame(first.getFileSets().get(0), fileSet);
+    }
+
+    @Test
+    public void testChangedDescriptorIsParsedAgain() throws Exception {
+        final DescriptorCache cache = new DescriptorCache();
+
+        cache.read("bin", DESCRIPTOR, parser, interpolation("first"));
+        final Assembly changed = cache.read("bin", DESCRIPTOR.replace("zip", "jar"), parser, interpolation("first"));
+
+        assertEquals(2, parses.get());
+        assertEquals("jar", changed.getFormats().get(0));
+    }
+
+    @Test
+    public void testExpressionsInBooleansAreInterpolatedWhileParsing() throws Exception {
+        final DescriptorCache cache = new DescriptorCache();
+        final String descriptor =
+                "<assembly><id>bin</id><includeBaseDirectory>${name}</includeBaseDirectory></assembly>";
+
+        assertTrue(cache.read("bin", descriptor, parser, interpolation("true")).isIncludeBaseDirectory());
+        assertFalse(
+                cache.read("bin", descriptor, parser, interpolation("false")).isIncludeBaseDirectory());
+    }
+
+    private static DescriptorCache.Transformer interpolation(String name) {
+        return (source, fieldName) -> "outputDirectory".equals(fieldName) ? source : source.replace("${name}", name);
+    }
+}
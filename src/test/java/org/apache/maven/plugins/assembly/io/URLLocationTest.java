@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class URLLocationTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testContentIsReadAgainWhenTheFileChanges() throws IOException {
+        final File file = temporaryFolder.newFile("component.xml");
+        Files.write(file.toPath(), "before".getBytes(StandardCharsets.UTF_8));
+        final URL url = file.toURI().toURL();
+
+        assertEquals("before", read(url));
+
+        Files.write(file.toPath(), "after, longer".getBytes(StandardCharsets.UTF_8));
+        assertEquals("after, longer", read(url));
+    }
+
+    @Test
+    public void testFileUrlIsNotCopied() throws IOException {
+        final File file = temporaryFolder.newFile("component.xml");
+        final URLLocation location = new URLLocation(file.toURI().toURL(), "component.xml", "location.", ".tmp", true);
+
+        assertEquals(file, location.getFile());
+    }
+
+    @Test
+    public void testOnlyFileUrlsHaveALocalFile() throws IOException {
+        final File file = temporaryFolder.newFile("component.xml");
+        final File jar = temporaryFolder.newFile("components.jar");
+
+        assertEquals(
+                file, new URLLocation(file.toURI().toURL(), "component.xml", "location.", ".tmp", true).getLocalFile());
+        assertNull(new URLLocation(
+                        new URL("jar:" + jar.toURI() + "!/META-INF/component.xml"),
+                        "component.xml",
+                        "location.",
+                        ".tmp",
+                        true)
+                .getLocalFile());
+    }
+
+    @Test
+    public void testBackingFileOfJarEntry() throws IOException {
+        final File jar = temporaryFolder.newFile("components.jar");
+
+        assertEquals(jar, URLLocation.backingFile(new URL("jar:" + jar.toURI() + "!/META-INF/component.xml")));
+        assertNull(URLLocation.backingFile(new URL("http://localhost/component.xml")));
+    }
+
+    @Test
+    public void testClasspathResourceIsStreamed() throws IOException {
+        final Location location = new ClasspathResourceLocatorStrategy().resolve("assemblies/empty.xml", null);
+
+        try (InputStream in = location.getInputStream()) {
+            assertTrue(IOUtils.toString(in, StandardCharsets.UTF_8).contains("Apache Software Foundation"));
+        }
+    }
+
+    private static String read(URL url) throws IOException {
+        final Location location = new URLLocation(url, url.toString(), "location.", ".tmp", true);
+        try (InputStream in = location.getInputStream()) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        } finally {
+            location.close();
+        }
+    }
+}
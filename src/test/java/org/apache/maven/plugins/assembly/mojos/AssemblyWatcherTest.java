@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.mojos;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+public class AssemblyWatcherTest {
+    private static final long DEBOUNCE = 100;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testTreesAreWatchedRecursivelyExceptExcludedPaths() throws Exception {
+        final Path root = temporaryFolder.newFolder("root").toPath();
+        final Path output = Files.createDirectories(root.resolve("target/app"));
+        Files.createDirectories(root.resolve("src/main"));
+
+        try (AssemblyWatcher watcher = new AssemblyWatcher()) {
+            watcher.exclude(output);
+            watcher.watchTree(root);
+
+            write(output.resolve("ignored.txt"));
+            final Path changed = write(root.resolve("src/main/config.properties"));
+            assertEquals(Collections.singleton(changed), watcher.awaitChanges(DEBOUNCE));
+
+            final Path created = Files.createDirectory(root.resolve("src/new"));
+            assertEquals(Collections.singleton(created), watcher.awaitChanges(DEBOUNCE));
+            final Path nested = write(created.resolve("nested.txt"));
+            assertEquals(Collections.singleton(nested), watcher.awaitChanges(DEBOUNCE));
+        }
+    }
+
+    @Test
+    public void testTemporaryFilesOfExcludedPathsAreIgnored() throws Exception {
+        final Path target = temporaryFolder.newFolder("target").toPath();
+        final Path output = Files.createDirectories(target.resolve("app-1.0-bin"));
+
+        try (AssemblyWatcher watcher = new AssemblyWatcher()) {
+            watcher.exclude(output);
+            watcher.exclude(target.resolve("app-1.0-bin.zip"));
+            watcher.watchTree(target);
+
+            write(target.resolve("app-1.0-bin.zip1234567.tmp"));
+            final Path jar = write(target.resolve("app-1.0.jar"));
+            assertEquals(Collections.singleton(jar), watcher.awaitChanges(DEBOUNCE));
+        }
+    }
+
+    @Test
+    public void testSingleFilesAreWatchedAlone() throws Exception {
+        final Path directory = temporaryFolder.newFolder("repository").toPath();
+        final Path artifact = write(directory.resolve("lib-1.0.jar"));
+
+        try (AssemblyWatcher watcher = new AssemblyWatcher()) {
+            watcher.watchFile(artifact);
+
+            write(directory.resolve("lib-1.0.pom"));
+            write(artifact);
+            final Set<Path> changes = watcher.awaitChanges(DEBOUNCE);
+            assertEquals(Collections.singleton(artifact.toAbsolutePath().normalize()), changes);
+        }
+    }
+
+    private static Path write(Path file) throws IOException {
+        return Files.write(file, "content".getBytes(StandardCharsets.UTF_8));
+    }
+}
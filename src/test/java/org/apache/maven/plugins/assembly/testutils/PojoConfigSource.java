@@ -20,9 +20,12 @@ package org.apache.maven.plugins.assembly.testutils;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import org.apache.maven.archiver.MavenArchiveConfiguration;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
@@ -118,6 +121,36 @@ public class PojoConfigSource implements AssemblerConfigurationSource {
 
     private List<Assembly> inlineDescriptors;
 
+    private boolean detectBinaryFiles;
+
+    private File filteredResourcesCacheDirectory;
+
+    private String duplicateEntryPolicy;
+
+    private boolean combineHandlerIterations;
+
+    private int readAheadThreads;
+
+    private File deltaBaseline;
+
+    private String dirLinkMode;
+
+    private String dirSync;
+
+    private boolean dependencySnapshot;
+
+    private Map<String, Set<Artifact>> resolvedDependencies;
+
+    private int scanThreads;
+
+    private boolean useGitIndex;
+
+    private boolean useModuleOutputDirectories;
+
+    private File unpackCacheDirectory;
+
+    private int unpackCacheMaxSize;
+
     public String getDescriptor() {
         return descriptor;
     }
@@ -485,4 +518,129 @@ public class PojoConfigSource implements AssemblerConfigurationSource {
     public void setInlineDescriptors(List<Assembly> inlineDescriptors) {
         this.inlineDescriptors = inlineDescriptors;
     }
+
+    @Override
+    public boolean isDetectBinaryFiles() {
+        return detectBinaryFiles;
+    }
+
+    public void setDetectBinaryFiles(boolean detectBinaryFiles) {
+        this.detectBinaryFiles = detectBinaryFiles;
+    }
+
+    @Override
+    public File getFilteredResourcesCacheDirectory() {
+        return filteredResourcesCacheDirectory;
+    }
+
+    public void setFilteredResourcesCacheDirectory(File filteredResourcesCacheDirectory) {
+        this.filteredResourcesCacheDirectory = filteredResourcesCacheDirectory;
+    }
+
+    @Override
+    public String getDuplicateEntryPolicy() {
+        return duplicateEntryPolicy;
+    }
+
+    public void setDuplicateEntryPolicy(String duplicateEntryPolicy) {
+        this.duplicateEntryPolicy = duplicateEntryPolicy;
+    }
+
+    @Override
+    public boolean isCombineHandlerIterations() {
+        return combineHandlerIterations;
+    }
+
+    public void setCombineHandlerIterations(boolean combineHandlerIterations) {
+        this.combineHandlerIterations = combineHandlerIterations;
+    }
+
+    @Override
+    public int getReadAheadThreads() {
+        return readAheadThreads;
+    }
+
+    public void setReadAheadThreads(int readAheadThreads) {
+        this.readAheadThreads = readAheadThreads;
+    }
+
+    public File getDeltaBaseline() {
+        return deltaBaseline;
+    }
+
+    public void setDeltaBaseline(File deltaBaseline) {
+        this.deltaBaseline = deltaBaseline;
+    }
+
+    public String getDirLinkMode() {
+        return dirLinkMode;
+    }
+
+    public void setDirLinkMode(String dirLinkMode) {
+        this.dirLinkMode = dirLinkMode;
+    }
+
+    public String getDirSync() {
+        return dirSync;
+    }
+
+    public void setDirSync(String dirSync) {
+        this.dirSync = dirSync;
+    }
+
+    public boolean isDependencySnapshot() {
+        return dependencySnapshot;
+    }
+
+    public Map<String, Set<Artifact>> getResolvedDependencies() {
+        return resolvedDependencies;
+    }
+
+    public void setResolvedDependencies(Map<String, Set<Artifact>> resolvedDependencies) {
+        this.resolvedDependencies = resolvedDependencies;
+    }
+
+    public void setDependencySnapshot(boolean dependencySnapshot) {
+        this.dependencySnapshot = dependencySnapshot;
+    }
+
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    public boolean isUseGitIndex() {
+        return useGitIndex;
+    }
+
+    public void setUseGitIndex(boolean useGitIndex) {
+        this.useGitIndex = useGitIndex;
+    }
+
+    public boolean isUseModuleOutputDirectories() {
+        return useModuleOutputDirectories;
+    }
+
+    public void setUseModuleOutputDirectories(boolean useModuleOutputDirectories) {
+        this.useModuleOutputDirectories = useModuleOutputDirectories;
+    }
+
+    public File getUnpackCacheDirectory() {
+        return unpackCacheDirectory;
+    }
+
+    public void setUnpackCacheDirectory(File unpackCacheDirectory) {
+        this.unpackCacheDirectory = unpackCacheDirectory;
+    }
+
+    public int getUnpackCacheMaxSize() {
+        return unpackCacheMaxSize;
+    }
+
+    public void setUnpackCacheMaxSize(int unpackCacheMaxSize) {
+        this.unpackCacheMaxSize = unpackCacheMaxSize;
+    }
 }
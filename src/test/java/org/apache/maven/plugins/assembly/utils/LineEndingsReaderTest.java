@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.assembly.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineEndingsReaderTest {
+
+    @Test
+    public void testToLf() throws Exception {
+        assertEquals("abc", roundtrip("abc", false, 100));
+        assertEquals("a\nbc", roundtrip("a\r\nbc", false, 100));
+        assertEquals("a\nb", roundtrip("a\rb", false, 100));
+        assertEquals("a\n\nbc\n", roundtrip("a\r\n\r\nbc\n", false, 100));
+        assertEquals("a\n", roundtrip("a\r", false, 100));
+    }
+
+    @Test
+    public void testToCrLf() throws Exception {
+        assertEquals("abc", roundtrip("abc", true, 100));
+        assertEquals("a\r\nbc", roundtrip("a\nbc", true, 100));
+        assertEquals("a\r\nbc", roundtrip("a\r\nbc", true, 100));
+        assertEquals("a\r\n\r\nbc\r\n", roundtrip("a\n\r\nbc\n", true, 100));
+        assertEquals("a\rb", roundtrip("a\rb", true, 100));
+    }
+
+    @Test
+    public void testMultibyteCharacters() throws Exception {
+        assertEquals("ä中\r\nö\r\n", roundtrip("ä中\nö\r\n", true, 100));
+        assertEquals("ä中\nö\n", roundtrip("ä中\r\nö\r", false, 100));
+    }
+
+    @Test
+    public void testSmallBufferReads() throws Exception {
+        for (int size = 1; size < 5; size++) {
+            assertEquals("a\n\nb\nc", roundtrip("a\r\n\r\nb\rc", false, size));
+            assertEquals("a\r\n\r\nb\rc\r\n", roundtrip("a\n\nb\rc\n", true, size));
+        }
+    }
+
+    private String roundtrip(String msg, boolean crlf, int chunkSize) throws IOException {
+        try (Reader reader = new LineEndingsReader(new StringReader(msg), crlf)) {
+            StringBuilder result = new StringBuilder();
+            char[] buf = new char[chunkSize];
+            int read;
+            while ((read = reader.read(buf, 0, chunkSize)) != -1) {
+                result.append(buf, 0, read);
+            }
+            return result.toString();
+        }
+    }
+}
@@ -31,7 +31,9 @@ import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class LineEndingsUtilsTest {
 
@@ -215,6 +217,55 @@ public class LineEndingsUtilsTest {
         testConversion(test, check, LineEndings.lf, false);
     }
 
+    @Test
+    public void testConvertLineEndings_MixedLineEndingsAcrossBuffers() throws IOException {
+        StringBuilder test = new StringBuilder();
+        StringBuilder check = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            test.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+            check.append("line ").append(i).append("\r\n");
+        }
+
+        testConversion(test.toString(), check.toString(), LineEndings.crlf, null, "UTF-8");
+    }
+
+    @Test
+    public void testConvertLineEndings_EmptyFileStaysEmpty() throws IOException {
+        testConversion("", "", LineEndings.crlf, true, "UTF-8");
+    }
+
+    @Test
+    public void testConvertLineEndings_Utf16() throws IOException {
+        String test = "Th\u00efs \u4e2d is a \r\ntest.\r\n";
+        String check = "Th\u00efs \u4e2d is a \ntest.\n";
+
+        testConversion(test, check, LineEndings.lf, true, "UTF-16LE");
+    }
+
+    @Test
+    public void testIsAsciiCompatible() {
+        assertTrue(LineEndingsUtils.isAsciiCompatible("UTF-8"));
+        assertTrue(LineEndingsUtils.isAsciiCompatible("ISO-8859-1"));
+        assertTrue(LineEndingsUtils.isAsciiCompatible("Shift_JIS"));
+        assertFalse(LineEndingsUtils.isAsciiCompatible("UTF-16"));
+        assertFalse(LineEndingsUtils.isAsciiCompatible("UTF-16LE"));
+        assertFalse(LineEndingsUtils.isAsciiCompatible("no-such-encoding"));
+    }
+
+    private void testConversion(String test, String check, LineEndings lineEndingChars, Boolean eof, String encoding)
+            throws IOException {
+        File source = Files.createTempFile("line-conversion-test-in.", "").toFile();
+        source.deleteOnExit();
+        File dest = Files.createTempFile("line-conversion-test-out.", "").toFile();
+        dest.deleteOnExit();
+
+        Files.write(source.toPath(), test.getBytes(encoding));
+
+        LineEndingsUtils.convertLineEndings(source, dest, lineEndingChars, eof, encoding);
+
+        assertEquals(check, new String(Files.readAllBytes(dest.toPath()), encoding));
+    }
+
     private void testConversion(String test, String check, LineEndings lineEndingChars, Boolean eof)
             throws IOException {
         File source = Files.createTempFile("line-conversion-test-in.", "").toFile();
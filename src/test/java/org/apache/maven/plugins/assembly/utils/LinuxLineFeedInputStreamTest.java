@@ -63,6 +63,13 @@ public class LinuxLineFeedInputStreamTest {
         assertEquals("a", roundtrip("a", false));
     }
 
+    @Test
+    public void testSmallBufferReads() throws Exception {
+        for (int size = 1; size < 5; size++) {
+            assertEquals("a\n\nb\nc\n", roundtripInChunks("a\r\n\r\nb\rc", size));
+        }
+    }
+
     private String roundtrip(String msg) throws IOException {
         return roundtrip(msg, true);
     }
@@ -76,4 +83,18 @@ public class LinuxLineFeedInputStreamTest {
             return new String(buf, 0, read);
         }
     }
+
+    private String roundtripInChunks(String msg, int chunkSize) throws IOException {
+        ByteArrayInputStream baos = new ByteArrayInputStream(msg.getBytes());
+
+        try (LinuxLineFeedInputStream lf = new LinuxLineFeedInputStream(baos, true)) {
+            StringBuilder result = new StringBuilder();
+            byte[] buf = new byte[chunkSize];
+            int read;
+            while ((read = lf.read(buf, 0, chunkSize)) != -1) {
+                result.append(new String(buf, 0, read));
+            }
+            return result.toString();
+        }
+    }
 }
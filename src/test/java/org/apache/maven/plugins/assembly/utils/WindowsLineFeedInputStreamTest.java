@@ -64,6 +64,13 @@ public class WindowsLineFeedInputStreamTest {
         assertEquals("a", roundtrip("a", false));
     }
 
+    @Test
+    public void testSmallBufferReads() throws Exception {
+        for (int size = 1; size < 5; size++) {
+            assertEquals("a\r\n\r\nb\r\nc\r\n", roundtripInChunks("a\n\r\nb\nc", size));
+        }
+    }
+
     private String roundtrip(String msg) throws IOException {
         return roundtrip(msg, true);
     }
@@ -77,4 +84,18 @@ public class WindowsLineFeedInputStreamTest {
             return new String(buf, 0, read);
         }
     }
+
+    private String roundtripInChunks(String msg, int chunkSize) throws IOException {
+        ByteArrayInputStream baos = new ByteArrayInputStream(msg.getBytes());
+
+        try (WindowsLineFeedInputStream lf = new WindowsLineFeedInputStream(baos, true)) {
+            StringBuilder result = new StringBuilder();
+            byte[] buf = new byte[chunkSize];
+            int read;
+            while ((read = lf.read(buf, 0, chunkSize)) != -1) {
+                result.append(new String(buf, 0, read));
+            }
+            return result.toString();
+        }
+    }
 }